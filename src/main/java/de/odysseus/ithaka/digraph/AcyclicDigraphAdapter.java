@@ -0,0 +1,360 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Acyclic digraph adapter.
+ * The adapter maintains a topological order of its vertices under edge insertions (and deletions),
+ * using the dynamic topological sort algorithm by Pearce and Kelly. Inserting an edge that conforms
+ * to the current order costs no search at all; otherwise, only the affected region between the edge's
+ * endpoints is searched and reordered.
+ * Any attempt to insert an edge which would close a cycle (including self loops) is rejected with an
+ * <code>IllegalArgumentException</code>; use {@link #wouldCreateCycle(Object, Object)} to test this in advance.
+ * <p>
+ * The delegate digraph must not be modified other than through this adapter. Its in-edges are
+ * needed for backward searches.
+ * Ids and order positions of removed vertices are reclaimed, so the adapter's bookkeeping
+ * doesn't grow with vertex churn.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class AcyclicDigraphAdapter<V,E> extends DigraphAdapter<V,E> {
+	/**
+	 * Factory creating <code>AcyclicDigraphAdapter</code>.
+	 * @param factory delegate factory
+	 * @return acyclic digraph factory
+	 */
+	public static <V,E> DigraphFactory<AcyclicDigraphAdapter<V,E>> getAdapterFactory(final DigraphFactory<? extends DoubledDigraph<V,E>> factory) {
+		return new DigraphFactory<AcyclicDigraphAdapter<V,E>>() {
+			@Override
+			public AcyclicDigraphAdapter<V,E> create() {
+				return new AcyclicDigraphAdapter<V,E>(factory.create());
+			}
+		};
+	}
+
+	private final DoubledDigraph<V,E> delegate;
+	private final VertexIndex<V> index = new VertexIndex<V>();
+
+	private int[] positions = new int[16]; // vertex id -> position (-1 if vertex has been removed)
+	private int[] order = new int[16]; // position -> vertex id (-1 for holes)
+	private int size; // number of used positions, including holes
+
+	// search state, reused between insertions
+	private final List<V> forward = new ArrayList<V>();
+	private final List<V> backward = new ArrayList<V>();
+	private final List<Object> stack = new ArrayList<Object>();
+	private boolean[] visited = new boolean[16];
+
+	/**
+	 * Create acyclic digraph backed by a {@link DoubledMapDigraph}.
+	 */
+	public AcyclicDigraphAdapter() {
+		this(new DoubledMapDigraph<V,E>());
+	}
+
+	/**
+	 * Create acyclic digraph.
+	 * @param delegate initial digraph, which must be acyclic
+	 * @throws IllegalArgumentException if <code>delegate</code> contains a cycle
+	 */
+	public AcyclicDigraphAdapter(DoubledDigraph<V,E> delegate) {
+		super(delegate);
+		this.delegate = delegate;
+		if (delegate.getVertexCount() > 0) {
+			for (V vertex : Digraphs.topsort(delegate, false)) {
+				append(vertex);
+			}
+			for (V source : delegate.vertices()) {
+				for (V target : delegate.targets(source)) {
+					if (position(source) >= position(target)) {
+						throw new IllegalArgumentException("Digraph is not acyclic!");
+					}
+				}
+			}
+		}
+	}
+
+	private int position(Object vertex) {
+		int id = index.getId(vertex);
+		return id < 0 ? -1 : positions[id];
+	}
+
+	private void append(V vertex) {
+		int id = index.add(vertex);
+		if (id == positions.length) {
+			positions = Arrays.copyOf(positions, 2 * id);
+			visited = Arrays.copyOf(visited, 2 * id);
+		}
+		if (size == order.length) {
+			if (2 * getVertexCount() < size) {
+				compact();
+			} else {
+				order = Arrays.copyOf(order, 2 * size);
+			}
+		}
+		positions[id] = size;
+		order[size++] = id;
+	}
+
+	private void forget(Object vertex) {
+		int id = index.getId(vertex);
+		if (id >= 0 && positions[id] >= 0) {
+			order[positions[id]] = -1;
+			positions[id] = -1;
+			index.remove(vertex);
+		}
+	}
+
+	private void compact() {
+		int position = 0;
+		for (int i = 0; i < size; i++) {
+			int id = order[i];
+			if (id >= 0) {
+				positions[id] = position;
+				order[position++] = id;
+			}
+		}
+		Arrays.fill(order, position, size, -1);
+		size = position;
+	}
+
+	/**
+	 * Search vertices reachable from <code>start</code> within the affected region.
+	 * @return <code>false</code> if the search reached a vertex at the upper bound (i.e., a cycle)
+	 */
+	private boolean search(V start, boolean outgoing, int lowerBound, int upperBound, List<V> result) {
+		boolean success = true;
+		visited[index.getId(start)] = true;
+		result.add(start);
+		stack.add(outgoing ? delegate.targets(start).iterator() : delegate.sources(start).iterator());
+		while (success && !stack.isEmpty()) {
+			@SuppressWarnings("unchecked")
+			Iterator<V> iterator = (Iterator<V>)stack.get(stack.size() - 1);
+			if (iterator.hasNext()) {
+				V vertex = iterator.next();
+				int id = index.getId(vertex);
+				int position = positions[id];
+				if (outgoing && position == upperBound) {
+					success = false;
+				} else if (!visited[id] && position > lowerBound && position < upperBound) {
+					visited[id] = true;
+					result.add(vertex);
+					stack.add(outgoing ? delegate.targets(vertex).iterator() : delegate.sources(vertex).iterator());
+				}
+			} else {
+				stack.remove(stack.size() - 1);
+			}
+		}
+		stack.clear();
+		return success;
+	}
+
+	private void reset(List<V> vertices) {
+		for (V vertex : vertices) {
+			visited[index.getId(vertex)] = false;
+		}
+		vertices.clear();
+	}
+
+	private void sortByPosition(List<V> vertices) {
+		Collections.sort(vertices, new Comparator<V>() {
+			@Override
+			public int compare(V v1, V v2) {
+				int p1 = position(v1), p2 = position(v2);
+				return p1 < p2 ? -1 : p1 == p2 ? 0 : 1;
+			}
+		});
+	}
+
+	/**
+	 * Answer <code>true</code> if inserting an edge from <code>source</code> to <code>target</code>
+	 * would close a cycle.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return <code>true</code> iff there's a path from <code>target</code> to <code>source</code>
+	 */
+	public boolean wouldCreateCycle(V source, V target) {
+		if (source.equals(target)) {
+			return true;
+		}
+		int lowerBound = position(target);
+		int upperBound = position(source);
+		if (lowerBound < 0 || upperBound < 0 || lowerBound > upperBound) {
+			return false;
+		}
+		try {
+			return !search(target, true, lowerBound, upperBound, forward);
+		} finally {
+			reset(forward);
+		}
+	}
+
+	@Override
+	public boolean add(V vertex) {
+		if (super.add(vertex)) {
+			append(vertex);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Put an edge, restoring the topological order if necessary.
+	 * @throws IllegalArgumentException if the edge would close a cycle
+	 */
+	@Override
+	public E put(V source, V target, E edge) {
+		if (source.equals(target)) {
+			throw new IllegalArgumentException("Self loop: " + source);
+		}
+		add(source);
+		add(target);
+		int lowerBound = position(target);
+		int upperBound = position(source);
+		if (lowerBound < upperBound) {
+			try {
+				if (!search(target, true, lowerBound, upperBound, forward)) {
+					throw new IllegalArgumentException("Edge would close a cycle: " + source + " -> " + target);
+				}
+				search(source, false, lowerBound, upperBound, backward);
+				reorder();
+			} finally {
+				reset(forward);
+				reset(backward);
+			}
+		}
+		return super.put(source, target, edge);
+	}
+
+	/**
+	 * Move the backward region in front of the forward region, reusing their positions.
+	 */
+	private void reorder() {
+		sortByPosition(forward);
+		sortByPosition(backward);
+		int[] slots = new int[forward.size() + backward.size()];
+		int i = 0;
+		for (V vertex : backward) {
+			slots[i++] = position(vertex);
+		}
+		for (V vertex : forward) {
+			slots[i++] = position(vertex);
+		}
+		Arrays.sort(slots);
+		i = 0;
+		for (V vertex : backward) {
+			int id = index.getId(vertex);
+			positions[id] = slots[i];
+			order[slots[i++]] = id;
+		}
+		for (V vertex : forward) {
+			int id = index.getId(vertex);
+			positions[id] = slots[i];
+			order[slots[i++]] = id;
+		}
+	}
+
+	@Override
+	public boolean remove(V vertex) {
+		if (super.remove(vertex)) {
+			forget(vertex);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		super.removeAll(vertices);
+		for (V vertex : vertices) {
+			forget(vertex);
+		}
+	}
+
+	/**
+	 * Make sure the order is kept in sync if <code>Iterator.remove()</code> is called.
+	 */
+	@Override
+	public Iterable<V> vertices() {
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				final Iterator<V> delegate = AcyclicDigraphAdapter.super.vertices().iterator();
+				return new Iterator<V>() {
+					V vertex;
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+					@Override
+					public V next() {
+						return vertex = delegate.next();
+					}
+					@Override
+					public void remove() {
+						delegate.remove();
+						forget(vertex);
+					}
+				};
+			}
+			@Override
+			public String toString() {
+				return AcyclicDigraphAdapter.super.vertices().toString();
+			}
+		};
+	}
+
+	/**
+	 * Answer the vertices in the maintained topological order, i.e. all edges go from left to right.
+	 * No search is performed.
+	 * @return list of vertices topologically ordered.
+	 */
+	public List<V> topsort() {
+		List<V> result = new ArrayList<V>(getVertexCount());
+		for (int i = 0; i < size; i++) {
+			if (order[i] >= 0) {
+				result.add(index.getVertex(order[i]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return <code>true</code>
+	 */
+	@Override
+	public boolean isAcyclic() {
+		return true;
+	}
+
+	/**
+	 * @return unmodifiable reverse view
+	 */
+	@Override
+	public Digraph<V,E> reverse() {
+		return Digraphs.unmodifiableDigraph(delegate.reverse());
+	}
+}
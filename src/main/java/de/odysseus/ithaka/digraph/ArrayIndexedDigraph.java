@@ -0,0 +1,280 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Indexed digraph implementation.
+ * Vertices are mapped to dense ids by a {@link VertexIndex}, edges are stored in an
+ * {@link ArrayIntDigraph}. Vertices are hashed once per method call only; edge targets
+ * are iterated in the order of their ids. Ids of removed vertices are reused, so vertex churn
+ * doesn't grow the id range beyond the maximum number of vertices held at any time.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class ArrayIndexedDigraph<V,E> implements IndexedDigraph<V,E> {
+	/**
+	 * Factory creating <code>ArrayIndexedDigraph</code>.
+	 * @return indexed digraph factory
+	 */
+	public static <V,E> DigraphFactory<ArrayIndexedDigraph<V,E>> getDigraphFactory() {
+		return new DigraphFactory<ArrayIndexedDigraph<V,E>>() {
+			@Override
+			public ArrayIndexedDigraph<V,E> create() {
+				return new ArrayIndexedDigraph<V,E>();
+			}
+		};
+	}
+
+	private final VertexIndex<V> index;
+	private final VertexIndex<V> indexView;
+	private final ArrayIntDigraph<E> digraph;
+
+	/**
+	 * Create digraph.
+	 */
+	public ArrayIndexedDigraph() {
+		this(16);
+	}
+
+	/**
+	 * Create digraph.
+	 * @param capacity initial vertex capacity
+	 */
+	public ArrayIndexedDigraph(int capacity) {
+		this.index = new VertexIndex<V>(capacity);
+		this.indexView = VertexIndex.unmodifiableIndex(index);
+		this.digraph = new ArrayIntDigraph<E>(capacity);
+	}
+
+	@Override
+	public VertexIndex<V> getVertexIndex() {
+		return indexView;
+	}
+
+	@Override
+	public IntDigraph<E> getIntDigraph() {
+		return digraph;
+	}
+
+	@Override
+	public boolean add(V vertex) {
+		return digraph.add(index.add(vertex));
+	}
+
+	@Override
+	public E put(V source, V target, E edge) {
+		return digraph.put(index.add(source), index.add(target), edge);
+	}
+
+	@Override
+	public E get(Object source, Object target) {
+		return digraph.get(index.getId(source), index.getId(target));
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		return digraph.contains(index.getId(source), index.getId(target));
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return digraph.contains(index.getId(vertex));
+	}
+
+	@Override
+	public E remove(V source, V target) {
+		return digraph.remove(index.getId(source), index.getId(target));
+	}
+
+	@Override
+	public boolean remove(V vertex) {
+		if (digraph.remove(index.getId(vertex))) {
+			index.remove(vertex);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		BitSet ids = new BitSet(index.size());
+		for (V vertex : vertices) {
+			int id = index.getId(vertex);
+			if (id >= 0) {
+				ids.set(id);
+			}
+		}
+		digraph.removeAll(ids);
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			index.remove(index.getVertex(id));
+		}
+	}
+
+	@Override
+	public Iterable<V> vertices() {
+		if (digraph.getVertexCount() == 0) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					IntCursor delegate = digraph.vertices();
+					int vertex = -1;
+
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return index.getVertex(vertex = delegate.next());
+					}
+
+					@Override
+					public void remove() {
+						if (vertex < 0) {
+							throw new IllegalStateException();
+						}
+						digraph.remove(vertex);
+						index.remove(index.getVertex(vertex));
+						vertex = -1;
+					}
+				};
+			}
+			@Override
+			public String toString() {
+				return ArrayIndexedDigraph.toString(this);
+			}
+		};
+	}
+
+	@Override
+	public Iterable<V> targets(Object source) {
+		final int id = index.getId(source);
+		if (digraph.getOutDegree(id) == 0) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					int position = 0;
+					boolean removable = false;
+
+					@Override
+					public boolean hasNext() {
+						return position < digraph.getOutDegree(id);
+					}
+
+					@Override
+					public V next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException("No more vertices");
+						}
+						removable = true;
+						return index.getVertex(digraph.getTarget(id, position++));
+					}
+
+					@Override
+					public void remove() {
+						if (!removable) {
+							throw new IllegalStateException();
+						}
+						digraph.remove(id, digraph.getTarget(id, --position));
+						removable = false;
+					}
+				};
+			}
+			@Override
+			public String toString() {
+				return ArrayIndexedDigraph.toString(this);
+			}
+		};
+	}
+
+	@Override
+	public int getVertexCount() {
+		return digraph.getVertexCount();
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		return digraph.getOutDegree(index.getId(vertex));
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return digraph.getEdgeCount();
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		return digraph.isAcyclic();
+	}
+
+	@Override
+	public ArrayIndexedDigraph<V,E> reverse() {
+		return Digraphs.<V,E,ArrayIndexedDigraph<V,E>>reverse(this, ArrayIndexedDigraph.<V,E>getDigraphFactory());
+	}
+
+	@Override
+	public ArrayIndexedDigraph<V,E> subgraph(Set<V> vertices) {
+		return Digraphs.<V,E,ArrayIndexedDigraph<V,E>>subgraph(this, vertices, ArrayIndexedDigraph.<V,E>getDigraphFactory());
+	}
+
+	private static String toString(Iterable<?> vertices) {
+		StringBuilder b = new StringBuilder("[");
+		for (Object vertex : vertices) {
+			if (b.length() > 1) {
+				b.append(", ");
+			}
+			b.append(vertex);
+		}
+		return b.append("]").toString();
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		b.append("(");
+		Iterator<V> vertices = vertices().iterator();
+		while (vertices.hasNext()) {
+			V v = vertices.next();
+			b.append(v);
+			b.append(targets(v));
+			if (vertices.hasNext()) {
+				b.append(", ");
+				if (b.length() > 1000) {
+					b.append("...");
+					break;
+				}
+			}
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+/**
+ * Array-based digraph implementation with primitive <code>int</code> vertices.
+ * For each vertex, edge targets are stored in a sorted <code>int[]</code> array
+ * (edge values in a parallel array), so vertices and edges are never boxed.
+ * Edge targets are iterated in ascending order.
+ *
+ * @param <E> edge type
+ */
+public class ArrayIntDigraph<E> implements IntDigraph<E> {
+	private static final int[] NO_TARGETS = new int[0];
+	private static final Object[] NO_EDGES = new Object[0];
+
+	private final BitSet vertices = new BitSet();
+
+	private int[][] targets;
+	private Object[][] edges;
+	private int[] degrees;
+
+	private int vertexCount;
+	private int edgeCount;
+
+	/**
+	 * Create digraph.
+	 */
+	public ArrayIntDigraph() {
+		this(16);
+	}
+
+	/**
+	 * Create digraph.
+	 * @param capacity initial vertex capacity
+	 */
+	public ArrayIntDigraph(int capacity) {
+		targets = new int[capacity][];
+		edges = new Object[capacity][];
+		degrees = new int[capacity];
+	}
+
+	private void ensureCapacity(int vertex) {
+		if (vertex < 0) {
+			throw new IllegalArgumentException("Vertex must not be negative: " + vertex);
+		}
+		if (vertex >= degrees.length) {
+			int capacity = Math.max(vertex + 1, 2 * degrees.length);
+			targets = Arrays.copyOf(targets, capacity);
+			edges = Arrays.copyOf(edges, capacity);
+			degrees = Arrays.copyOf(degrees, capacity);
+		}
+	}
+
+	/**
+	 * Answer the position of the given target in the source's target array
+	 * (or <code>-(insertion point) - 1</code>).
+	 */
+	private int search(int source, int target) {
+		if (source < 0 || source >= degrees.length || degrees[source] == 0) {
+			return -1;
+		}
+		return Arrays.binarySearch(targets[source], 0, degrees[source], target);
+	}
+
+	@Override
+	public boolean add(int vertex) {
+		ensureCapacity(vertex);
+		if (vertices.get(vertex)) {
+			return false;
+		}
+		vertices.set(vertex);
+		targets[vertex] = NO_TARGETS;
+		edges[vertex] = NO_EDGES;
+		vertexCount++;
+		return true;
+	}
+
+	@Override
+	public E put(int source, int target, E edge) {
+		ensureCapacity(target);
+		add(source);
+		add(target);
+		int index = search(source, target);
+		if (index >= 0) {
+			@SuppressWarnings("unchecked")
+			E result = (E)edges[source][index];
+			edges[source][index] = edge;
+			return result;
+		}
+		index = -index - 1;
+		int degree = degrees[source];
+		if (degree == targets[source].length) {
+			int capacity = Math.max(4, 2 * degree);
+			targets[source] = Arrays.copyOf(targets[source], capacity);
+			edges[source] = Arrays.copyOf(edges[source], capacity);
+		}
+		System.arraycopy(targets[source], index, targets[source], index + 1, degree - index);
+		System.arraycopy(edges[source], index, edges[source], index + 1, degree - index);
+		targets[source][index] = target;
+		edges[source][index] = edge;
+		degrees[source]++;
+		edgeCount++;
+		return null;
+	}
+
+	@Override
+	public E get(int source, int target) {
+		int index = search(source, target);
+		if (index < 0) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		E result = (E)edges[source][index];
+		return result;
+	}
+
+	@Override
+	public boolean contains(int source, int target) {
+		return search(source, target) >= 0;
+	}
+
+	@Override
+	public boolean contains(int vertex) {
+		return vertex >= 0 && vertices.get(vertex);
+	}
+
+	private E removeAt(int source, int index) {
+		@SuppressWarnings("unchecked")
+		E result = (E)edges[source][index];
+		int degree = --degrees[source];
+		System.arraycopy(targets[source], index + 1, targets[source], index, degree - index);
+		System.arraycopy(edges[source], index + 1, edges[source], index, degree - index);
+		edges[source][degree] = null;
+		edgeCount--;
+		return result;
+	}
+
+	@Override
+	public E remove(int source, int target) {
+		int index = search(source, target);
+		return index < 0 ? null : removeAt(source, index);
+	}
+
+	@Override
+	public boolean remove(int vertex) {
+		if (!contains(vertex)) {
+			return false;
+		}
+		edgeCount -= degrees[vertex];
+		degrees[vertex] = 0;
+		targets[vertex] = null;
+		edges[vertex] = null;
+		vertices.clear(vertex);
+		vertexCount--;
+		for (int source = vertices.nextSetBit(0); source >= 0; source = vertices.nextSetBit(source + 1)) {
+			int index = search(source, vertex);
+			if (index >= 0) {
+				removeAt(source, index);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Remove all vertices.
+	 * @param vertices vertices
+	 */
+	public void removeAll(BitSet vertices) {
+		for (int vertex = vertices.nextSetBit(0); vertex >= 0; vertex = vertices.nextSetBit(vertex + 1)) {
+			if (contains(vertex)) {
+				edgeCount -= degrees[vertex];
+				degrees[vertex] = 0;
+				targets[vertex] = null;
+				edges[vertex] = null;
+				this.vertices.clear(vertex);
+				vertexCount--;
+			}
+		}
+		for (int source = this.vertices.nextSetBit(0); source >= 0; source = this.vertices.nextSetBit(source + 1)) {
+			int[] array = targets[source];
+			Object[] values = edges[source];
+			int degree = degrees[source];
+			int index = 0;
+			for (int i = 0; i < degree; i++) {
+				if (!vertices.get(array[i])) {
+					array[index] = array[i];
+					values[index++] = values[i];
+				}
+			}
+			for (int i = index; i < degree; i++) {
+				values[i] = null;
+			}
+			edgeCount -= degree - index;
+			degrees[source] = index;
+		}
+	}
+
+	@Override
+	public IntCursor vertices() {
+		return new IntCursor() {
+			int next = vertices.nextSetBit(0);
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public int next() {
+				if (next < 0) {
+					throw new NoSuchElementException("No more vertices");
+				}
+				int result = next;
+				next = vertices.nextSetBit(next + 1);
+				return result;
+			}
+		};
+	}
+
+	@Override
+	public IntCursor targets(final int source) {
+		final int[] array = contains(source) ? targets[source] : NO_TARGETS;
+		return new IntCursor() {
+			int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < getOutDegree(source);
+			}
+
+			@Override
+			public int next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException("No more vertices");
+				}
+				return array[index++];
+			}
+		};
+	}
+
+	@Override
+	public int getTarget(int source, int index) {
+		if (index < 0 || index >= getOutDegree(source)) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Out degree: " + getOutDegree(source));
+		}
+		return targets[source][index];
+	}
+
+	@Override
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	@Override
+	public int getVertexBound() {
+		return vertices.length();
+	}
+
+	@Override
+	public int getOutDegree(int vertex) {
+		return vertex >= 0 && vertex < degrees.length ? degrees[vertex] : 0;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		return IntDigraphs.isAcyclic(this);
+	}
+
+	@Override
+	public ArrayIntDigraph<E> reverse() {
+		ArrayIntDigraph<E> reverse = new ArrayIntDigraph<E>(getVertexBound());
+		for (int source = vertices.nextSetBit(0); source >= 0; source = vertices.nextSetBit(source + 1)) {
+			reverse.add(source);
+			for (int index = 0; index < degrees[source]; index++) {
+				@SuppressWarnings("unchecked")
+				E edge = (E)edges[source][index];
+				reverse.put(targets[source][index], source, edge);
+			}
+		}
+		return reverse;
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		b.append("(");
+		for (int source = vertices.nextSetBit(0); source >= 0; source = vertices.nextSetBit(source + 1)) {
+			if (b.length() > 1000) {
+				b.append("...");
+				break;
+			}
+			b.append(source);
+			b.append(Arrays.toString(Arrays.copyOf(targets[source], degrees[source])));
+			if (vertices.nextSetBit(source + 1) >= 0) {
+				b.append(", ");
+			}
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe map-based directed graph implementation.
+ * <p>
+ * Vertex and edge maps are {@link ConcurrentHashMap}s. Read operations (including iteration over
+ * vertices and targets) never block; iterators are weakly consistent and never throw
+ * {@link java.util.ConcurrentModificationException}.
+ * Edge updates lock a stripe determined by the edge source, so updates of different sources
+ * usually proceed in parallel. Removing vertices locks all stripes.
+ * <p>
+ * The edge count is kept in per-stripe counters, which are summed up on request.
+ * Vertices must not be <code>null</code>; <code>null</code> edges are supported.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class ConcurrentMapDigraph<V, E> implements Digraph<V, E> {
+	/**
+	 * Factory creating <code>ConcurrentMapDigraph</code>.
+	 * @return concurrent map digraph factory
+	 */
+	public static <V, E> DigraphFactory<ConcurrentMapDigraph<V, E>> getDigraphFactory() {
+		return new DigraphFactory<ConcurrentMapDigraph<V, E>>() {
+			@Override
+			public ConcurrentMapDigraph<V, E> create() {
+				return new ConcurrentMapDigraph<V, E>();
+			}
+		};
+	}
+
+	private static final Object NULL = new Object();
+
+	// distance between stripe counters (avoid false sharing)
+	private static final int PADDING = 16;
+
+	private final ConcurrentMap<V, ConcurrentMap<V, Object>> vertexMap;
+	private final ReentrantLock[] locks;
+	private final AtomicIntegerArray edgeCounts;
+
+	/**
+	 * Create digraph with a default number of lock stripes.
+	 */
+	public ConcurrentMapDigraph() {
+		this(4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create digraph.
+	 * @param concurrencyLevel estimated number of concurrently updating threads
+	 */
+	public ConcurrentMapDigraph(int concurrencyLevel) {
+		if (concurrencyLevel < 1) {
+			throw new IllegalArgumentException("Concurrency level must be positive: " + concurrencyLevel);
+		}
+		int stripes = 1;
+		while (stripes < concurrencyLevel) {
+			stripes <<= 1;
+		}
+		this.vertexMap = new ConcurrentHashMap<V, ConcurrentMap<V, Object>>(16, 0.75f, stripes);
+		this.locks = new ReentrantLock[stripes];
+		for (int i = 0; i < stripes; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		this.edgeCounts = new AtomicIntegerArray(stripes * PADDING);
+	}
+
+	private int stripe(Object source) {
+		int h = source.hashCode();
+		h ^= (h >>> 20) ^ (h >>> 12);
+		h ^= (h >>> 7) ^ (h >>> 4);
+		return h & (locks.length - 1);
+	}
+
+	private void lockAll() {
+		for (ReentrantLock lock : locks) {
+			lock.lock();
+		}
+	}
+
+	private void unlockAll() {
+		for (int i = locks.length - 1; i >= 0; i--) {
+			locks[i].unlock();
+		}
+	}
+
+	private static Object mask(Object edge) {
+		return edge == null ? NULL : edge;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> E unmask(Object edge) {
+		return edge == NULL ? null : (E)edge;
+	}
+
+	private ConcurrentMap<V, Object> edgeMap(V vertex) {
+		ConcurrentMap<V, Object> edgeMap = vertexMap.get(vertex);
+		if (edgeMap == null) {
+			ConcurrentMap<V, Object> newEdgeMap = new ConcurrentHashMap<V, Object>(4, 0.75f, 1);
+			edgeMap = vertexMap.putIfAbsent(vertex, newEdgeMap);
+			if (edgeMap == null) {
+				edgeMap = newEdgeMap;
+			}
+		}
+		return edgeMap;
+	}
+
+	@Override
+	public boolean add(V vertex) {
+		if (vertexMap.containsKey(vertex)) {
+			return false;
+		}
+		return vertexMap.putIfAbsent(vertex, new ConcurrentHashMap<V, Object>(4, 0.75f, 1)) == null;
+	}
+
+	@Override
+	public E put(V source, V target, E edge) {
+		int stripe = stripe(source);
+		locks[stripe].lock();
+		try {
+			ConcurrentMap<V, Object> edgeMap = edgeMap(source);
+			edgeMap(target);
+			Object result = edgeMap.put(target, mask(edge));
+			if (result == null) {
+				edgeCounts.incrementAndGet(stripe * PADDING);
+			}
+			return ConcurrentMapDigraph.<E>unmask(result);
+		} finally {
+			locks[stripe].unlock();
+		}
+	}
+
+	@Override
+	public E get(Object source, Object target) {
+		Map<V, Object> edgeMap = vertexMap.get(source);
+		if (edgeMap == null) {
+			return null;
+		}
+		return ConcurrentMapDigraph.<E>unmask(edgeMap.get(target));
+	}
+
+	@Override
+	public E remove(V source, V target) {
+		int stripe = stripe(source);
+		locks[stripe].lock();
+		try {
+			Map<V, Object> edgeMap = vertexMap.get(source);
+			if (edgeMap == null) {
+				return null;
+			}
+			Object result = edgeMap.remove(target);
+			if (result != null) {
+				edgeCounts.decrementAndGet(stripe * PADDING);
+			}
+			return ConcurrentMapDigraph.<E>unmask(result);
+		} finally {
+			locks[stripe].unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(V vertex) {
+		if (!vertexMap.containsKey(vertex)) {
+			return false;
+		}
+		lockAll();
+		try {
+			Map<V, Object> edgeMap = vertexMap.remove(vertex);
+			if (edgeMap == null) {
+				return false;
+			}
+			edgeCounts.addAndGet(stripe(vertex) * PADDING, -edgeMap.size());
+			for (Map.Entry<V, ConcurrentMap<V, Object>> entry : vertexMap.entrySet()) {
+				if (entry.getValue().remove(vertex) != null) {
+					edgeCounts.decrementAndGet(stripe(entry.getKey()) * PADDING);
+				}
+			}
+			return true;
+		} finally {
+			unlockAll();
+		}
+	}
+
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		lockAll();
+		try {
+			for (V vertex : vertices) {
+				Map<V, Object> edgeMap = vertexMap.remove(vertex);
+				if (edgeMap != null) {
+					edgeCounts.addAndGet(stripe(vertex) * PADDING, -edgeMap.size());
+				}
+			}
+			for (Map.Entry<V, ConcurrentMap<V, Object>> entry : vertexMap.entrySet()) {
+				Iterator<V> iter = entry.getValue().keySet().iterator();
+				while (iter.hasNext()) {
+					if (vertices.contains(iter.next())) {
+						iter.remove();
+						edgeCounts.decrementAndGet(stripe(entry.getKey()) * PADDING);
+					}
+				}
+			}
+		} finally {
+			unlockAll();
+		}
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		Map<V, Object> edgeMap = vertexMap.get(source);
+		if (edgeMap == null) {
+			return false;
+		}
+		return edgeMap.containsKey(target);
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return vertexMap.containsKey(vertex);
+	}
+
+	@Override
+	public Iterable<V> vertices() {
+		if (vertexMap.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					Iterator<V> delegate = vertexMap.keySet().iterator();
+					V vertex = null;
+
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return vertex = delegate.next();
+					}
+
+					@Override
+					public void remove() {
+						if (vertex == null) {
+							throw new IllegalStateException();
+						}
+						ConcurrentMapDigraph.this.remove(vertex);
+						vertex = null;
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return vertexMap.keySet().toString();
+			}
+		};
+	}
+
+	@Override
+	public Iterable<V> targets(final Object source) {
+		final Map<V, Object> edgeMap = vertexMap.get(source);
+		if (edgeMap == null || edgeMap.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					Iterator<V> delegate = edgeMap.keySet().iterator();
+					V target = null;
+
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return target = delegate.next();
+					}
+
+					@Override
+					public void remove() {
+						if (target == null) {
+							throw new IllegalStateException();
+						}
+						@SuppressWarnings("unchecked")
+						V v = (V) source;
+						ConcurrentMapDigraph.this.remove(v, target);
+						target = null;
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return edgeMap.keySet().toString();
+			}
+		};
+	}
+
+	@Override
+	public int getVertexCount() {
+		return vertexMap.size();
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		Map<V, Object> edgeMap = vertexMap.get(vertex);
+		if (edgeMap == null) {
+			return 0;
+		}
+		return edgeMap.size();
+	}
+
+	@Override
+	public int getEdgeCount() {
+		int edgeCount = 0;
+		for (int i = 0; i < locks.length; i++) {
+			edgeCount += edgeCounts.get(i * PADDING);
+		}
+		return edgeCount;
+	}
+
+	@Override
+	public ConcurrentMapDigraph<V, E> reverse() {
+		return Digraphs.<V, E, ConcurrentMapDigraph<V, E>> reverse(this, ConcurrentMapDigraph.<V, E>getDigraphFactory());
+	}
+
+	@Override
+	public ConcurrentMapDigraph<V, E> subgraph(Set<V> vertices) {
+		return Digraphs.<V, E, ConcurrentMapDigraph<V, E>> subgraph(this, vertices, ConcurrentMapDigraph.<V, E>getDigraphFactory());
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		return Digraphs.isAcyclic(this);
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		b.append("(");
+		Iterator<V> vertices = vertices().iterator();
+		while (vertices.hasNext()) {
+			V v = vertices.next();
+			b.append(v);
+			b.append(targets(v));
+			if (vertices.hasNext()) {
+				b.append(", ");
+				if (b.length() > 1000) {
+					b.append("...");
+					break;
+				}
+			}
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Condensation (component graph) of a digraph.
+ * <p>
+ * The condensation is the acyclic digraph of the strongly connected components of a digraph. It is
+ * built in a single scan over the edges, using the component numbers answered by
+ * {@link StronglyConnectedComponents}: parallel edges between two components are merged into one
+ * component edge with a primitive <code>int</code> multiplicity (the number of edges or the sum of
+ * their weights). Component edges are stored as adjacency arrays indexed by component number.
+ * Subgraphs of components are created on demand only.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class Condensation<V,E> {
+	private final Digraph<V,E> digraph;
+	private final StronglyConnectedComponents<V> components;
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] multiplicities;
+	private final List<Digraph<V,E>> subgraphs;
+
+	/**
+	 * Create condensation, counting edges between components.
+	 * @param digraph digraph
+	 */
+	public Condensation(Digraph<V,E> digraph) {
+		this(digraph, null);
+	}
+
+	/**
+	 * Create condensation, summing up weights of edges between components.
+	 * @param digraph digraph
+	 * @param weights edge weights (if <code>null</code>, edges are counted)
+	 */
+	public Condensation(Digraph<V,E> digraph, EdgeWeights<? super V> weights) {
+		this(digraph, new StronglyConnectedComponents<V>(digraph), weights);
+	}
+
+	/**
+	 * Create condensation from precomputed components.
+	 * @param digraph digraph
+	 * @param components strongly connected components of <code>digraph</code>
+	 * @param weights edge weights (if <code>null</code>, edges are counted)
+	 */
+	public Condensation(Digraph<V,E> digraph, StronglyConnectedComponents<V> components, EdgeWeights<? super V> weights) {
+		this.digraph = digraph;
+		this.components = components;
+		int n = components.getComponentCount();
+		offsets = new int[n + 1];
+		int[] targets = new int[16];
+		int[] multiplicities = new int[16];
+		int m = 0;
+		int[] slots = new int[n]; // component -> slot of edge from current component
+		Arrays.fill(slots, -1);
+		for (int c = 0; c < n; c++) {
+			for (V source : components.getComponentVertices(c)) {
+				for (V target : digraph.targets(source)) {
+					int t = components.getComponent(target);
+					if (t != c) {
+						int slot = slots[t];
+						if (slot < offsets[c]) { // first edge from c to t
+							if (m == targets.length) {
+								targets = Arrays.copyOf(targets, 2 * m);
+								multiplicities = Arrays.copyOf(multiplicities, 2 * m);
+							}
+							slot = slots[t] = m++;
+							targets[slot] = t;
+						}
+						multiplicities[slot] += weights == null ? 1 : weights.get(source, target).intValue();
+					}
+				}
+			}
+			offsets[c + 1] = m;
+		}
+		this.targets = Arrays.copyOf(targets, m);
+		this.multiplicities = Arrays.copyOf(multiplicities, m);
+		this.subgraphs = new ArrayList<Digraph<V,E>>(n);
+		for (int c = 0; c < n; c++) {
+			subgraphs.add(null);
+		}
+	}
+
+	/**
+	 * @return strongly connected components (component numbers are topologically sorted)
+	 */
+	public StronglyConnectedComponents<V> getComponents() {
+		return components;
+	}
+
+	/**
+	 * @return number of components
+	 */
+	public int getComponentCount() {
+		return components.getComponentCount();
+	}
+
+	/**
+	 * @return number of edges between components
+	 */
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * @param component component number
+	 * @return number of components with an edge from the given component
+	 */
+	public int getOutDegree(int component) {
+		return offsets[component + 1] - offsets[component];
+	}
+
+	/**
+	 * Get target component of an edge.
+	 * @param component source component number
+	 * @param index edge index (<code>0 &lt;= index &lt; getOutDegree(component)</code>)
+	 * @return target component number
+	 */
+	public int getTarget(int component, int index) {
+		return targets[offsets[component] + index];
+	}
+
+	/**
+	 * Get multiplicity of an edge.
+	 * @param component source component number
+	 * @param index edge index (<code>0 &lt;= index &lt; getOutDegree(component)</code>)
+	 * @return number of edges (or sum of edge weights) between the components
+	 */
+	public int getMultiplicity(int component, int index) {
+		return multiplicities[offsets[component] + index];
+	}
+
+	/**
+	 * Get a component's subgraph. The subgraph view is created on first access.
+	 * @param component component number
+	 * @return subgraph view induced by the component vertices
+	 */
+	public Digraph<V,E> getSubgraph(int component) {
+		Digraph<V,E> subgraph = subgraphs.get(component);
+		if (subgraph == null) {
+			subgraph = Digraphs.subgraphView(digraph, new HashSet<V>(components.getComponentVertices(component)));
+			subgraphs.set(component, subgraph);
+		}
+		return subgraph;
+	}
+
+	/**
+	 * Create the component graph with copies of the component subgraphs as vertices. Copies are
+	 * filled in one scan over the digraph's edges. Component edges are labelled with their multiplicity.
+	 * @param <G> the type of the component graphs
+	 * @param <P> the type of the result graph
+	 * @param factory1 used to create the component graph
+	 * @param factory2 used to create the subgraphs
+	 * @return a digraph of subgraphs of the digraph
+	 */
+	public <G extends Digraph<V,E>, P extends Digraph<G,Integer>> P toDigraph(
+			DigraphFactory<? extends P> factory1,
+			DigraphFactory<? extends G> factory2) {
+		P result = factory1.create();
+		int n = getComponentCount();
+		List<G> copies = new ArrayList<G>(n);
+		for (int c = 0; c < n; c++) {
+			G copy = factory2.create();
+			for (V source : components.getComponentVertices(c)) {
+				copy.add(source);
+				for (V target : digraph.targets(source)) {
+					if (components.getComponent(target) == c) {
+						copy.put(source, target, digraph.get(source, target));
+					}
+				}
+			}
+			copies.add(copy);
+			result.add(copy);
+		}
+		for (int c = 0; c < n; c++) {
+			for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+				result.put(copies.get(c), copies.get(targets[i]), multiplicities[i]);
+			}
+		}
+		return result;
+	}
+}
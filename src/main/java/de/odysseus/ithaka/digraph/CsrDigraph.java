@@ -0,0 +1,504 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable digraph snapshot using compressed sparse row (CSR) storage.
+ * Vertices are numbered <code>0...n-1</code> in the iteration order of the digraph
+ * passed at construction time. Outgoing and incoming edges are stored as contiguous
+ * <code>int</code> offset/target arrays, edge values are kept in a side array.
+ * Edge targets (sources) are iterated in vertex order.
+ * The id-based view answered by {@link #getIntDigraph()} works directly on the arrays.
+ * Methods that would modify the digraph throw an <code>UnsupportedOperationException</code>.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class CsrDigraph<V,E> implements DoubledDigraph<V,E>, IndexedDigraph<V,E> {
+	private final VertexIndex<V> index;
+	private final VertexIndex<V> indexView;
+	private final Object[] edges;
+
+	private final int[] outOffsets;
+	private final int[] outTargets;
+	private final int[] outEdges; // out slot --> edge index (null for identity)
+
+	private final int[] inOffsets;
+	private final int[] inSources;
+	private final int[] inEdges; // in slot --> edge index (null for identity)
+
+	private final int edgeCount;
+
+	private CsrDigraph<V,E> reverse;
+	private IntDigraph<E> intDigraph;
+	private Boolean acyclic;
+
+	/**
+	 * Create a snapshot of the given digraph.
+	 * @param digraph digraph to copy
+	 */
+	public CsrDigraph(Digraph<? extends V, ? extends E> digraph) {
+		index = new VertexIndex<V>(digraph);
+		indexView = VertexIndex.unmodifiableIndex(index);
+		int n = index.size();
+
+		// collect edges grouped by source (in vertex order)
+		int capacity = digraph.getEdgeCount();
+		int[] sources = new int[capacity];
+		int[] targets = new int[capacity];
+		Object[] values = new Object[capacity];
+		int m = 0;
+		for (int source = 0; source < n; source++) {
+			V vertex = index.getVertex(source);
+			for (V target : digraph.targets(vertex)) {
+				if (m == capacity) {
+					capacity = 2 * capacity + 1;
+					sources = Arrays.copyOf(sources, capacity);
+					targets = Arrays.copyOf(targets, capacity);
+					values = Arrays.copyOf(values, capacity);
+				}
+				sources[m] = source;
+				targets[m] = index.getId(target);
+				values[m] = digraph.get(vertex, target);
+				m++;
+			}
+		}
+		edgeCount = m;
+
+		// stable counting sort by target: in-adjacency, sources in ascending order
+		inOffsets = offsets(targets, m, n);
+		inSources = new int[m];
+		int[] inOrder = new int[m];
+		int[] next = Arrays.copyOf(inOffsets, n);
+		for (int i = 0; i < m; i++) {
+			int slot = next[targets[i]]++;
+			inSources[slot] = sources[i];
+			inOrder[slot] = i;
+		}
+
+		// stable counting sort of in-adjacency by source: out-adjacency, targets in ascending order
+		outOffsets = offsets(sources, m, n);
+		outTargets = new int[m];
+		inEdges = new int[m];
+		edges = new Object[m];
+		next = Arrays.copyOf(outOffsets, n);
+		for (int target = 0; target < n; target++) {
+			for (int slot = inOffsets[target]; slot < inOffsets[target + 1]; slot++) {
+				int outSlot = next[inSources[slot]]++;
+				outTargets[outSlot] = target;
+				edges[outSlot] = values[inOrder[slot]];
+				inEdges[slot] = outSlot;
+			}
+		}
+		outEdges = null;
+	}
+
+	/**
+	 * Reverse constructor, sharing all arrays.
+	 */
+	private CsrDigraph(CsrDigraph<V,E> reverse) {
+		this.index = reverse.index;
+		this.indexView = reverse.indexView;
+		this.edges = reverse.edges;
+		this.outOffsets = reverse.inOffsets;
+		this.outTargets = reverse.inSources;
+		this.outEdges = reverse.inEdges;
+		this.inOffsets = reverse.outOffsets;
+		this.inSources = reverse.outTargets;
+		this.inEdges = reverse.outEdges;
+		this.edgeCount = reverse.edgeCount;
+		this.reverse = reverse;
+		this.acyclic = reverse.acyclic;
+	}
+
+	private static int[] offsets(int[] keys, int m, int n) {
+		int[] offsets = new int[n + 1];
+		for (int i = 0; i < m; i++) {
+			offsets[keys[i] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		return offsets;
+	}
+
+	private int id(Object vertex) {
+		return index.getId(vertex);
+	}
+
+	/**
+	 * Answer the out slot of the given edge or <code>-1</code>.
+	 */
+	private int slot(Object source, Object target) {
+		int s = id(source);
+		if (s < 0) {
+			return -1;
+		}
+		int t = id(target);
+		if (t < 0) {
+			return -1;
+		}
+		int slot = Arrays.binarySearch(outTargets, outOffsets[s], outOffsets[s + 1], t);
+		return slot < 0 ? -1 : slot;
+	}
+
+	@SuppressWarnings("unchecked")
+	private E edge(int slot) {
+		return (E)edges[outEdges == null ? slot : outEdges[slot]];
+	}
+
+	private Iterable<V> adjacency(final int[] offsets, final int[] adjacent, final int vertex) {
+		if (vertex < 0 || offsets[vertex] == offsets[vertex + 1]) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new ArrayIterator(adjacent, offsets[vertex], offsets[vertex + 1]);
+			}
+			@Override
+			public String toString() {
+				StringBuilder b = new StringBuilder("[");
+				for (int slot = offsets[vertex]; slot < offsets[vertex + 1]; slot++) {
+					if (slot > offsets[vertex]) {
+						b.append(", ");
+					}
+					b.append(index.getVertex(adjacent[slot]));
+				}
+				return b.append("]").toString();
+			}
+		};
+	}
+
+	private class ArrayIterator implements Iterator<V> {
+		private final int[] adjacent;
+		private final int end;
+		private int slot;
+
+		ArrayIterator(int[] adjacent, int start, int end) {
+			this.adjacent = adjacent;
+			this.slot = start;
+			this.end = end;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return slot < end;
+		}
+
+		@Override
+		public V next() {
+			if (slot == end) {
+				throw new NoSuchElementException("No more vertices");
+			}
+			return index.getVertex(adjacent == null ? slot++ : adjacent[slot++]);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("This digraph is readonly!");
+		}
+	}
+
+	@Override
+	public VertexIndex<V> getVertexIndex() {
+		return indexView;
+	}
+
+	@Override
+	public IntDigraph<E> getIntDigraph() {
+		if (intDigraph == null) {
+			intDigraph = new IntView();
+		}
+		return intDigraph;
+	}
+
+	/**
+	 * Id-based view on the arrays.
+	 */
+	private class IntView implements IntDigraph<E> {
+		private int slot(int source, int target) {
+			if (!contains(source) || !contains(target)) {
+				return -1;
+			}
+			int slot = Arrays.binarySearch(outTargets, outOffsets[source], outOffsets[source + 1], target);
+			return slot < 0 ? -1 : slot;
+		}
+
+		@Override
+		public E get(int source, int target) {
+			int slot = slot(source, target);
+			return slot < 0 ? null : edge(slot);
+		}
+
+		@Override
+		public boolean contains(int source, int target) {
+			return slot(source, target) >= 0;
+		}
+
+		@Override
+		public boolean contains(int vertex) {
+			return vertex >= 0 && vertex < index.size();
+		}
+
+		@Override
+		public IntCursor vertices() {
+			return cursor(null, 0, index.size());
+		}
+
+		@Override
+		public IntCursor targets(int source) {
+			if (!contains(source)) {
+				return cursor(outTargets, 0, 0);
+			}
+			return cursor(outTargets, outOffsets[source], outOffsets[source + 1]);
+		}
+
+		private IntCursor cursor(final int[] values, final int start, final int end) {
+			return new IntCursor() {
+				int slot = start;
+
+				@Override
+				public boolean hasNext() {
+					return slot < end;
+				}
+
+				@Override
+				public int next() {
+					if (slot == end) {
+						throw new NoSuchElementException("No more vertices");
+					}
+					return values == null ? slot++ : values[slot++];
+				}
+			};
+		}
+
+		@Override
+		public int getTarget(int source, int index) {
+			if (index < 0 || index >= getOutDegree(source)) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Out degree: " + getOutDegree(source));
+			}
+			return outTargets[outOffsets[source] + index];
+		}
+
+		@Override
+		public int getVertexCount() {
+			return index.size();
+		}
+
+		@Override
+		public int getVertexBound() {
+			return index.size();
+		}
+
+		@Override
+		public int getOutDegree(int vertex) {
+			return contains(vertex) ? outOffsets[vertex + 1] - outOffsets[vertex] : 0;
+		}
+
+		@Override
+		public int getEdgeCount() {
+			return edgeCount;
+		}
+
+		@Override
+		public boolean isAcyclic() {
+			return CsrDigraph.this.isAcyclic();
+		}
+
+		@Override
+		public IntDigraph<E> reverse() {
+			return CsrDigraph.this.reverse().getIntDigraph();
+		}
+
+		@Override
+		public boolean add(int vertex) {
+			throw new UnsupportedOperationException("This digraph is readonly!");
+		}
+
+		@Override
+		public E put(int source, int target, E edge) {
+			throw new UnsupportedOperationException("This digraph is readonly!");
+		}
+
+		@Override
+		public E remove(int source, int target) {
+			throw new UnsupportedOperationException("This digraph is readonly!");
+		}
+
+		@Override
+		public boolean remove(int vertex) {
+			throw new UnsupportedOperationException("This digraph is readonly!");
+		}
+	}
+
+	@Override
+	public E get(Object source, Object target) {
+		int slot = slot(source, target);
+		return slot < 0 ? null : edge(slot);
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		return slot(source, target) >= 0;
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return index.contains(vertex);
+	}
+
+	@Override
+	public Iterable<V> vertices() {
+		if (index.size() == 0) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new ArrayIterator(null, 0, index.size());
+			}
+			@Override
+			public String toString() {
+				return index.toString();
+			}
+		};
+	}
+
+	@Override
+	public Iterable<V> targets(Object source) {
+		return adjacency(outOffsets, outTargets, id(source));
+	}
+
+	@Override
+	public Iterable<V> sources(Object target) {
+		return adjacency(inOffsets, inSources, id(target));
+	}
+
+	@Override
+	public int getVertexCount() {
+		return index.size();
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		int id = id(vertex);
+		return id < 0 ? 0 : outOffsets[id + 1] - outOffsets[id];
+	}
+
+	@Override
+	public int getInDegree(Object vertex) {
+		int id = id(vertex);
+		return id < 0 ? 0 : inOffsets[id + 1] - inOffsets[id];
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		if (acyclic == null) {
+			acyclic = Digraphs.isAcyclic(this);
+		}
+		return acyclic.booleanValue();
+	}
+
+	/**
+	 * Answer the reverse digraph. The reverse digraph shares all arrays with this digraph
+	 * and is computed in constant time.
+	 */
+	@Override
+	public CsrDigraph<V,E> reverse() {
+		if (reverse == null) {
+			reverse = new CsrDigraph<V,E>(this);
+		}
+		return reverse;
+	}
+
+	@Override
+	public CsrDigraph<V,E> subgraph(Set<V> vertices) {
+		return new CsrDigraph<V,E>(Digraphs.<V,E,MapDigraph<V,E>>subgraph(this, vertices, MapDigraph.<V,E>getDefaultDigraphFactory()));
+	}
+
+	/**
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public boolean add(V vertex) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	/**
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public E put(V source, V target, E edge) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	/**
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public E remove(V source, V target) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	/**
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public boolean remove(V vertex) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	/**
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		b.append("(");
+		for (int vertex = 0; vertex < index.size(); vertex++) {
+			if (vertex > 0) {
+				b.append(", ");
+				if (b.length() > 1000) {
+					b.append("...");
+					break;
+				}
+			}
+			b.append(index.getVertex(vertex));
+			b.append(adjacency(outOffsets, outTargets, vertex));
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
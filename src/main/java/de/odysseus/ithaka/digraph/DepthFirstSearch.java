@@ -0,0 +1,241 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Non-recursive depth first search.
+ * Search paths are kept on an explicit stack, so the search depth is not limited by the thread's stack size.
+ * The stack is reused across searches; an instance must not be shared between threads.
+ * <p>
+ * If a backward digraph is given, the search follows edges in both digraphs (e.g. a digraph and its reverse
+ * for an undirected search).
+ *
+ * @param <V> vertex type
+ */
+public class DepthFirstSearch<V> {
+	/**
+	 * Edge classification.
+	 */
+	public static enum EdgeType {
+		/**
+		 * Edge to a newly discovered vertex.
+		 */
+		TREE,
+		/**
+		 * Edge to a vertex on the current search path (closes a cycle).
+		 */
+		BACK,
+		/**
+		 * Edge to a finished vertex.
+		 */
+		FORWARD_OR_CROSS
+	}
+
+	/**
+	 * Search callbacks. All methods do nothing by default.
+	 *
+	 * @param <V> vertex type
+	 */
+	public static abstract class Visitor<V> {
+		private final boolean edges;
+
+		/**
+		 * Create visitor, which is not notified about edges.
+		 */
+		protected Visitor() {
+			this(false);
+		}
+
+		/**
+		 * Create visitor.
+		 * @param edges whether to notify the visitor about (classified) edges
+		 */
+		protected Visitor(boolean edges) {
+			this.edges = edges;
+		}
+
+		/**
+		 * Vertex has been discovered.
+		 */
+		public void discover(V vertex) {
+		}
+
+		/**
+		 * All vertices reachable from the given vertex have been discovered.
+		 */
+		public void finish(V vertex) {
+		}
+
+		/**
+		 * Edge has been traversed. Only called if the visitor has been created with the <code>edges</code> flag set.
+		 */
+		public void edge(V source, V target, EdgeType type) {
+		}
+	}
+
+	/**
+	 * Create visitor adding finished vertices to the given collection.
+	 * @param finished collection of finished vertices
+	 * @return visitor
+	 */
+	public static <V> Visitor<V> finished(final Collection<? super V> finished) {
+		return new Visitor<V>() {
+			@Override
+			public void finish(V vertex) {
+				finished.add(vertex);
+			}
+		};
+	}
+
+	private static final class BothIterator<V> implements Iterator<V> {
+		private final Iterator<V> first;
+		private final Iterable<V> second;
+		private Iterator<V> current;
+
+		BothIterator(Iterable<V> first, Iterable<V> second) {
+			this.first = this.current = first.iterator();
+			this.second = second;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!current.hasNext() && current == first) {
+				current = second.iterator();
+			}
+			return current.hasNext();
+		}
+
+		@Override
+		public V next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return current.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private final Digraph<V,?> forward;
+	private final Digraph<V,?> backward;
+	private final Set<Object> active = new HashSet<Object>();
+
+	private Object[] path = new Object[16];
+	private Object[] iterators = new Object[16];
+	private int depth;
+
+	/**
+	 * Create search.
+	 * @param digraph the digraph to search
+	 */
+	public DepthFirstSearch(Digraph<V,?> digraph) {
+		this(digraph, null);
+	}
+
+	/**
+	 * Create search following edges of two digraphs.
+	 * @param forward the digraph to search
+	 * @param backward additional digraph to follow (may be <code>null</code>)
+	 */
+	public DepthFirstSearch(Digraph<V,?> forward, Digraph<V,?> backward) {
+		this.forward = forward;
+		this.backward = backward;
+	}
+
+	private void push(V vertex, boolean edges) {
+		if (depth == path.length) {
+			path = Arrays.copyOf(path, 2 * depth);
+			iterators = Arrays.copyOf(iterators, 2 * depth);
+		}
+		Iterable<V> targets = forward.targets(vertex);
+		path[depth] = vertex;
+		iterators[depth] = backward == null ? targets.iterator() : new BothIterator<V>(targets, backward.targets(vertex));
+		depth++;
+		if (edges) {
+			active.add(vertex);
+		}
+	}
+
+	/**
+	 * Search vertices reachable from the given source, which have not been discovered yet.
+	 * @param source start vertex
+	 * @param discovered set of vertices already discovered, which is updated during search
+	 * @param visitor search callbacks (may be <code>null</code>)
+	 * @return <code>false</code> if the source vertex has already been discovered
+	 */
+	public boolean search(V source, Set<? super V> discovered, Visitor<? super V> visitor) {
+		if (!discovered.add(source)) {
+			return false;
+		}
+		boolean edges = visitor != null && visitor.edges;
+		if (visitor != null) {
+			visitor.discover(source);
+		}
+		push(source, edges);
+		while (depth > 0) {
+			@SuppressWarnings("unchecked")
+			V vertex = (V)path[depth - 1];
+			@SuppressWarnings("unchecked")
+			Iterator<V> targets = (Iterator<V>)iterators[depth - 1];
+			if (targets.hasNext()) {
+				V target = targets.next();
+				if (discovered.add(target)) {
+					if (edges) {
+						visitor.edge(vertex, target, EdgeType.TREE);
+					}
+					if (visitor != null) {
+						visitor.discover(target);
+					}
+					push(target, edges);
+				} else if (edges) {
+					visitor.edge(vertex, target, active.contains(target) ? EdgeType.BACK : EdgeType.FORWARD_OR_CROSS);
+				}
+			} else {
+				depth--;
+				path[depth] = null;
+				iterators[depth] = null;
+				if (edges) {
+					active.remove(vertex);
+				}
+				if (visitor != null) {
+					visitor.finish(vertex);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Search all vertices, which have not been discovered yet, starting new searches in vertex order.
+	 * @param discovered set of vertices already discovered, which is updated during search
+	 * @param visitor search callbacks (may be <code>null</code>)
+	 */
+	public void searchAll(Set<? super V> discovered, Visitor<? super V> visitor) {
+		for (V vertex : forward.vertices()) {
+			search(vertex, discovered, visitor);
+		}
+	}
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Difference between two digraph versions.
+ * A diff consists of added and removed vertices, added and removed edges and edges
+ * whose values have changed. Applying the diff to a digraph equivalent to the first version
+ * makes it equivalent to the second version (compared with edges, see
+ * {@link Digraphs#isEquivalent(Digraph, Digraph, boolean)}).
+ * <p>
+ * Removed edges do not include edges incident to removed vertices, since these are removed
+ * along with their vertices. Added edges do include edges incident to added vertices.
+ * <p>
+ * If both versions are {@link MapDigraph}s with sorted vertex maps using the same comparator
+ * (e.g. created with the same comparator), vertices are compared by merging the sorted maps; the
+ * same applies to the edge maps of vertices contained in both versions. Otherwise, each vertex and
+ * edge of one version is looked up in the other.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class DigraphDiff<V,E> {
+	/**
+	 * Compute the difference between two digraphs.
+	 * Edge values are compared using <code>equals()</code>.
+	 * @param from first digraph version
+	 * @param to second digraph version
+	 * @return diff, transforming <code>from</code> into <code>to</code>
+	 */
+	public static <V,E> DigraphDiff<V,E> compute(Digraph<V,? extends E> from, Digraph<V,? extends E> to) {
+		DigraphDiff<V,E> diff = new DigraphDiff<V,E>();
+		if (from instanceof MapDigraph && to instanceof MapDigraph) {
+			Map<V,? extends Map<V,? extends E>> fromMap = ((MapDigraph<V,? extends E>)from).getVertexMap();
+			Map<V,? extends Map<V,? extends E>> toMap = ((MapDigraph<V,? extends E>)to).getVertexMap();
+			if (sameOrder(fromMap, toMap)) {
+				diff.merge(fromMap, toMap, to);
+				return diff;
+			}
+		}
+		diff.lookup(from, to);
+		return diff;
+	}
+
+	private static boolean sameOrder(Map<?,?> first, Map<?,?> second) {
+		if (first instanceof SortedMap && second instanceof SortedMap) {
+			Comparator<?> comparator1 = ((SortedMap<?,?>)first).comparator();
+			Comparator<?> comparator2 = ((SortedMap<?,?>)second).comparator();
+			return comparator1 == comparator2 || comparator1 != null && comparator1.equals(comparator2);
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static int compare(Comparator<?> comparator, Object first, Object second) {
+		if (comparator == null) {
+			return ((Comparable<Object>)first).compareTo(second);
+		}
+		return ((Comparator<Object>)comparator).compare(first, second);
+	}
+
+	private static boolean equal(Object edge1, Object edge2) {
+		return edge1 == edge2 || edge1 != null && edge1.equals(edge2);
+	}
+
+	private final List<V> addedVertices = new ArrayList<V>();
+	private final List<V> removedVertices = new ArrayList<V>();
+	private final Digraph<V,E> addedEdges = new MapDigraph<V,E>();
+	private final Digraph<V,E> removedEdges = new MapDigraph<V,E>();
+	private final Digraph<V,E> changedEdges = new MapDigraph<V,E>();
+
+	/**
+	 * Create empty diff.
+	 */
+	private DigraphDiff() {
+	}
+
+	private void lookup(Digraph<V,? extends E> from, Digraph<V,? extends E> to) {
+		for (V source : to.vertices()) {
+			boolean added = !from.contains(source);
+			if (added) {
+				addedVertices.add(source);
+			}
+			for (V target : to.targets(source)) {
+				E edge = to.get(source, target);
+				if (added || !from.contains(source, target)) {
+					addedEdges.put(source, target, edge);
+				} else if (!equal(edge, from.get(source, target))) {
+					changedEdges.put(source, target, edge);
+				}
+			}
+		}
+		for (V source : from.vertices()) {
+			if (!to.contains(source)) {
+				removedVertices.add(source);
+			} else {
+				for (V target : from.targets(source)) {
+					if (!to.contains(source, target) && to.contains(target)) {
+						removedEdges.put(source, target, from.get(source, target));
+					}
+				}
+			}
+		}
+	}
+
+	private void merge(Map<V,? extends Map<V,? extends E>> from, Map<V,? extends Map<V,? extends E>> to, Digraph<V,?> digraph) {
+		Comparator<?> comparator = ((SortedMap<V,?>)from).comparator();
+		Iterator<? extends Map.Entry<V,? extends Map<V,? extends E>>> fromEntries = from.entrySet().iterator();
+		Iterator<? extends Map.Entry<V,? extends Map<V,? extends E>>> toEntries = to.entrySet().iterator();
+		Map.Entry<V,? extends Map<V,? extends E>> fromEntry = fromEntries.hasNext() ? fromEntries.next() : null;
+		Map.Entry<V,? extends Map<V,? extends E>> toEntry = toEntries.hasNext() ? toEntries.next() : null;
+		while (fromEntry != null || toEntry != null) {
+			int c = fromEntry == null ? 1 : toEntry == null ? -1 : compare(comparator, fromEntry.getKey(), toEntry.getKey());
+			if (c < 0) { // removed vertex
+				removedVertices.add(fromEntry.getKey());
+				fromEntry = fromEntries.hasNext() ? fromEntries.next() : null;
+			} else if (c > 0) { // added vertex
+				V source = toEntry.getKey();
+				addedVertices.add(source);
+				for (Map.Entry<V,? extends E> edge : toEntry.getValue().entrySet()) {
+					addedEdges.put(source, edge.getKey(), edge.getValue());
+				}
+				toEntry = toEntries.hasNext() ? toEntries.next() : null;
+			} else {
+				V source = toEntry.getKey();
+				Map<V,? extends E> fromEdges = fromEntry.getValue();
+				Map<V,? extends E> toEdges = toEntry.getValue();
+				if (!fromEdges.isEmpty() && !toEdges.isEmpty() && sameOrder(fromEdges, toEdges)) {
+					mergeEdges(source, fromEdges, toEdges, digraph);
+				} else {
+					lookupEdges(source, fromEdges, toEdges, digraph);
+				}
+				fromEntry = fromEntries.hasNext() ? fromEntries.next() : null;
+				toEntry = toEntries.hasNext() ? toEntries.next() : null;
+			}
+		}
+	}
+
+	private void mergeEdges(V source, Map<V,? extends E> from, Map<V,? extends E> to, Digraph<V,?> digraph) {
+		Comparator<?> comparator = ((SortedMap<V,?>)from).comparator();
+		Iterator<? extends Map.Entry<V,? extends E>> fromEntries = from.entrySet().iterator();
+		Iterator<? extends Map.Entry<V,? extends E>> toEntries = to.entrySet().iterator();
+		Map.Entry<V,? extends E> fromEntry = fromEntries.hasNext() ? fromEntries.next() : null;
+		Map.Entry<V,? extends E> toEntry = toEntries.hasNext() ? toEntries.next() : null;
+		while (fromEntry != null || toEntry != null) {
+			int c = fromEntry == null ? 1 : toEntry == null ? -1 : compare(comparator, fromEntry.getKey(), toEntry.getKey());
+			if (c < 0) {
+				if (digraph.contains(fromEntry.getKey())) {
+					removedEdges.put(source, fromEntry.getKey(), fromEntry.getValue());
+				}
+				fromEntry = fromEntries.hasNext() ? fromEntries.next() : null;
+			} else if (c > 0) {
+				addedEdges.put(source, toEntry.getKey(), toEntry.getValue());
+				toEntry = toEntries.hasNext() ? toEntries.next() : null;
+			} else {
+				if (!equal(fromEntry.getValue(), toEntry.getValue())) {
+					changedEdges.put(source, toEntry.getKey(), toEntry.getValue());
+				}
+				fromEntry = fromEntries.hasNext() ? fromEntries.next() : null;
+				toEntry = toEntries.hasNext() ? toEntries.next() : null;
+			}
+		}
+	}
+
+	private void lookupEdges(V source, Map<V,? extends E> from, Map<V,? extends E> to, Digraph<V,?> digraph) {
+		for (Map.Entry<V,? extends E> edge : to.entrySet()) {
+			if (!from.containsKey(edge.getKey())) {
+				addedEdges.put(source, edge.getKey(), edge.getValue());
+			} else if (!equal(edge.getValue(), from.get(edge.getKey()))) {
+				changedEdges.put(source, edge.getKey(), edge.getValue());
+			}
+		}
+		for (Map.Entry<V,? extends E> edge : from.entrySet()) {
+			if (!to.containsKey(edge.getKey()) && digraph.contains(edge.getKey())) {
+				removedEdges.put(source, edge.getKey(), edge.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @return vertices contained in the second, but not in the first version
+	 */
+	public List<V> getAddedVertices() {
+		return Collections.unmodifiableList(addedVertices);
+	}
+
+	/**
+	 * @return vertices contained in the first, but not in the second version
+	 */
+	public List<V> getRemovedVertices() {
+		return Collections.unmodifiableList(removedVertices);
+	}
+
+	/**
+	 * @return edges contained in the second, but not in the first version (with their new values)
+	 */
+	public Digraph<V,E> getAddedEdges() {
+		return Digraphs.unmodifiableDigraph(addedEdges);
+	}
+
+	/**
+	 * Answer edges contained in the first, but not in the second version, which are not
+	 * incident to a removed vertex.
+	 * @return removed edges (with their old values)
+	 */
+	public Digraph<V,E> getRemovedEdges() {
+		return Digraphs.unmodifiableDigraph(removedEdges);
+	}
+
+	/**
+	 * @return edges contained in both versions with different values (with their new values)
+	 */
+	public Digraph<V,E> getChangedEdges() {
+		return Digraphs.unmodifiableDigraph(changedEdges);
+	}
+
+	/**
+	 * @return <code>true</code> if both versions are equivalent
+	 */
+	public boolean isEmpty() {
+		return addedVertices.isEmpty() && removedVertices.isEmpty()
+			&& addedEdges.getEdgeCount() == 0 && removedEdges.getEdgeCount() == 0 && changedEdges.getEdgeCount() == 0;
+	}
+
+	/**
+	 * Apply this diff to the given digraph.
+	 * Vertices are removed in one batch using {@link Digraph#removeAll(java.util.Collection)}.
+	 * Apart from that, the work is proportional to the size of this diff.
+	 * @param digraph digraph to be patched, usually equivalent to the first version
+	 */
+	public void apply(Digraph<V,? super E> digraph) {
+		if (!removedVertices.isEmpty()) {
+			digraph.removeAll(new HashSet<V>(removedVertices));
+		}
+		for (V source : removedEdges.vertices()) {
+			for (V target : removedEdges.targets(source)) {
+				digraph.remove(source, target);
+			}
+		}
+		for (V vertex : addedVertices) {
+			digraph.add(vertex);
+		}
+		for (V source : addedEdges.vertices()) {
+			for (V target : addedEdges.targets(source)) {
+				digraph.put(source, target, addedEdges.get(source, target));
+			}
+		}
+		for (V source : changedEdges.vertices()) {
+			for (V target : changedEdges.targets(source)) {
+				digraph.put(source, target, changedEdges.get(source, target));
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "+" + addedVertices + " -" + removedVertices
+			+ " +" + addedEdges + " -" + removedEdges + " ~" + changedEdges;
+	}
+}
@@ -16,6 +16,7 @@
 package de.odysseus.ithaka.digraph;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -23,10 +24,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
+
+import de.odysseus.ithaka.digraph.util.reach.BidirectionalSearch;
 
 /**
  * This class provides some common digraph utilities.
+ * For {@link IndexedDigraph}s, searches run on the id-based view.
  */
 public class Digraphs {
 	/**
@@ -63,19 +66,59 @@ public class Digraphs {
 	 * @return list of vertices toplologically ordered.
 	 */
 	public static <V> List<V> topsort(Digraph<V,?> digraph, boolean descending) {
-		List<V> finished = new ArrayList<V>();
-		Set<V> discovered = new HashSet<V>(digraph.getVertexCount());
-		for (V vertex : digraph.vertices()) {
-			if (!discovered.contains(vertex)) {
-				dfs(digraph, vertex, discovered, finished);
+		if (digraph instanceof IndexedDigraph) {
+			IndexedDigraph<V,?> indexed = (IndexedDigraph<V,?>)digraph;
+			return vertices(indexed.getVertexIndex(), IntDigraphs.topsort(indexed.getIntDigraph(), descending));
+		}
+		if (digraph instanceof AcyclicDigraphAdapter) {
+			List<V> order = ((AcyclicDigraphAdapter<V,?>)digraph).topsort();
+			if (descending) {
+				Collections.reverse(order);
 			}
+			return order;
 		}
+		List<V> finished = new ArrayList<V>(digraph.getVertexCount());
+		Set<V> discovered = new HashSet<V>(digraph.getVertexCount());
+		new DepthFirstSearch<V>(digraph).searchAll(discovered, DepthFirstSearch.<V>finished(finished));
 		if (!descending) {
 			Collections.reverse(finished);
 		}
 		return finished;
 	}
 
+	/**
+	 * Topologically sort vertices of an acyclic directed graph (DAG) into layers (Kahn's algorithm).
+	 * The first layer contains the vertices without incoming edges; a vertex belongs to the layer
+	 * following the layer of its last predecessor. Hence, all edges go from a layer to a later one,
+	 * and the vertices of a layer may be processed concurrently.
+	 * @param <V> vertex type
+	 * @param digraph input graph
+	 * @return list of layers
+	 * @throws IllegalArgumentException if the input graph contains a cycle
+	 */
+	public static <V> List<List<V>> topsortLayers(Digraph<V,?> digraph) {
+		return topsortLayers(digraph, 0);
+	}
+
+	/**
+	 * Topologically sort vertices of an acyclic directed graph (DAG) into layers (see
+	 * {@link #topsortLayers(Digraph)}). The targets of large layers are released by the given
+	 * number of threads. If <code>numberOfThreads == 0</code>, calculation is done in the current thread.
+	 * @param <V> vertex type
+	 * @param digraph input graph
+	 * @param numberOfThreads number of threads
+	 * @return list of layers or <code>null</code> if interrupted
+	 * @throws IllegalArgumentException if the input graph contains a cycle
+	 */
+	public static <V> List<List<V>> topsortLayers(Digraph<V,?> digraph, int numberOfThreads) {
+		try {
+			return new TopologicalLayers<V>(digraph).compute(numberOfThreads);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
 	/**
 	 * Compute the set of vertices reachable from the given source in the given digraph.
 	 * @param <V> vertex type
@@ -84,8 +127,15 @@ public class Digraphs {
 	 * @return the set of vertices reachable from <code>source</code>
 	 */
 	public static <V> Set<V> closure(Digraph<V,?> digraph, V source) {
+		if (digraph instanceof IndexedDigraph) {
+			IndexedDigraph<V,?> indexed = (IndexedDigraph<V,?>)digraph;
+			int id = indexed.getVertexIndex().getId(source);
+			if (id >= 0) {
+				return vertices(indexed.getVertexIndex(), IntDigraphs.closure(indexed.getIntDigraph(), id));
+			}
+		}
 		Set<V> closure = new HashSet<V>();
-		dfs(digraph, source, closure, closure);
+		new DepthFirstSearch<V>(digraph).search(source, closure, null);
 		return closure;
 	}
 
@@ -101,10 +151,10 @@ public class Digraphs {
 		if (n < 2) {
 			return true; // no self loop
 		}
-		if (digraph.getEdgeCount() > (n*(n-1))/2) {
+		if (digraph.getEdgeCount() > (long)n * (n - 1) / 2) {
 			return false;
 		}
-		return Digraphs.<V>scc(digraph).size() == n;
+		return sccCount(digraph) == n;
 	}
 
 	/**
@@ -115,6 +165,8 @@ public class Digraphs {
 	 * <li>the same pairs of vertices are connected by an edge in both digraphs </li>
 	 * <li>optionally, this method may require that the corresponding edges are equal.</li>
 	 * </ol>
+	 * If both digraphs are {@link FingerprintDigraphAdapter}s, digraphs with different
+	 * fingerprints are rejected without comparing their edges.
 	 * @param <V> vertex type
 	 * @param first first digraph.
 	 * @param second second digraph.
@@ -128,6 +180,13 @@ public class Digraphs {
 		if (first.getEdgeCount() != second.getEdgeCount() || first.getVertexCount() != second.getVertexCount()) {
 			return false;
 		}
+		if (first instanceof FingerprintDigraphAdapter && second instanceof FingerprintDigraphAdapter) {
+			long fingerprint1 = ((FingerprintDigraphAdapter<?,?>)first).getFingerprint(compareEdges);
+			long fingerprint2 = ((FingerprintDigraphAdapter<?,?>)second).getFingerprint(compareEdges);
+			if (fingerprint1 != fingerprint2) {
+				return false;
+			}
+		}
 		for (V source : first.vertices()) {
 			if (!second.contains(source)) {
 				return false;
@@ -161,12 +220,14 @@ public class Digraphs {
 		if (n < 2) {
 			return true;
 		}
-		return Digraphs.<V>scc(digraph).size() == 1;
+		return sccCount(digraph) == 1;
 	}
 
 	/**
 	 * Answer <code>true</code> if there is a path from the given source to the given target
 	 * in the supplied graph. If source is equal to target, answer <code>true</code>.
+	 * The search stops as soon as the target is found; {@link DoubledDigraph}s are searched
+	 * from both ends using {@link BidirectionalSearch}.
 	 * @param <V> vertex type
 	 * @param digraph
 	 * @param source source vertex
@@ -174,7 +235,28 @@ public class Digraphs {
 	 * @return <code>true</code> iff there's a path from <code>source</code> to <code>target</code> in <code>digraph</code>
 	 */
 	public static <V> boolean isReachable(Digraph<V,?> digraph, V source, V target) {
-		return digraph.contains(source, target) || Digraphs.<V>closure(digraph, source).contains(target);
+		if (source.equals(target) || digraph.contains(source, target)) {
+			return true;
+		}
+		if (digraph instanceof DoubledDigraph) {
+			return new BidirectionalSearch<V>((DoubledDigraph<V,?>)digraph).isReachable(source, target);
+		}
+		// stop as soon as the target is found
+		Set<V> discovered = new HashSet<V>();
+		List<V> stack = new ArrayList<V>();
+		discovered.add(source);
+		stack.add(source);
+		while (!stack.isEmpty()) {
+			for (V vertex : digraph.targets(stack.remove(stack.size() - 1))) {
+				if (vertex.equals(target)) {
+					return true;
+				}
+				if (discovered.add(vertex)) {
+					stack.add(vertex);
+				}
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -187,12 +269,7 @@ public class Digraphs {
 	 * @param finished collection of vertices visited during search
 	 */
 	public static <V> void dfs(Digraph<V,?> digraph, V source, Set<? super V> discovered, Collection<? super V> finished) {
-		if (discovered.add(source)) {
-			for (V target : digraph.targets(source)) {
-				dfs(digraph, target, discovered, finished);
-			}
-			finished.add(source);
-		}
+		new DepthFirstSearch<V>(digraph).search(source, discovered, DepthFirstSearch.<V>finished(finished));
 	}
 
 	/**
@@ -205,50 +282,47 @@ public class Digraphs {
 	 * @param finished collection of vertices visited during search
 	 */
 	public static <V> void dfs2(Digraph<V,?> digraph, V source, Set<? super V> discovered, Collection<? super V> finished) {
-		dfs2(digraph, digraph.reverse(), source, discovered, finished);
-	}
-
-	private static <V> void dfs2(Digraph<V,?> forward, Digraph<V,?> backward, V source, Set<? super V> discovered, Collection<? super V> finished) {
-		if (discovered.add(source)) {
-			for (V target : forward.targets(source)) {
-				dfs2(forward, backward, target, discovered, finished);
-			}
-			for (V target : backward.targets(source)) {
-				dfs2(forward, backward, target, discovered, finished);
-			}
-			finished.add(source);
-		}
+		new DepthFirstSearch<V>(digraph, reverseView(digraph)).search(source, discovered, DepthFirstSearch.<V>finished(finished));
 	}
 
 	/**
 	 * Compute strongly connected components.
 	 * @param <V>
 	 * @param digraph
-	 * @return strongly connected components
+	 * @return strongly connected components (in topological order)
+	 * @see StronglyConnectedComponents
 	 */
 	public static <V> List<Set<V>> scc(Digraph<V,?> digraph) {
-		List<Set<V>> components = new ArrayList<Set<V>>();
-		Digraph<V,?> reverse = digraph.reverse();
-
-		// dfs on this graph
-		Stack<V> stack = new Stack<V>();
-		Set<V> discovered = new HashSet<V>();
-		for (V vertex : digraph.vertices()) {
-			dfs(digraph, vertex, discovered, stack);
+		if (digraph instanceof IndexedDigraph) {
+			IndexedDigraph<V,?> indexed = (IndexedDigraph<V,?>)digraph;
+			return components(indexed.getVertexIndex(), IntDigraphs.scc(indexed.getIntDigraph()));
 		}
+		return new StronglyConnectedComponents<V>(digraph).getComponents();
+	}
 
-		// dfs on reverse graph
-		discovered = new HashSet<V>();
-		while (!stack.isEmpty()) {
-			V vertex = stack.pop();
-			if (!discovered.contains(vertex)) {
-				Set<V> component = new HashSet<V>();
-				dfs(reverse, vertex, discovered, component);
-				components.add(component);
-			}
+	/**
+	 * Compute strongly connected components in parallel, using the forward-backward algorithm
+	 * with trimming. Unlike {@link #scc(Digraph)}, the components are answered in no particular order.
+	 * If <code>numberOfThreads == 0</code>, calculation is done in the current thread.
+	 * @param <V>
+	 * @param digraph
+	 * @param numberOfThreads number of threads
+	 * @return strongly connected components or <code>null</code> if interrupted
+	 */
+	public static <V> List<Set<V>> scc(Digraph<V,?> digraph, int numberOfThreads) {
+		try {
+			return new ParallelStronglyConnectedComponents<V>(digraph).compute(numberOfThreads);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
 		}
+	}
 
-		return components;
+	private static <V> int sccCount(Digraph<V,?> digraph) {
+		if (digraph instanceof IndexedDigraph) {
+			return IntDigraphs.scc(((IndexedDigraph<V,?>)digraph).getIntDigraph()).length;
+		}
+		return new StronglyConnectedComponents<V>(digraph).getComponentCount();
 	}
 
 	/**
@@ -258,21 +332,85 @@ public class Digraphs {
 	 * @return weakly connected components
 	 */
 	public static <V> List<Set<V>> wcc(Digraph<V,?> digraph) {
+		if (digraph instanceof IndexedDigraph) {
+			IndexedDigraph<V,?> indexed = (IndexedDigraph<V,?>)digraph;
+			return components(indexed.getVertexIndex(), IntDigraphs.wcc(indexed.getIntDigraph()));
+		}
 		List<Set<V>> components = new ArrayList<Set<V>>();
-		Digraph<V,?> reverse = digraph.reverse();
+		Digraph<V,?> reverse = reverseView(digraph);
 
 		// dfs on both graphs
-		Set<V> discovered = new HashSet<V>();
+		Set<V> discovered = new HashSet<V>(digraph.getVertexCount());
+		DepthFirstSearch<V> search = new DepthFirstSearch<V>(digraph, reverse);
 		for (V vertex : digraph.vertices()) {
 			if (!discovered.contains(vertex)) {
 				Set<V> component = new HashSet<V>();
-				dfs2(digraph, reverse, vertex, discovered, component);
+				search.search(vertex, discovered, DepthFirstSearch.<V>finished(component));
 				components.add(component);
 			}
 		}
 		return components;
 	}
 
+	private static <V> List<V> vertices(VertexIndex<V> index, int[] ids) {
+		List<V> vertices = new ArrayList<V>(ids.length);
+		for (int id : ids) {
+			vertices.add(index.getVertex(id));
+		}
+		return vertices;
+	}
+
+	private static <V> Set<V> vertices(VertexIndex<V> index, BitSet ids) {
+		Set<V> vertices = new HashSet<V>();
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			vertices.add(index.getVertex(id));
+		}
+		return vertices;
+	}
+
+	private static <V> List<Set<V>> components(VertexIndex<V> index, int[][] components) {
+		List<Set<V>> result = new ArrayList<Set<V>>(components.length);
+		for (int[] component : components) {
+			Set<V> vertices = new HashSet<V>();
+			for (int id : component) {
+				vertices.add(index.getVertex(id));
+			}
+			result.add(vertices);
+		}
+		return result;
+	}
+
+	/**
+	 * Answer a view of the given digraph, which grants access to incoming edges.
+	 * If the digraph is a {@link DoubledDigraph}, it is returned as is. Otherwise, the answered view is
+	 * read-only and builds an index of incoming edges on first use; it must not be used after the
+	 * digraph has been modified.
+	 * @param <V> vertex type
+	 * @param <E> edge type
+	 * @param digraph input digraph
+	 * @return doubled digraph view
+	 */
+	public static <V,E> DoubledDigraph<V,E> doubledView(Digraph<V,E> digraph) {
+		if (digraph instanceof DoubledDigraph) {
+			return (DoubledDigraph<V,E>)digraph;
+		}
+		return new SourceIndexDigraph<V,E>(digraph);
+	}
+
+	/**
+	 * Answer a reverse view of the given digraph without copying it.
+	 * If the digraph is a {@link DoubledDigraph}, the view is backed by the digraph.
+	 * Otherwise, the view is read-only and must not be used after the digraph has been modified
+	 * (see {@link #doubledView(Digraph)}).
+	 * @param <V> vertex type
+	 * @param <E> edge type
+	 * @param digraph input digraph
+	 * @return reverse digraph view
+	 */
+	public static <V,E> DoubledDigraph<V,E> reverseView(Digraph<V,E> digraph) {
+		return new ReverseDigraph<V,E>(doubledView(digraph));
+	}
+
 	/**
 	 * Compute the reverse graph.
 	 * @param <V> vertex type
@@ -338,6 +476,21 @@ public class Digraphs {
 		return subgraph;
 	}
 
+	/**
+	 * Answer a read-only view of the subgraph induced by the specified vertices.
+	 * The view filters the supplied digraph instead of copying it; it must not be used after
+	 * the digraph or the vertex set have been modified.
+	 * Use {@link #copy(Digraph, DigraphFactory)} to materialize the view.
+	 * @param <V> vertex type
+	 * @param <E> edge type
+	 * @param digraph
+	 * @param vertices
+	 * @return subgraph view of the supplied digraph containing the specified vertices.
+	 */
+	public static <V,E> Digraph<V,E> subgraphView(Digraph<V,E> digraph, Set<V> vertices) {
+		return new SubgraphDigraph<V,E>(digraph, vertices);
+	}
+
 	/**
 	 * Create partition graph from a given vertex decomposition.
 	 * @param <G> the type of the component graphs
@@ -354,12 +507,44 @@ public class Digraphs {
 			DigraphFactory<? extends P> factory1,
 			DigraphFactory<? extends G> factory2,
 			EdgeCumulator<? super G,C,? super E> cumulator) {
-		P partition = factory1.create();
+		List<G> subgraphs = new ArrayList<G>();
+		for (Set<V> set : sets) {
+			subgraphs.add(subgraph(digraph, set, factory2));
+		}
+		return createPartition(digraph, subgraphs, factory1, cumulator);
+	}
+
+	/**
+	 * Create partition graph from a given vertex decomposition.
+	 * The component graphs are subgraph views (see {@link #subgraphView(Digraph, Set)}).
+	 * @param <P> the type of the result graph
+	 * @param <C> the edge type of the result graph
+	 * @param factory used to create the partition graph
+	 * @param cumulator used to cumulate edges between subgraphs
+	 * @return a digraph of subgraph views of this digraph
+	 */
+	public static <V,E,P extends Digraph<Digraph<V,E>,C>, C> P partition(
+			Digraph<V,E> digraph,
+			Iterable<Set<V>> sets,
+			DigraphFactory<? extends P> factory,
+			EdgeCumulator<? super Digraph<V,E>,C,? super E> cumulator) {
+		List<Digraph<V,E>> subgraphs = new ArrayList<Digraph<V,E>>();
+		for (Set<V> set : sets) {
+			subgraphs.add(subgraphView(digraph, set));
+		}
+		return createPartition(digraph, subgraphs, factory, cumulator);
+	}
+
+	private static <V,E,G extends Digraph<V,E>,P extends Digraph<G,C>, C> P createPartition(
+			Digraph<V,E> digraph,
+			List<G> subgraphs,
+			DigraphFactory<? extends P> factory,
+			EdgeCumulator<? super G,C,? super E> cumulator) {
+		P partition = factory.create();
 
 		// map vertices to their component graph
 		Map<V,G> vertex2subgraph = new HashMap<V,G>();
-		for (Set<V> set : sets) {
-			G subgraph = subgraph(digraph, set, factory2);
+		for (G subgraph : subgraphs) {
 			for (V v : subgraph.vertices()) {
 				assert digraph.contains(v) && !vertex2subgraph.containsKey(v);
 				vertex2subgraph.put(v, subgraph);
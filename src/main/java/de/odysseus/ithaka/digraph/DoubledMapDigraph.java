@@ -0,0 +1,409 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Map-based directed graph implementation, which additionally maintains an index of incoming edges.
+ * Edge values are stored only once; the index maps each target to the set of its sources.
+ * Removing a vertex thus only touches its incident edges.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class DoubledMapDigraph<V, E> implements DoubledDigraph<V, E> {
+	/**
+	 * Factory creating <code>DoubledMapDigraph</code>.
+	 * @return doubled map digraph factory
+	 */
+	public static <V, E> DigraphFactory<DoubledMapDigraph<V, E>> getDigraphFactory() {
+		return getDigraphFactory(null);
+	}
+
+	/**
+	 * Factory creating <code>DoubledMapDigraph</code>.
+	 * @param comparator vertex comparator (may be <code>null</code>)
+	 * @return doubled map digraph factory
+	 */
+	public static <V, E> DigraphFactory<DoubledMapDigraph<V, E>> getDigraphFactory(final Comparator<? super V> comparator) {
+		return new DigraphFactory<DoubledMapDigraph<V, E>>() {
+			@Override
+			public DoubledMapDigraph<V, E> create() {
+				return new DoubledMapDigraph<V, E>(comparator);
+			}
+		};
+	}
+
+	private final Comparator<? super V> comparator;
+	private final Map<V, Map<V, E>> vertexMap;
+	private final Map<V, Set<V>> sourceMap;
+
+	private int edgeCount;
+	private DoubledDigraph<V, E> reverse;
+
+	/**
+	 * Create digraph.
+	 * Vertices, edge targets and edge sources will be iterated in insertion order.
+	 */
+	public DoubledMapDigraph() {
+		this(null);
+	}
+
+	/**
+	 * Create digraph.
+	 * If a vertex comparator is given, {@link TreeMap}s and {@link TreeSet}s will be used
+	 * and vertices, edge targets and edge sources will be iterated in the order given by the comparator.
+	 * @param comparator vertex comparator (may be <code>null</code>)
+	 */
+	public DoubledMapDigraph(Comparator<? super V> comparator) {
+		this.comparator = comparator;
+		this.vertexMap = comparator == null ? new LinkedHashMap<V, Map<V, E>>() : new TreeMap<V, Map<V, E>>(comparator);
+		this.sourceMap = comparator == null ? new LinkedHashMap<V, Set<V>>() : new TreeMap<V, Set<V>>(comparator);
+	}
+
+	private Map<V, E> createEdgeMap() {
+		return comparator == null ? new LinkedHashMap<V, E>(4) : new TreeMap<V, E>(comparator);
+	}
+
+	private Set<V> createSourceSet() {
+		return comparator == null ? new LinkedHashSet<V>(4) : new TreeSet<V>(comparator);
+	}
+
+	@Override
+	public boolean add(V vertex) {
+		if (!vertexMap.containsKey(vertex)) {
+			vertexMap.put(vertex, Collections.<V, E> emptyMap());
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public E put(V source, V target, E edge) {
+		Map<V, E> edgeMap = vertexMap.get(source);
+		if (edgeMap == null || edgeMap.isEmpty()) {
+			vertexMap.put(source, edgeMap = createEdgeMap());
+		}
+		boolean existing = edgeMap.containsKey(target);
+		E result = edgeMap.put(target, edge);
+		if (!existing) {
+			add(target);
+			Set<V> sources = sourceMap.get(target);
+			if (sources == null) {
+				sourceMap.put(target, sources = createSourceSet());
+			}
+			sources.add(source);
+			edgeCount++;
+		}
+		return result;
+	}
+
+	@Override
+	public E get(Object source, Object target) {
+		Map<V, E> edgeMap = vertexMap.get(source);
+		if (edgeMap == null) {
+			return null;
+		}
+		return edgeMap.get(target);
+	}
+
+	@Override
+	public E remove(V source, V target) {
+		Map<V, E> edgeMap = vertexMap.get(source);
+		if (edgeMap == null || !edgeMap.containsKey(target)) {
+			return null;
+		}
+		E result = edgeMap.remove(target);
+		if (edgeMap.isEmpty()) {
+			vertexMap.put(source, Collections.<V, E> emptyMap());
+		}
+		removeSource(source, target);
+		edgeCount--;
+		return result;
+	}
+
+	private void removeSource(V source, V target) {
+		Set<V> sources = sourceMap.get(target);
+		sources.remove(source);
+		if (sources.isEmpty()) {
+			sourceMap.remove(target);
+		}
+	}
+
+	@Override
+	public boolean remove(V vertex) {
+		Map<V, E> edgeMap = vertexMap.remove(vertex);
+		if (edgeMap == null) {
+			return false;
+		}
+		removeIncident(vertex, edgeMap);
+		return true;
+	}
+
+	/**
+	 * Remove edges incident to a vertex, which has already been removed from the vertex map.
+	 */
+	private void removeIncident(V vertex, Map<V, E> edgeMap) {
+		for (V target : edgeMap.keySet()) {
+			removeSource(vertex, target);
+		}
+		edgeCount -= edgeMap.size();
+		Set<V> sources = sourceMap.remove(vertex); // does not contain vertex
+		if (sources != null) {
+			for (V source : sources) {
+				Map<V, E> sourceEdgeMap = vertexMap.get(source);
+				sourceEdgeMap.remove(vertex);
+				if (sourceEdgeMap.isEmpty()) {
+					vertexMap.put(source, Collections.<V, E> emptyMap());
+				}
+				edgeCount--;
+			}
+		}
+	}
+
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		for (V vertex : vertices) {
+			remove(vertex);
+		}
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		Map<V, E> edgeMap = vertexMap.get(source);
+		if (edgeMap == null) {
+			return false;
+		}
+		return edgeMap.containsKey(target);
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return vertexMap.containsKey(vertex);
+	}
+
+	@Override
+	public Iterable<V> vertices() {
+		if (vertexMap.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					Iterator<V> delegate = vertexMap.keySet().iterator();
+					V vertex = null;
+
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return vertex = delegate.next();
+					}
+
+					@Override
+					public void remove() {
+						Map<V, E> edgeMap = vertexMap.get(vertex);
+						delegate.remove();
+						removeIncident(vertex, edgeMap);
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return vertexMap.keySet().toString();
+			}
+		};
+	}
+
+	@Override
+	public Iterable<V> targets(final Object source) {
+		final Map<V, E> edgeMap = vertexMap.get(source);
+		if (edgeMap == null || edgeMap.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					Iterator<V> delegate = edgeMap.keySet().iterator();
+					V target = null;
+
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return target = delegate.next();
+					}
+
+					@Override
+					public void remove() {
+						delegate.remove();
+						@SuppressWarnings("unchecked")
+						V v = (V) source;
+						if (edgeMap.isEmpty()) {
+							vertexMap.put(v, Collections.<V, E> emptyMap());
+						}
+						removeSource(v, target);
+						edgeCount--;
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return edgeMap.keySet().toString();
+			}
+		};
+	}
+
+	@Override
+	public Iterable<V> sources(final Object target) {
+		final Set<V> sources = sourceMap.get(target);
+		if (sources == null) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					Iterator<V> delegate = sources.iterator();
+					V source = null;
+
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return source = delegate.next();
+					}
+
+					@Override
+					public void remove() {
+						delegate.remove();
+						@SuppressWarnings("unchecked")
+						V v = (V) target;
+						if (sources.isEmpty()) {
+							sourceMap.remove(v);
+						}
+						Map<V, E> edgeMap = vertexMap.get(source);
+						edgeMap.remove(v);
+						if (edgeMap.isEmpty()) {
+							vertexMap.put(source, Collections.<V, E> emptyMap());
+						}
+						edgeCount--;
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return sources.toString();
+			}
+		};
+	}
+
+	@Override
+	public int getVertexCount() {
+		return vertexMap.size();
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		Map<V, E> edgeMap = vertexMap.get(vertex);
+		if (edgeMap == null) {
+			return 0;
+		}
+		return edgeMap.size();
+	}
+
+	@Override
+	public int getInDegree(Object vertex) {
+		Set<V> sources = sourceMap.get(vertex);
+		if (sources == null) {
+			return 0;
+		}
+		return sources.size();
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Answer the reverse view of this digraph.
+	 * The view is backed by this digraph, so changes are reflected in both graphs.
+	 */
+	@Override
+	public DoubledDigraph<V, E> reverse() {
+		if (reverse == null) {
+			reverse = new ReverseDigraph<V, E>(this);
+		}
+		return reverse;
+	}
+
+	@Override
+	public DoubledMapDigraph<V, E> subgraph(Set<V> vertices) {
+		return Digraphs.<V, E, DoubledMapDigraph<V, E>> subgraph(this, vertices, DoubledMapDigraph.<V, E>getDigraphFactory(comparator));
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		return Digraphs.isAcyclic(this);
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		b.append("(");
+		Iterator<V> vertices = vertices().iterator();
+		while (vertices.hasNext()) {
+			V v = vertices.next();
+			b.append(v);
+			b.append(targets(v));
+			if (vertices.hasNext()) {
+				b.append(", ");
+				if (b.length() > 1000) {
+					b.append("...");
+					break;
+				}
+			}
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Fingerprinting digraph adapter.
+ * The adapter maintains a structural hash of its digraph, which is updated on every modification.
+ * The hash is a sum over per-vertex and per-edge terms, so it does not depend on iteration order
+ * and can be updated in constant time when a single edge is added or removed (removing a vertex
+ * costs a scan for its incoming edges).
+ * <p>
+ * Equal digraphs have equal fingerprints, so comparing fingerprints rejects most non-equivalent
+ * digraphs in constant time (see {@link Digraphs#isEquivalent(Digraph, Digraph, boolean)}).
+ * This requires that vertex and edge <code>hashCode()</code> implementations are consistent with the
+ * way the delegate compares vertices, and that the delegate is not modified other than through
+ * this adapter.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class FingerprintDigraphAdapter<V,E> extends DigraphAdapter<V,E> {
+	/**
+	 * Factory creating <code>FingerprintDigraphAdapter</code>.
+	 * @param factory delegate factory
+	 * @return fingerprint digraph factory
+	 */
+	public static <V,E> DigraphFactory<FingerprintDigraphAdapter<V,E>> getAdapterFactory(final DigraphFactory<? extends Digraph<V,E>> factory) {
+		return new DigraphFactory<FingerprintDigraphAdapter<V,E>>() {
+			@Override
+			public FingerprintDigraphAdapter<V,E> create() {
+				return new FingerprintDigraphAdapter<V,E>(factory.create());
+			}
+		};
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	private static long vertexTerm(Object vertex) {
+		return mix(vertex.hashCode() ^ 0x9e3779b97f4a7c15L);
+	}
+
+	private static long pairTerm(Object source, Object target) {
+		return mix(((long)source.hashCode() << 32) | (target.hashCode() & 0xffffffffL));
+	}
+
+	private static long edgeTerm(long pairTerm, Object edge) {
+		return mix(pairTerm + (edge == null ? 0 : edge.hashCode()));
+	}
+
+	private final Digraph<V,E> delegate;
+
+	private long structure; // sum of vertex and (source, target) terms
+	private long edges; // sum of (source, target, edge) terms
+
+	/**
+	 * Create fingerprinting digraph backed by a {@link MapDigraph}.
+	 */
+	public FingerprintDigraphAdapter() {
+		this(new MapDigraph<V,E>());
+	}
+
+	/**
+	 * Create fingerprinting digraph.
+	 * @param delegate initial digraph
+	 */
+	public FingerprintDigraphAdapter(Digraph<V,E> delegate) {
+		super(delegate);
+		this.delegate = delegate;
+		for (V source : delegate.vertices()) {
+			structure += vertexTerm(source);
+			for (V target : delegate.targets(source)) {
+				long pair = pairTerm(source, target);
+				structure += pair;
+				edges += edgeTerm(pair, delegate.get(source, target));
+			}
+		}
+	}
+
+	/**
+	 * Answer the digraph's fingerprint.
+	 * Fingerprints are equal for equivalent digraphs (in the sense of
+	 * {@link Digraphs#isEquivalent(Digraph, Digraph, boolean)}); different
+	 * fingerprints prove that digraphs are not equivalent.
+	 * @param includeEdges whether edge objects should contribute to the fingerprint
+	 * @return fingerprint
+	 */
+	public long getFingerprint(boolean includeEdges) {
+		return includeEdges ? structure + edges : structure;
+	}
+
+	private void added(V source, V target, E edge) {
+		long pair = pairTerm(source, target);
+		structure += pair;
+		edges += edgeTerm(pair, edge);
+	}
+
+	private void removed(Object source, Object target, E edge) {
+		long pair = pairTerm(source, target);
+		structure -= pair;
+		edges -= edgeTerm(pair, edge);
+	}
+
+	/**
+	 * Subtract terms of the given vertices and their incident edges.
+	 */
+	private void removing(Set<?> vertices) {
+		for (V source : delegate.vertices()) {
+			boolean removed = vertices.contains(source);
+			if (removed) {
+				structure -= vertexTerm(source);
+			}
+			for (V target : delegate.targets(source)) {
+				if (removed || vertices.contains(target)) {
+					removed(source, target, delegate.get(source, target));
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean add(V vertex) {
+		if (super.add(vertex)) {
+			structure += vertexTerm(vertex);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public E put(V source, V target, E edge) {
+		boolean containsSource = delegate.contains(source);
+		boolean containsTarget = source.equals(target) || delegate.contains(target);
+		boolean containsEdge = containsSource && containsTarget && delegate.contains(source, target);
+		E result = super.put(source, target, edge);
+		if (!containsSource) {
+			structure += vertexTerm(source);
+		}
+		if (!containsTarget) {
+			structure += vertexTerm(target);
+		}
+		if (containsEdge) {
+			removed(source, target, result);
+		}
+		added(source, target, edge);
+		return result;
+	}
+
+	@Override
+	public E remove(V source, V target) {
+		if (!delegate.contains(source, target)) {
+			return null;
+		}
+		E result = super.remove(source, target);
+		removed(source, target, result);
+		return result;
+	}
+
+	@Override
+	public boolean remove(V vertex) {
+		if (!delegate.contains(vertex)) {
+			return false;
+		}
+		removing(Collections.singleton(vertex));
+		return super.remove(vertex);
+	}
+
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		Set<V> removed = new HashSet<V>();
+		for (V vertex : vertices) {
+			if (delegate.contains(vertex)) {
+				removed.add(vertex);
+			}
+		}
+		if (!removed.isEmpty()) {
+			removing(removed);
+			super.removeAll(removed);
+		}
+	}
+
+	/**
+	 * Make sure the fingerprint is kept in sync if <code>Iterator.remove()</code> is called.
+	 */
+	@Override
+	public Iterable<V> vertices() {
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				final Iterator<V> delegateIterator = delegate.vertices().iterator();
+				return new Iterator<V>() {
+					V vertex;
+					@Override
+					public boolean hasNext() {
+						return delegateIterator.hasNext();
+					}
+					@Override
+					public V next() {
+						return vertex = delegateIterator.next();
+					}
+					@Override
+					public void remove() {
+						removing(Collections.singleton(vertex));
+						delegateIterator.remove();
+					}
+				};
+			}
+			@Override
+			public String toString() {
+				return delegate.vertices().toString();
+			}
+		};
+	}
+
+	/**
+	 * Make sure the fingerprint is kept in sync if <code>Iterator.remove()</code> is called.
+	 */
+	@Override
+	public Iterable<V> targets(final Object source) {
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				final Iterator<V> delegateIterator = delegate.targets(source).iterator();
+				return new Iterator<V>() {
+					V target;
+					@Override
+					public boolean hasNext() {
+						return delegateIterator.hasNext();
+					}
+					@Override
+					public V next() {
+						return target = delegateIterator.next();
+					}
+					@Override
+					public void remove() {
+						E edge = delegate.get(source, target);
+						delegateIterator.remove();
+						removed(source, target, edge);
+					}
+				};
+			}
+			@Override
+			public String toString() {
+				return delegate.targets(source).toString();
+			}
+		};
+	}
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable hash array mapped trie. Updates return a new trie sharing all unchanged nodes with this one.
+ * Keys and values may be <code>null</code>. Entries are iterated in no particular order.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class HashTrie<K, V> implements Iterable<HashTrie.Entry<K, V>> {
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+
+	private static final HashTrie<Object, Object> EMPTY = new HashTrie<Object, Object>(null, 0);
+
+	@SuppressWarnings("unchecked")
+	static <K, V> HashTrie<K, V> empty() {
+		return (HashTrie<K, V>)EMPTY;
+	}
+
+	static final class Entry<K, V> {
+		final int hash;
+		final K key;
+		final V value;
+
+		Entry(int hash, K key, V value) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+		}
+
+		boolean matches(int hash, Object key) {
+			return this.hash == hash && (this.key == key || key != null && key.equals(this.key));
+		}
+	}
+
+	private static abstract class Node {
+		abstract Entry<?, ?> find(int hash, Object key, int shift);
+		abstract Node put(Entry<?, ?> entry, int shift);
+		abstract Node remove(int hash, Object key, int shift);
+		/**
+		 * Answer the only entry if this node contains a single entry, <code>null</code> otherwise.
+		 */
+		abstract Entry<?, ?> single();
+	}
+
+	private static final class BitmapNode extends Node {
+		final int bitmap;
+		final Object[] array; // entries and sub-nodes
+
+		BitmapNode(int bitmap, Object[] array) {
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+
+		@Override
+		Entry<?, ?> find(int hash, Object key, int shift) {
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0) {
+				return null;
+			}
+			Object slot = array[Integer.bitCount(bitmap & (bit - 1))];
+			if (slot instanceof Entry) {
+				Entry<?, ?> entry = (Entry<?, ?>)slot;
+				return entry.matches(hash, key) ? entry : null;
+			}
+			return ((Node)slot).find(hash, key, shift + BITS);
+		}
+
+		@Override
+		Node put(Entry<?, ?> entry, int shift) {
+			int bit = 1 << ((entry.hash >>> shift) & MASK);
+			int index = Integer.bitCount(bitmap & (bit - 1));
+			if ((bitmap & bit) == 0) {
+				Object[] array = new Object[this.array.length + 1];
+				System.arraycopy(this.array, 0, array, 0, index);
+				array[index] = entry;
+				System.arraycopy(this.array, index, array, index + 1, this.array.length - index);
+				return new BitmapNode(bitmap | bit, array);
+			}
+			Object slot = this.array[index];
+			Object replacement;
+			if (slot instanceof Entry) {
+				Entry<?, ?> existing = (Entry<?, ?>)slot;
+				if (existing.matches(entry.hash, entry.key)) {
+					replacement = entry;
+				} else {
+					replacement = merge(existing, entry, shift + BITS);
+				}
+			} else {
+				replacement = ((Node)slot).put(entry, shift + BITS);
+			}
+			Object[] array = this.array.clone();
+			array[index] = replacement;
+			return new BitmapNode(bitmap, array);
+		}
+
+		@Override
+		Node remove(int hash, Object key, int shift) {
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0) {
+				return this;
+			}
+			int index = Integer.bitCount(bitmap & (bit - 1));
+			Object slot = array[index];
+			Object replacement;
+			if (slot instanceof Entry) {
+				if (!((Entry<?, ?>)slot).matches(hash, key)) {
+					return this;
+				}
+				replacement = null;
+			} else {
+				Node node = ((Node)slot).remove(hash, key, shift + BITS);
+				if (node == slot) {
+					return this;
+				}
+				replacement = node;
+				if (node != null && node.single() != null) { // inline single entry
+					replacement = node.single();
+				}
+			}
+			if (replacement == null) {
+				if (bitmap == bit) {
+					return null;
+				}
+				Object[] array = new Object[this.array.length - 1];
+				System.arraycopy(this.array, 0, array, 0, index);
+				System.arraycopy(this.array, index + 1, array, index, array.length - index);
+				return new BitmapNode(bitmap & ~bit, array);
+			}
+			Object[] array = this.array.clone();
+			array[index] = replacement;
+			return new BitmapNode(bitmap, array);
+		}
+
+		@Override
+		Entry<?, ?> single() {
+			return array.length == 1 && array[0] instanceof Entry ? (Entry<?, ?>)array[0] : null;
+		}
+	}
+
+	private static final class CollisionNode extends Node {
+		final Entry<?, ?>[] entries; // same hash
+
+		CollisionNode(Entry<?, ?>[] entries) {
+			this.entries = entries;
+		}
+
+		@Override
+		Entry<?, ?> find(int hash, Object key, int shift) {
+			for (Entry<?, ?> entry : entries) {
+				if (entry.matches(hash, key)) {
+					return entry;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		Node put(Entry<?, ?> entry, int shift) {
+			for (int i = 0; i < entries.length; i++) {
+				if (entries[i].matches(entry.hash, entry.key)) {
+					Entry<?, ?>[] entries = this.entries.clone();
+					entries[i] = entry;
+					return new CollisionNode(entries);
+				}
+			}
+			Entry<?, ?>[] entries = new Entry<?, ?>[this.entries.length + 1];
+			System.arraycopy(this.entries, 0, entries, 0, this.entries.length);
+			entries[this.entries.length] = entry;
+			return new CollisionNode(entries);
+		}
+
+		@Override
+		Node remove(int hash, Object key, int shift) {
+			for (int i = 0; i < entries.length; i++) {
+				if (entries[i].matches(hash, key)) {
+					if (entries.length == 1) {
+						return null;
+					}
+					Entry<?, ?>[] entries = new Entry<?, ?>[this.entries.length - 1];
+					System.arraycopy(this.entries, 0, entries, 0, i);
+					System.arraycopy(this.entries, i + 1, entries, i, entries.length - i);
+					return new CollisionNode(entries);
+				}
+			}
+			return this;
+		}
+
+		@Override
+		Entry<?, ?> single() {
+			return entries.length == 1 ? entries[0] : null;
+		}
+	}
+
+	private static Node merge(Entry<?, ?> first, Entry<?, ?> second, int shift) {
+		if (shift >= 32) {
+			return new CollisionNode(new Entry<?, ?>[]{ first, second });
+		}
+		int firstBit = 1 << ((first.hash >>> shift) & MASK);
+		int secondBit = 1 << ((second.hash >>> shift) & MASK);
+		if (firstBit == secondBit) {
+			return new BitmapNode(firstBit, new Object[]{ merge(first, second, shift + BITS) });
+		}
+		if (Integer.bitCount(firstBit - 1) < Integer.bitCount(secondBit - 1)) {
+			return new BitmapNode(firstBit | secondBit, new Object[]{ first, second });
+		}
+		return new BitmapNode(firstBit | secondBit, new Object[]{ second, first });
+	}
+
+	private static int hash(Object key) {
+		if (key == null) {
+			return 0;
+		}
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private final Node root;
+	private final int size;
+
+	private HashTrie(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	@SuppressWarnings("unchecked")
+	Entry<K, V> entry(Object key) {
+		return root == null ? null : (Entry<K, V>)root.find(hash(key), key, 0);
+	}
+
+	boolean containsKey(Object key) {
+		return entry(key) != null;
+	}
+
+	V get(Object key) {
+		Entry<K, V> entry = entry(key);
+		return entry == null ? null : entry.value;
+	}
+
+	HashTrie<K, V> put(K key, V value) {
+		int hash = hash(key);
+		Entry<K, V> existing = entry(key);
+		if (existing != null && existing.value == value) {
+			return this;
+		}
+		Entry<K, V> entry = new Entry<K, V>(hash, key, value);
+		if (root == null) {
+			return new HashTrie<K, V>(new BitmapNode(1 << (hash & MASK), new Object[]{ entry }), 1);
+		}
+		return new HashTrie<K, V>(root.put(entry, 0), existing == null ? size + 1 : size);
+	}
+
+	HashTrie<K, V> remove(Object key) {
+		if (!containsKey(key)) {
+			return this;
+		}
+		Node root = this.root.remove(hash(key), key, 0);
+		return root == null ? HashTrie.<K, V>empty() : new HashTrie<K, V>(root, size - 1);
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public Iterator<Entry<K, V>> iterator() {
+		return new Iterator<Entry<K, V>>() {
+			// path of nodes (bitmap node arrays or collision node entries) and positions
+			final Object[][] nodes = new Object[32 / BITS + 2][];
+			final int[] positions = new int[nodes.length];
+			int depth = -1;
+			Entry<K, V> next;
+			{
+				if (root != null) {
+					push(root);
+					advance();
+				}
+			}
+
+			private void push(Object node) {
+				nodes[++depth] = node instanceof BitmapNode ? ((BitmapNode)node).array : ((CollisionNode)node).entries;
+				positions[depth] = 0;
+			}
+
+			@SuppressWarnings("unchecked")
+			private void advance() {
+				next = null;
+				while (depth >= 0) {
+					if (positions[depth] == nodes[depth].length) {
+						nodes[depth--] = null;
+					} else {
+						Object slot = nodes[depth][positions[depth]++];
+						if (slot instanceof Entry) {
+							next = (Entry<K, V>)slot;
+							return;
+						}
+						push(slot);
+					}
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public Entry<K, V> next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				Entry<K, V> result = next;
+				advance();
+				return result;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * @return key iterator
+	 */
+	Iterator<K> keys() {
+		final Iterator<Entry<K, V>> entries = iterator();
+		return new Iterator<K>() {
+			@Override
+			public boolean hasNext() {
+				return entries.hasNext();
+			}
+
+			@Override
+			public K next() {
+				return entries.next().key;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+}
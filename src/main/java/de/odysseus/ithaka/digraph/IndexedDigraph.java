@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+/**
+ * Digraph with dense vertex ids, granting access to an <code>int</code>-based view.
+ * Algorithms may work on the {@link #getIntDigraph()} view using arrays and bitsets
+ * instead of hashed collections and translate ids back to vertices using
+ * {@link #getVertexIndex()}.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public interface IndexedDigraph<V,E> extends Digraph<V,E> {
+	/**
+	 * Answer a read-only view of the index used to map vertices to ids.
+	 * @return vertex index
+	 */
+	public VertexIndex<V> getVertexIndex();
+
+	/**
+	 * Answer the id-based view of this digraph. Vertex <code>v</code> of this digraph
+	 * appears as <code>getVertexIndex().getId(v)</code> in the view. The view must only be used for reading.
+	 * @return id-based digraph
+	 */
+	public IntDigraph<E> getIntDigraph();
+}
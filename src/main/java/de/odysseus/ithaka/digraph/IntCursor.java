@@ -0,0 +1,33 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+/**
+ * Cursor over primitive <code>int</code> values.
+ */
+public interface IntCursor {
+	/**
+	 * @return <code>true</code> iff there are more values
+	 */
+	public boolean hasNext();
+
+	/**
+	 * Answer the next value.
+	 * @return next value
+	 * @throws java.util.NoSuchElementException if there are no more values
+	 */
+	public int next();
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+/**
+ * Directed graph interface with primitive <code>int</code> vertices.
+ * Vertices are non-negative integers, which are expected to be dense, i.e. all vertices
+ * are less than {@link #getVertexBound()}, which should not be much bigger than
+ * {@link #getVertexCount()}. This allows algorithms to use arrays and bitsets indexed by vertex.
+ *
+ * @param <E> edge type
+ */
+public interface IntDigraph<E> {
+	/**
+	 * Get an edge.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return edge value (<code>null</code> if there is no edge from <code>source</code> to <code>target</code>)
+	 */
+	public E get(int source, int target);
+
+	/**
+	 * Edge test.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return <code>true</code> iff this digraph contains an edge from <code>source</code> to <code>target</code>
+	 */
+	public boolean contains(int source, int target);
+
+	/**
+	 * Vertex test
+	 * @param vertex vertex
+	 * @return <code>true</code> iff this digraph contains <code>vertex</code>
+	 */
+	public boolean contains(int vertex);
+
+	/**
+	 * Add vertex.
+	 * @param vertex
+	 * @return <code>true</code> iff <code>vertex</code> has been added
+	 * @throws IllegalArgumentException if <code>vertex</code> is negative
+	 */
+	public boolean add(int vertex);
+
+	/**
+	 * Put an edge.
+	 * Vertices are added automatically if they appear in an edge.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @param edge edge value
+	 * @return edge value that has been previously set (<code>null</code> if there was no edge from <code>source</code>
+	 * to <code>target</code>)
+	 * @throws IllegalArgumentException if <code>source</code> or <code>target</code> is negative
+	 */
+	public E put(int source, int target, E edge);
+
+	/**
+	 * Remove an edge.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return edge value that has been previously set (<code>null</code> if there was no edge from <code>source</code>
+	 * to <code>target</code>)
+	 */
+	public E remove(int source, int target);
+
+	/**
+	 * Remove a vertex.
+	 * @param vertex vertex
+	 * @return <code>true</code> iff this digraph contained <code>vertex</code>
+	 */
+	public boolean remove(int vertex);
+
+	/**
+	 * Iterate over vertices.
+	 * @return vertex cursor
+	 */
+	public IntCursor vertices();
+
+	/**
+	 * Iterate over edge targets for given source vertex.
+	 * @param source source vertex
+	 * @return cursor over edge targets of edges starting at <code>source</code>
+	 */
+	public IntCursor targets(int source);
+
+	/**
+	 * Get an edge target by position. Together with {@link #getOutDegree(int)}, this allows
+	 * to iterate over edge targets without allocating a cursor.
+	 * @param source source vertex
+	 * @param index target position, <code>0 &lt;= index &lt; getOutDegree(source)</code>
+	 * @return target of the <code>index</code>-th edge starting at <code>source</code>
+	 */
+	public int getTarget(int source, int index);
+
+	/**
+	 * @return number of vertices in this digraph
+	 */
+	public int getVertexCount();
+
+	/**
+	 * @return upper bound (exclusive) for the vertices in this digraph
+	 */
+	public int getVertexBound();
+
+	/**
+	 * @return number of edges starting at <code>vertex</code>
+	 */
+	public int getOutDegree(int vertex);
+
+	/**
+	 * @return number of edges in this digraph
+	 */
+	public int getEdgeCount();
+
+	/**
+	 * @return <code>true</code> iff this digraph is acyclic (i.e. it is a DAG)
+	 */
+	public boolean isAcyclic();
+
+	/**
+	 * Get reverse digraph (same vertices, with edges reversed).
+	 * @return reverse digraph
+	 */
+	public IntDigraph<E> reverse();
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class provides <code>int</code>-specialized versions of the {@link Digraphs} algorithms.
+ * Searches are non-recursive and use arrays and bitsets indexed by vertex,
+ * so no objects are allocated per vertex or edge.
+ */
+public class IntDigraphs {
+	/**
+	 * Topologically sort vertices of an acyclic directed graph (DAG).
+	 * @param digraph input graph
+	 * @param descending let edges go from right to left if <code>true</code>
+	 * @return vertices toplologically ordered
+	 * @see Digraphs#topsort(Digraph, boolean)
+	 */
+	public static int[] topsort(IntDigraph<?> digraph, boolean descending) {
+		int[] finished = new int[digraph.getVertexCount()];
+		int count = 0;
+		BitSet discovered = new BitSet(digraph.getVertexBound());
+		int[] stack = new int[digraph.getVertexCount()];
+		int[] positions = new int[digraph.getVertexCount()];
+		IntCursor vertices = digraph.vertices();
+		while (vertices.hasNext()) {
+			int vertex = vertices.next();
+			if (!discovered.get(vertex)) {
+				count = dfs(digraph, vertex, discovered, finished, count, stack, positions);
+			}
+		}
+		if (!descending) {
+			for (int i = 0, j = count - 1; i < j; i++, j--) {
+				int vertex = finished[i];
+				finished[i] = finished[j];
+				finished[j] = vertex;
+			}
+		}
+		return finished;
+	}
+
+	/**
+	 * Compute the set of vertices reachable from the given source in the given digraph.
+	 * If the source is not contained in the digraph, answer <code>{source}</code>.
+	 * @param digraph
+	 * @param source source vertex
+	 * @return the set of vertices reachable from <code>source</code>
+	 */
+	public static BitSet closure(IntDigraph<?> digraph, int source) {
+		BitSet closure = new BitSet(digraph.getVertexBound());
+		dfs(digraph, source, closure, null, 0);
+		return closure;
+	}
+
+	/**
+	 * Answer <code>true</code> if the given digraph is acyclic (DAG).
+	 * Per definition, the empty graph and single vertex digraphs are acyclic.
+	 * @param digraph
+	 * @return <code>true</code> iff the given digraph is acyclic
+	 * @see Digraphs#isAcyclic(Digraph)
+	 */
+	public static boolean isAcyclic(IntDigraph<?> digraph) {
+		int n = digraph.getVertexCount();
+		if (n < 2) {
+			return true; // no self loop
+		}
+		if (digraph.getEdgeCount() > (long)n * (n - 1) / 2) {
+			return false;
+		}
+		return scc(digraph).length == n;
+	}
+
+	/**
+	 * Answer <code>true</code> if there is a path from the given source to the given target
+	 * in the supplied graph. If source is equal to target, answer <code>true</code>.
+	 * @param digraph
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return <code>true</code> iff there's a path from <code>source</code> to <code>target</code> in <code>digraph</code>
+	 */
+	public static boolean isReachable(IntDigraph<?> digraph, int source, int target) {
+		return digraph.contains(source, target) || closure(digraph, source).get(target);
+	}
+
+	/**
+	 * Perform a depth first search.
+	 *
+	 * @param digraph
+	 * @param source dfs start vertex
+	 * @param discovered set of vertices already discovered during search
+	 * @param finished array receiving vertices visited during search in the order they are finished
+	 * (may be <code>null</code>)
+	 * @param count number of vertices already in <code>finished</code>
+	 * @return number of vertices in <code>finished</code> after the search
+	 */
+	public static int dfs(IntDigraph<?> digraph, int source, BitSet discovered, int[] finished, int count) {
+		int n = digraph.getVertexCount();
+		return dfs(digraph, source, discovered, finished, count, new int[n], new int[n]);
+	}
+
+	private static int dfs(IntDigraph<?> digraph, int source, BitSet discovered, int[] finished, int count, int[] stack, int[] positions) {
+		if (source < 0 || discovered.get(source)) {
+			return count;
+		}
+		discovered.set(source);
+		if (!digraph.contains(source)) { // no targets (stack may be too small to hold source)
+			if (finished != null) {
+				finished[count] = source;
+			}
+			return count + 1;
+		}
+		stack[0] = source;
+		positions[0] = 0;
+		int depth = 1;
+		while (depth > 0) {
+			int vertex = stack[depth - 1];
+			int position = positions[depth - 1];
+			if (position < digraph.getOutDegree(vertex)) {
+				positions[depth - 1]++;
+				int target = digraph.getTarget(vertex, position);
+				if (!discovered.get(target)) {
+					discovered.set(target);
+					stack[depth] = target;
+					positions[depth] = 0;
+					depth++;
+				}
+			} else {
+				depth--;
+				if (finished != null) {
+					finished[count] = vertex;
+				}
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Compute strongly connected components.
+	 * Components are computed by a non-recursive version of Tarjan's algorithm and
+	 * are answered in topological order (i.e. there's no edge from a component to a previous one).
+	 * @param digraph
+	 * @return strongly connected components
+	 */
+	public static int[][] scc(IntDigraph<?> digraph) {
+		int bound = digraph.getVertexBound();
+		int n = digraph.getVertexCount();
+		int[] indices = new int[bound]; // 0 means undiscovered
+		int[] lowlinks = new int[bound];
+		BitSet active = new BitSet(bound);
+		int[] component = new int[n];
+		int size = 0;
+		int[] stack = new int[n];
+		int[] positions = new int[n];
+		int index = 0;
+
+		List<int[]> components = new ArrayList<int[]>();
+		IntCursor vertices = digraph.vertices();
+		while (vertices.hasNext()) {
+			int root = vertices.next();
+			if (indices[root] != 0) {
+				continue;
+			}
+			indices[root] = lowlinks[root] = ++index;
+			component[size++] = root;
+			active.set(root);
+			stack[0] = root;
+			positions[0] = 0;
+			int depth = 1;
+			while (depth > 0) {
+				int vertex = stack[depth - 1];
+				int position = positions[depth - 1];
+				if (position < digraph.getOutDegree(vertex)) {
+					positions[depth - 1]++;
+					int target = digraph.getTarget(vertex, position);
+					if (indices[target] == 0) {
+						indices[target] = lowlinks[target] = ++index;
+						component[size++] = target;
+						active.set(target);
+						stack[depth] = target;
+						positions[depth] = 0;
+						depth++;
+					} else if (active.get(target)) {
+						lowlinks[vertex] = Math.min(lowlinks[vertex], indices[target]);
+					}
+				} else {
+					depth--;
+					if (lowlinks[vertex] == indices[vertex]) {
+						int start = size;
+						do {
+							active.clear(component[--start]);
+						} while (component[start] != vertex);
+						components.add(Arrays.copyOfRange(component, start, size));
+						size = start;
+					}
+					if (depth > 0) {
+						int parent = stack[depth - 1];
+						lowlinks[parent] = Math.min(lowlinks[parent], lowlinks[vertex]);
+					}
+				}
+			}
+		}
+		Collections.reverse(components);
+		return components.toArray(new int[components.size()][]);
+	}
+
+	/**
+	 * Compute weakly connected components.
+	 * Components are answered in the order of their first vertex.
+	 * @param digraph
+	 * @return weakly connected components
+	 */
+	public static int[][] wcc(IntDigraph<?> digraph) {
+		int bound = digraph.getVertexBound();
+		int[] parents = new int[bound];
+		IntCursor vertices = digraph.vertices();
+		while (vertices.hasNext()) {
+			int vertex = vertices.next();
+			parents[vertex] = vertex;
+		}
+		vertices = digraph.vertices();
+		while (vertices.hasNext()) {
+			int source = vertices.next();
+			for (int position = 0; position < digraph.getOutDegree(source); position++) {
+				int root1 = find(parents, source);
+				int root2 = find(parents, digraph.getTarget(source, position));
+				if (root1 != root2) {
+					parents[Math.max(root1, root2)] = Math.min(root1, root2);
+				}
+			}
+		}
+
+		// count sizes per root and number components by first vertex
+		int[] sizes = new int[bound];
+		int[] numbers = new int[bound];
+		int count = 0;
+		vertices = digraph.vertices();
+		while (vertices.hasNext()) {
+			int root = find(parents, vertices.next());
+			if (sizes[root]++ == 0) {
+				numbers[root] = count++;
+			}
+		}
+		int[][] components = new int[count][];
+		vertices = digraph.vertices();
+		while (vertices.hasNext()) {
+			int vertex = vertices.next();
+			int root = find(parents, vertex);
+			if (components[numbers[root]] == null) {
+				components[numbers[root]] = new int[sizes[root]];
+				sizes[root] = 0;
+			}
+			components[numbers[root]][sizes[root]++] = vertex;
+		}
+		return components;
+	}
+
+	private static int find(int[] parents, int vertex) {
+		while (parents[vertex] != vertex) {
+			vertex = parents[vertex] = parents[parents[vertex]];
+		}
+		return vertex;
+	}
+}
@@ -146,6 +146,14 @@ public class MapDigraph<V, E> implements Digraph<V, E> {
 		vertexMap = vertexMapFactory.create();
 	}
 
+	/**
+	 * Vertex map access for {@link DigraphDiff}'s merge scan. Must not be modified.
+	 * @return vertex map
+	 */
+	Map<V, Map<V, E>> getVertexMap() {
+		return vertexMap;
+	}
+
 	@Override
 	public boolean add(V vertex) {
 		if (!vertexMap.containsKey(vertex)) {
@@ -0,0 +1,670 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Weighted digraph implementation keeping its adjacency structure outside the Java heap.
+ * Vertices are mapped to dense ids by a {@link VertexIndex}; all other data (edge targets and
+ * weights, per-vertex block descriptors) lives in direct buffers, so the number of heap objects
+ * does not grow with the number of edges.
+ * <p>
+ * Edges of a vertex are stored in a block of <code>2<sup>k</sup></code> (target, weight) slots, sorted by target id.
+ * Blocks are carved from chunks, which start small and double in size up to the configured chunk size,
+ * so small digraphs allocate little direct memory; freed blocks are kept in per-size free lists for reuse.
+ * Ids of removed vertices (and their vertex table entries) are reused by subsequently added vertices,
+ * so vertex churn doesn't grow the vertex table. Edge targets are iterated in the order of their ids,
+ * which is the order in which vertices have been added, unless vertices have been removed.
+ * Edge weights must not be <code>null</code>.
+ * <p>
+ * Call {@link #close()} to release the buffers as soon as the digraph is no longer used;
+ * any further access throws an <code>IllegalStateException</code>.
+ *
+ * @param <V> vertex type
+ */
+public class OffHeapDigraph<V> implements WeightedDigraph<V>, Closeable {
+	/**
+	 * Factory creating <code>OffHeapDigraph</code>.
+	 * @return off-heap digraph factory
+	 */
+	public static <V> DigraphFactory<OffHeapDigraph<V>> getDigraphFactory() {
+		return getDigraphFactory(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Factory creating <code>OffHeapDigraph</code>.
+	 * @param chunkSize maximum number of <code>int</code>s per memory chunk
+	 * @return off-heap digraph factory
+	 */
+	public static <V> DigraphFactory<OffHeapDigraph<V>> getDigraphFactory(final int chunkSize) {
+		return new DigraphFactory<OffHeapDigraph<V>>() {
+			@Override
+			public OffHeapDigraph<V> create() {
+				return new OffHeapDigraph<V>(chunkSize);
+			}
+		};
+	}
+
+	private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+	private static final int INITIAL_CHUNK_SIZE = 256;
+
+	// vertex table entry layout
+	private static final int CHUNK = 0;
+	private static final int OFFSET = 1;
+	private static final int SIZE_CLASS = 2;
+	private static final int DEGREE = 3;
+	private static final int ENTRY_SIZE = 4;
+
+	private static final int NO_BLOCK = -1;
+	private static final int MAX_SIZE_CLASS = 28;
+
+	private static IntBuffer allocate(int ints) {
+		return ByteBuffer.allocateDirect(4 * ints).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+	private final VertexIndex<V> index = new VertexIndex<V>();
+	private final BitSet vertices = new BitSet();
+	private final int chunkSize;
+
+	private IntBuffer table;
+	private IntBuffer[] chunks;
+	private int chunkCount;
+	private int[] freeSlots = new int[16]; // slots of released chunks
+	private int freeSlotCount;
+	private int current = -1; // chunk used for bump allocation
+	private int top; // bump allocation offset
+	private int nextChunkSize; // size of the next bump allocation chunk
+
+	private final int[] freeChunks = new int[MAX_SIZE_CLASS + 1]; // free list heads
+	private final int[] freeOffsets = new int[MAX_SIZE_CLASS + 1];
+
+	private int vertexCount;
+	private int edgeCount;
+
+	/**
+	 * Create digraph.
+	 */
+	public OffHeapDigraph() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Create digraph.
+	 * Blocks bigger than a chunk are allocated separately.
+	 * @param chunkSize maximum number of <code>int</code>s per memory chunk
+	 */
+	public OffHeapDigraph(int chunkSize) {
+		if (chunkSize < 4) {
+			throw new IllegalArgumentException("Chunk size must be at least 4: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+		this.nextChunkSize = Math.min(INITIAL_CHUNK_SIZE, chunkSize);
+		this.table = allocate(16 * ENTRY_SIZE);
+		this.chunks = new IntBuffer[16];
+		Arrays.fill(freeChunks, -1);
+	}
+
+	private void checkOpen() {
+		if (table == null) {
+			throw new IllegalStateException("Digraph has been closed!");
+		}
+	}
+
+	private IntBuffer table() {
+		checkOpen();
+		return table;
+	}
+
+	private int entry(int id, int field) {
+		return table().get(id * ENTRY_SIZE + field);
+	}
+
+	private void entry(int id, int field, int value) {
+		table().put(id * ENTRY_SIZE + field, value);
+	}
+
+	private int id(Object vertex) {
+		checkOpen();
+		int id = index.getId(vertex);
+		return id >= 0 && vertices.get(id) ? id : -1;
+	}
+
+	private int add0(V vertex) {
+		checkOpen();
+		int id = index.add(vertex);
+		if (!vertices.get(id)) {
+			if ((id + 1) * ENTRY_SIZE > table().capacity()) {
+				IntBuffer table = allocate(2 * this.table.capacity());
+				this.table.clear();
+				table.put(this.table);
+				this.table = table;
+			}
+			entry(id, SIZE_CLASS, NO_BLOCK);
+			entry(id, DEGREE, 0);
+			vertices.set(id);
+			vertexCount++;
+		}
+		return id;
+	}
+
+	/**
+	 * Allocate a block of <code>2<sup>sizeClass</sup></code> slots and store its address in the vertex table.
+	 */
+	private void allocate(int id, int sizeClass) {
+		int ints = 2 << sizeClass;
+		int chunk, offset;
+		if (ints > chunkSize) { // dedicated chunk
+			chunk = newChunk(ints);
+			offset = 0;
+		} else if (freeChunks[sizeClass] >= 0) {
+			chunk = freeChunks[sizeClass];
+			offset = freeOffsets[sizeClass];
+			freeChunks[sizeClass] = chunks[chunk].get(offset);
+			freeOffsets[sizeClass] = chunks[chunk].get(offset + 1);
+		} else {
+			if (current < 0 || top + ints > chunks[current].capacity()) {
+				int size = nextChunkSize;
+				while (size < ints) {
+					size = Math.min(2 * size, chunkSize);
+				}
+				current = newChunk(size);
+				nextChunkSize = Math.min(2 * size, chunkSize);
+				top = 0;
+			}
+			chunk = current;
+			offset = top;
+			top += ints;
+		}
+		entry(id, CHUNK, chunk);
+		entry(id, OFFSET, offset);
+		entry(id, SIZE_CLASS, sizeClass);
+	}
+
+	private int newChunk(int ints) {
+		checkOpen();
+		int chunk;
+		if (freeSlotCount > 0) {
+			chunk = freeSlots[--freeSlotCount];
+		} else {
+			if (chunkCount == chunks.length) {
+				chunks = Arrays.copyOf(chunks, 2 * chunkCount);
+			}
+			chunk = chunkCount++;
+		}
+		chunks[chunk] = allocate(ints);
+		return chunk;
+	}
+
+	/**
+	 * Release a block. Dedicated chunks are dropped and their slot is reused by the next chunk,
+	 * other blocks are pushed to the free list of their size class.
+	 */
+	private void release(int chunk, int offset, int sizeClass) {
+		if (2 << sizeClass > chunkSize) {
+			chunks[chunk] = null;
+			if (freeSlotCount == freeSlots.length) {
+				freeSlots = Arrays.copyOf(freeSlots, 2 * freeSlotCount);
+			}
+			freeSlots[freeSlotCount++] = chunk;
+		} else {
+			chunks[chunk].put(offset, freeChunks[sizeClass]);
+			chunks[chunk].put(offset + 1, freeOffsets[sizeClass]);
+			freeChunks[sizeClass] = chunk;
+			freeOffsets[sizeClass] = offset;
+		}
+	}
+
+	/**
+	 * Release the block of the given vertex.
+	 */
+	private void free(int id) {
+		int sizeClass = entry(id, SIZE_CLASS);
+		if (sizeClass == NO_BLOCK) {
+			return;
+		}
+		release(entry(id, CHUNK), entry(id, OFFSET), sizeClass);
+		entry(id, SIZE_CLASS, NO_BLOCK);
+		entry(id, DEGREE, 0);
+	}
+
+	private IntBuffer block(int id) {
+		return chunks[entry(id, CHUNK)];
+	}
+
+	/**
+	 * Answer the slot of the given target in the source's block (or <code>-(insertion point) - 1</code>).
+	 */
+	private int search(int source, int target) {
+		int degree = entry(source, DEGREE);
+		if (degree == 0) {
+			return -1;
+		}
+		IntBuffer block = block(source);
+		int offset = entry(source, OFFSET);
+		int low = 0;
+		int high = degree - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int value = block.get(offset + 2 * mid);
+			if (value < target) {
+				low = mid + 1;
+			} else if (value > target) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	private int getTarget(int source, int slot) {
+		return block(source).get(entry(source, OFFSET) + 2 * slot);
+	}
+
+	private int getWeight(int source, int slot) {
+		return block(source).get(entry(source, OFFSET) + 2 * slot + 1);
+	}
+
+	private Integer put0(int source, int target, int weight, boolean add) {
+		int slot = search(source, target);
+		if (slot >= 0) {
+			IntBuffer block = block(source);
+			int position = entry(source, OFFSET) + 2 * slot + 1;
+			int result = block.get(position);
+			block.put(position, add ? result + weight : weight);
+			return result;
+		}
+		slot = -slot - 1;
+		int degree = entry(source, DEGREE);
+		int sizeClass = entry(source, SIZE_CLASS);
+		if (sizeClass == NO_BLOCK) {
+			allocate(source, 1);
+		} else if (degree == 1 << sizeClass) {
+			if (sizeClass == MAX_SIZE_CLASS) {
+				throw new UnsupportedOperationException("Maximum out degree exceeded!");
+			}
+			IntBuffer oldBlock = block(source);
+			int oldOffset = entry(source, OFFSET);
+			int oldChunk = entry(source, CHUNK);
+			allocate(source, sizeClass + 1);
+			IntBuffer block = block(source);
+			int offset = entry(source, OFFSET);
+			for (int i = 0; i < 2 * degree; i++) {
+				block.put(offset + i, oldBlock.get(oldOffset + i));
+			}
+			release(oldChunk, oldOffset, sizeClass);
+		}
+		IntBuffer block = block(source);
+		int offset = entry(source, OFFSET);
+		for (int i = 2 * degree - 1; i >= 2 * slot; i--) {
+			block.put(offset + i + 2, block.get(offset + i));
+		}
+		block.put(offset + 2 * slot, target);
+		block.put(offset + 2 * slot + 1, weight);
+		entry(source, DEGREE, degree + 1);
+		edgeCount++;
+		return null;
+	}
+
+	private int remove0(int source, int slot) {
+		IntBuffer block = block(source);
+		int offset = entry(source, OFFSET);
+		int degree = entry(source, DEGREE) - 1;
+		int result = block.get(offset + 2 * slot + 1);
+		for (int i = 2 * slot; i < 2 * degree; i++) {
+			block.put(offset + i, block.get(offset + i + 2));
+		}
+		if (degree == 0) {
+			free(source);
+		} else {
+			entry(source, DEGREE, degree);
+		}
+		edgeCount--;
+		return result;
+	}
+
+	@Override
+	public boolean add(V vertex) {
+		int count = vertexCount;
+		add0(vertex);
+		return vertexCount > count;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if <code>edge == null</code>
+	 */
+	@Override
+	public Integer put(V source, V target, Integer edge) {
+		checkOpen();
+		if (edge == null) {
+			throw new IllegalArgumentException("Cannot add edge null!");
+		}
+		return put0(add0(source), add0(target), edge.intValue(), false);
+	}
+
+	@Override
+	public void add(V source, V target, int weight) {
+		put0(add0(source), add0(target), weight, true);
+	}
+
+	@Override
+	public Integer get(Object source, Object target) {
+		int s = id(source);
+		int t = id(target);
+		if (s < 0 || t < 0) {
+			return null;
+		}
+		int slot = search(s, t);
+		return slot < 0 ? null : Integer.valueOf(getWeight(s, slot));
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		int s = id(source);
+		int t = id(target);
+		return s >= 0 && t >= 0 && search(s, t) >= 0;
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return id(vertex) >= 0;
+	}
+
+	@Override
+	public Integer remove(V source, V target) {
+		int s = id(source);
+		int t = id(target);
+		if (s < 0 || t < 0) {
+			return null;
+		}
+		int slot = search(s, t);
+		return slot < 0 ? null : Integer.valueOf(remove0(s, slot));
+	}
+
+	@Override
+	public boolean remove(V vertex) {
+		int id = id(vertex);
+		if (id < 0) {
+			return false;
+		}
+		remove(id);
+		return true;
+	}
+
+	private void remove(int id) {
+		edgeCount -= entry(id, DEGREE);
+		free(id);
+		vertices.clear(id);
+		index.remove(index.getVertex(id));
+		vertexCount--;
+		for (int source = vertices.nextSetBit(0); source >= 0; source = vertices.nextSetBit(source + 1)) {
+			int slot = search(source, id);
+			if (slot >= 0) {
+				remove0(source, slot);
+			}
+		}
+	}
+
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		checkOpen();
+		BitSet ids = new BitSet();
+		for (V vertex : vertices) {
+			int id = id(vertex);
+			if (id >= 0) {
+				ids.set(id);
+				edgeCount -= entry(id, DEGREE);
+				free(id);
+				this.vertices.clear(id);
+				index.remove(vertex);
+				vertexCount--;
+			}
+		}
+		for (int source = this.vertices.nextSetBit(0); source >= 0; source = this.vertices.nextSetBit(source + 1)) {
+			int degree = entry(source, DEGREE);
+			if (degree > 0) {
+				IntBuffer block = block(source);
+				int offset = entry(source, OFFSET);
+				int slot = 0;
+				for (int i = 0; i < degree; i++) {
+					int target = block.get(offset + 2 * i);
+					if (!ids.get(target)) {
+						block.put(offset + 2 * slot, target);
+						block.put(offset + 2 * slot + 1, block.get(offset + 2 * i + 1));
+						slot++;
+					}
+				}
+				edgeCount -= degree - slot;
+				if (slot == 0) {
+					free(source);
+				} else {
+					entry(source, DEGREE, slot);
+				}
+			}
+		}
+	}
+
+	@Override
+	public Iterable<V> vertices() {
+		checkOpen();
+		if (vertexCount == 0) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					int next = vertices.nextSetBit(0);
+					int vertex = -1;
+
+					@Override
+					public boolean hasNext() {
+						checkOpen();
+						return next >= 0;
+					}
+
+					@Override
+					public V next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException("No more vertices");
+						}
+						vertex = next;
+						next = vertices.nextSetBit(next + 1);
+						return index.getVertex(vertex);
+					}
+
+					@Override
+					public void remove() {
+						if (vertex < 0) {
+							throw new IllegalStateException();
+						}
+						OffHeapDigraph.this.remove(vertex);
+						vertex = -1;
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Iterable<V> targets(Object source) {
+		final int id = id(source);
+		if (id < 0 || entry(id, DEGREE) == 0) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					int slot = 0;
+					boolean removable = false;
+
+					@Override
+					public boolean hasNext() {
+						checkOpen();
+						return vertices.get(id) && slot < entry(id, DEGREE);
+					}
+
+					@Override
+					public V next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException("No more vertices");
+						}
+						removable = true;
+						return index.getVertex(getTarget(id, slot++));
+					}
+
+					@Override
+					public void remove() {
+						if (!removable) {
+							throw new IllegalStateException();
+						}
+						remove0(id, --slot);
+						removable = false;
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public int getVertexCount() {
+		checkOpen();
+		return vertexCount;
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		int id = id(vertex);
+		return id < 0 ? 0 : entry(id, DEGREE);
+	}
+
+	@Override
+	public int getEdgeCount() {
+		checkOpen();
+		return edgeCount;
+	}
+
+	@Override
+	public int totalWeight() {
+		checkOpen();
+		int weight = 0;
+		for (int source = vertices.nextSetBit(0); source >= 0; source = vertices.nextSetBit(source + 1)) {
+			int degree = entry(source, DEGREE);
+			for (int slot = 0; slot < degree; slot++) {
+				weight += getWeight(source, slot);
+			}
+		}
+		return weight;
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		checkOpen();
+		return Digraphs.isAcyclic(this);
+	}
+
+	@Override
+	public OffHeapDigraph<V> reverse() {
+		checkOpen();
+		return Digraphs.<V,Integer,OffHeapDigraph<V>>reverse(this, OffHeapDigraph.<V>getDigraphFactory(chunkSize));
+	}
+
+	@Override
+	public OffHeapDigraph<V> subgraph(Set<V> vertices) {
+		checkOpen();
+		return Digraphs.<V,Integer,OffHeapDigraph<V>>subgraph(this, vertices, OffHeapDigraph.<V>getDigraphFactory(chunkSize));
+	}
+
+	/**
+	 * Release the direct buffers holding the adjacency structure.
+	 * The memory is reclaimed by the garbage collector, regardless of whether this digraph is still referenced.
+	 * Any further access to this digraph (including iterators obtained before) throws an
+	 * <code>IllegalStateException</code>; closing a closed digraph has no effect.
+	 */
+	@Override
+	public void close() {
+		table = null;
+		chunks = null;
+		vertices.clear();
+		vertexCount = 0;
+		edgeCount = 0;
+	}
+
+	/**
+	 * @return number of chunk slots in use, including slots of released chunks
+	 */
+	int getChunkCount() {
+		return chunkCount;
+	}
+
+	/**
+	 * @return number of <code>int</code>s allocated in chunks
+	 */
+	long getChunkCapacity() {
+		long capacity = 0;
+		for (int i = 0; i < chunkCount; i++) {
+			if (chunks[i] != null) {
+				capacity += chunks[i].capacity();
+			}
+		}
+		return capacity;
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		if (table == null) {
+			return b.append("(closed)").toString();
+		}
+		b.append("(");
+		Iterator<V> vertices = vertices().iterator();
+		while (vertices.hasNext()) {
+			V v = vertices.next();
+			b.append(v);
+			b.append("[");
+			Iterator<V> targets = targets(v).iterator();
+			while (targets.hasNext()) {
+				b.append(targets.next());
+				if (targets.hasNext()) {
+					b.append(", ");
+				}
+			}
+			b.append("]");
+			if (vertices.hasNext()) {
+				b.append(", ");
+				if (b.length() > 1000) {
+					b.append("...");
+					break;
+				}
+			}
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel strongly connected components using the forward-backward algorithm with trimming.
+ * <p>
+ * A task owns a set of vertices, which all carry the task's label. It first trims vertices without
+ * in- or outgoing edges inside the set (these are singleton components). It then picks a pivot and
+ * determines its forward and backward reachable vertices inside the set. Their intersection is the
+ * pivot's component; the three remaining parts cannot share a component and are handled by new tasks.
+ * Large parts are handed to the executor, small parts are processed by the current task.
+ * <p>
+ * Tasks own disjoint vertex sets, so the shared per-vertex arrays are written by one task at a time.
+ *
+ * @param <V> vertex type
+ */
+class ParallelStronglyConnectedComponents<V> {
+	private static final int SEQUENTIAL_THRESHOLD = 4096;
+
+	private static final int FORWARD = 1;
+	private static final int BACKWARD = 2;
+
+	private final VertexIndex<V> index;
+	private final int[] outOffsets;
+	private final int[] outTargets;
+	private final int[] inOffsets;
+	private final int[] inSources;
+
+	private final int[] labels; // vertex -> task label, -1 once assigned to a component
+	private final int[] components; // vertex -> component number
+	private final int[] inDegrees;
+	private final int[] outDegrees;
+	private final int[] marks;
+
+	private final AtomicInteger labelCount = new AtomicInteger();
+	private final AtomicInteger componentCount = new AtomicInteger();
+
+	private ExecutorService executor;
+	private AtomicInteger pending;
+	private CountDownLatch done;
+	private AtomicReference<Throwable> failure;
+
+	ParallelStronglyConnectedComponents(Digraph<V,?> digraph) {
+		index = new VertexIndex<V>(digraph);
+		int n = index.size();
+
+		outOffsets = new int[n + 1];
+		inOffsets = new int[n + 1];
+		for (int source = 0; source < n; source++) {
+			int degree = 0;
+			for (V target : digraph.targets(index.getVertex(source))) {
+				inOffsets[index.getId(target) + 1]++;
+				degree++;
+			}
+			outOffsets[source + 1] = outOffsets[source] + degree;
+		}
+		for (int target = 0; target < n; target++) {
+			inOffsets[target + 1] += inOffsets[target];
+		}
+		int m = outOffsets[n];
+		outTargets = new int[m];
+		inSources = new int[m];
+		int[] positions = new int[n];
+		for (int source = 0; source < n; source++) {
+			int slot = outOffsets[source];
+			for (V vertex : digraph.targets(index.getVertex(source))) {
+				int target = index.getId(vertex);
+				outTargets[slot++] = target;
+				inSources[inOffsets[target] + positions[target]++] = source;
+			}
+		}
+
+		labels = new int[n];
+		components = new int[n];
+		inDegrees = new int[n];
+		outDegrees = new int[n];
+		marks = new int[n];
+	}
+
+	private class Task implements Runnable {
+		private final int[] vertices;
+		private final int label;
+
+		Task(int[] vertices, int label) {
+			this.vertices = vertices;
+			this.label = label;
+		}
+
+		@Override
+		public void run() {
+			try {
+				List<Task> tasks = new ArrayList<Task>();
+				tasks.add(this);
+				while (!tasks.isEmpty()) {
+					tasks.remove(tasks.size() - 1).decompose(tasks);
+				}
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+			} finally {
+				if (pending.decrementAndGet() == 0) {
+					done.countDown();
+				}
+			}
+		}
+
+		private void decompose(List<Task> tasks) {
+			int size = trim();
+			if (size == 0) {
+				return;
+			}
+
+			// pick pivot
+			int pivot = -1;
+			for (int vertex : vertices) {
+				if (labels[vertex] == label) {
+					pivot = vertex;
+					break;
+				}
+			}
+
+			// forward and backward search
+			int[] stack = new int[size];
+			search(pivot, outOffsets, outTargets, FORWARD, stack);
+			search(pivot, inOffsets, inSources, BACKWARD, stack);
+
+			// split
+			int component = componentCount.getAndIncrement();
+			int forwardSize = 0, backwardSize = 0, remainingSize = 0;
+			for (int vertex : vertices) {
+				if (labels[vertex] == label) {
+					switch (marks[vertex]) {
+					case FORWARD | BACKWARD:
+						labels[vertex] = -1;
+						components[vertex] = component;
+						marks[vertex] = 0;
+						break;
+					case FORWARD:
+						forwardSize++;
+						break;
+					case BACKWARD:
+						backwardSize++;
+						break;
+					default:
+						remainingSize++;
+					}
+				}
+			}
+			int[] forward = new int[forwardSize];
+			int[] backward = new int[backwardSize];
+			int[] remaining = new int[remainingSize];
+			int forwardLabel = labelCount.incrementAndGet();
+			int backwardLabel = labelCount.incrementAndGet();
+			int remainingLabel = labelCount.incrementAndGet();
+			forwardSize = backwardSize = remainingSize = 0;
+			for (int vertex : vertices) {
+				if (labels[vertex] == label) {
+					switch (marks[vertex]) {
+					case FORWARD:
+						labels[vertex] = forwardLabel;
+						forward[forwardSize++] = vertex;
+						break;
+					case BACKWARD:
+						labels[vertex] = backwardLabel;
+						backward[backwardSize++] = vertex;
+						break;
+					default:
+						labels[vertex] = remainingLabel;
+						remaining[remainingSize++] = vertex;
+					}
+					marks[vertex] = 0;
+				}
+			}
+			fork(new Task(forward, forwardLabel), tasks);
+			fork(new Task(backward, backwardLabel), tasks);
+			fork(new Task(remaining, remainingLabel), tasks);
+		}
+
+		/**
+		 * Repeatedly remove vertices without in- or outgoing edges inside the set.
+		 * @return number of remaining vertices
+		 */
+		private int trim() {
+			int[] queue = new int[vertices.length];
+			int head = 0, tail = 0;
+			for (int vertex : vertices) {
+				inDegrees[vertex] = degree(vertex, inOffsets, inSources);
+				outDegrees[vertex] = degree(vertex, outOffsets, outTargets);
+			}
+			for (int vertex : vertices) {
+				if (inDegrees[vertex] == 0 || outDegrees[vertex] == 0) {
+					labels[vertex] = -1;
+					components[vertex] = componentCount.getAndIncrement();
+					queue[tail++] = vertex;
+				}
+			}
+			while (head < tail) {
+				int vertex = queue[head++];
+				for (int i = outOffsets[vertex]; i < outOffsets[vertex + 1]; i++) {
+					int target = outTargets[i];
+					if (labels[target] == label && --inDegrees[target] == 0) {
+						labels[target] = -1;
+						components[target] = componentCount.getAndIncrement();
+						queue[tail++] = target;
+					}
+				}
+				for (int i = inOffsets[vertex]; i < inOffsets[vertex + 1]; i++) {
+					int source = inSources[i];
+					if (labels[source] == label && --outDegrees[source] == 0) {
+						labels[source] = -1;
+						components[source] = componentCount.getAndIncrement();
+						queue[tail++] = source;
+					}
+				}
+			}
+			return vertices.length - tail;
+		}
+
+		private int degree(int vertex, int[] offsets, int[] adjacent) {
+			int degree = 0;
+			for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+				if (labels[adjacent[i]] == label) {
+					degree++;
+				}
+			}
+			return degree;
+		}
+
+		private void search(int pivot, int[] offsets, int[] adjacent, int mark, int[] stack) {
+			int size = 0;
+			marks[pivot] |= mark;
+			stack[size++] = pivot;
+			while (size > 0) {
+				int vertex = stack[--size];
+				for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+					int next = adjacent[i];
+					if (labels[next] == label && (marks[next] & mark) == 0) {
+						marks[next] |= mark;
+						stack[size++] = next;
+					}
+				}
+			}
+		}
+	}
+
+	private void fork(Task task, List<Task> tasks) {
+		if (task.vertices.length == 0) {
+			return;
+		}
+		if (executor != null && task.vertices.length >= SEQUENTIAL_THRESHOLD) {
+			pending.incrementAndGet();
+			executor.execute(task);
+		} else {
+			tasks.add(task);
+		}
+	}
+
+	/**
+	 * Compute components.
+	 * @param numberOfThreads number of threads; if <code>0</code>, compute in the current thread
+	 * @return components (in no particular order)
+	 * @throws InterruptedException if interrupted while waiting for the computation to finish
+	 */
+	List<Set<V>> compute(int numberOfThreads) throws InterruptedException {
+		int n = index.size();
+		int[] vertices = new int[n];
+		for (int vertex = 0; vertex < n; vertex++) {
+			vertices[vertex] = vertex;
+		}
+		pending = new AtomicInteger(1);
+		done = new CountDownLatch(1);
+		failure = new AtomicReference<Throwable>();
+		Task task = new Task(vertices, 0);
+		if (numberOfThreads <= 0 || n < SEQUENTIAL_THRESHOLD) {
+			task.run();
+		} else {
+			executor = Executors.newFixedThreadPool(numberOfThreads);
+			try {
+				executor.execute(task);
+				done.await();
+			} finally {
+				executor.shutdownNow();
+				executor = null;
+			}
+		}
+		if (failure.get() instanceof RuntimeException) {
+			throw (RuntimeException)failure.get();
+		}
+		if (failure.get() instanceof Error) {
+			throw (Error)failure.get();
+		}
+
+		List<Set<V>> result = new ArrayList<Set<V>>(componentCount.get());
+		for (int i = componentCount.get(); i > 0; i--) {
+			result.add(null);
+		}
+		for (int vertex = 0; vertex < n; vertex++) {
+			Set<V> component = result.get(components[vertex]);
+			if (component == null) {
+				result.set(components[vertex], component = new HashSet<V>());
+			}
+			component.add(index.getVertex(vertex));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Persistent directed graph implementation.
+ * <p>
+ * Vertex and edge maps are immutable hash array mapped tries. Updates create new tries
+ * sharing unchanged parts with the previous version, so taking a {@link #snapshot()} is
+ * a constant time operation. Snapshots are read-only and never change.
+ * <p>
+ * Updates are synchronized; read operations never block and see the latest published version.
+ * Iterators work on the version current at the time of their creation.
+ * Vertices and edge targets are iterated in no particular order.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class PersistentDigraph<V, E> implements Digraph<V, E> {
+	/**
+	 * Factory creating <code>PersistentDigraph</code>.
+	 * @return persistent digraph factory
+	 */
+	public static <V, E> DigraphFactory<PersistentDigraph<V, E>> getDigraphFactory() {
+		return new DigraphFactory<PersistentDigraph<V, E>>() {
+			@Override
+			public PersistentDigraph<V, E> create() {
+				return new PersistentDigraph<V, E>();
+			}
+		};
+	}
+
+	/**
+	 * Immutable digraph version.
+	 */
+	private static final class Version<V, E> {
+		final HashTrie<V, HashTrie<V, E>> vertexMap;
+		final int edgeCount;
+
+		Version(HashTrie<V, HashTrie<V, E>> vertexMap, int edgeCount) {
+			this.vertexMap = vertexMap;
+			this.edgeCount = edgeCount;
+		}
+	}
+
+	private volatile Version<V, E> version;
+	private final boolean readonly;
+
+	/**
+	 * Create digraph.
+	 */
+	public PersistentDigraph() {
+		this(new Version<V, E>(HashTrie.<V, HashTrie<V, E>>empty(), 0), false);
+	}
+
+	private PersistentDigraph(Version<V, E> version, boolean readonly) {
+		this.version = version;
+		this.readonly = readonly;
+	}
+
+	/**
+	 * Take a snapshot of this digraph. This is a constant time operation.
+	 * @return read-only digraph representing the current state of this digraph
+	 */
+	public PersistentDigraph<V, E> snapshot() {
+		return readonly ? this : new PersistentDigraph<V, E>(version, true);
+	}
+
+	/**
+	 * @return <code>true</code> if this digraph is a snapshot
+	 */
+	public boolean isSnapshot() {
+		return readonly;
+	}
+
+	private void checkWritable() {
+		if (readonly) {
+			throw new UnsupportedOperationException("This digraph is readonly!");
+		}
+	}
+
+	@Override
+	public synchronized boolean add(V vertex) {
+		checkWritable();
+		Version<V, E> version = this.version;
+		if (version.vertexMap.containsKey(vertex)) {
+			return false;
+		}
+		this.version = new Version<V, E>(version.vertexMap.put(vertex, HashTrie.<V, E>empty()), version.edgeCount);
+		return true;
+	}
+
+	@Override
+	public synchronized E put(V source, V target, E edge) {
+		checkWritable();
+		Version<V, E> version = this.version;
+		HashTrie<V, HashTrie<V, E>> vertexMap = version.vertexMap;
+		HashTrie<V, E> edgeMap = vertexMap.get(source);
+		if (edgeMap == null) {
+			edgeMap = HashTrie.empty();
+		}
+		HashTrie.Entry<V, E> existing = edgeMap.entry(target);
+		vertexMap = vertexMap.put(source, edgeMap.put(target, edge));
+		if (!vertexMap.containsKey(target)) {
+			vertexMap = vertexMap.put(target, HashTrie.<V, E>empty());
+		}
+		this.version = new Version<V, E>(vertexMap, existing == null ? version.edgeCount + 1 : version.edgeCount);
+		return existing == null ? null : existing.value;
+	}
+
+	@Override
+	public E get(Object source, Object target) {
+		HashTrie<V, E> edgeMap = version.vertexMap.get(source);
+		if (edgeMap == null) {
+			return null;
+		}
+		return edgeMap.get(target);
+	}
+
+	@Override
+	public synchronized E remove(V source, V target) {
+		checkWritable();
+		Version<V, E> version = this.version;
+		HashTrie<V, E> edgeMap = version.vertexMap.get(source);
+		if (edgeMap == null) {
+			return null;
+		}
+		HashTrie.Entry<V, E> existing = edgeMap.entry(target);
+		if (existing == null) {
+			return null;
+		}
+		this.version = new Version<V, E>(version.vertexMap.put(source, edgeMap.remove(target)), version.edgeCount - 1);
+		return existing.value;
+	}
+
+	@Override
+	public synchronized boolean remove(V vertex) {
+		checkWritable();
+		Version<V, E> version = this.version;
+		HashTrie<V, E> edgeMap = version.vertexMap.get(vertex);
+		if (edgeMap == null) {
+			return false;
+		}
+		int edgeCount = version.edgeCount - edgeMap.size();
+		HashTrie<V, HashTrie<V, E>> vertexMap = version.vertexMap.remove(vertex);
+		for (HashTrie.Entry<V, HashTrie<V, E>> entry : vertexMap) {
+			if (entry.value.containsKey(vertex)) {
+				vertexMap = vertexMap.put(entry.key, entry.value.remove(vertex));
+				edgeCount--;
+			}
+		}
+		this.version = new Version<V, E>(vertexMap, edgeCount);
+		return true;
+	}
+
+	@Override
+	public synchronized void removeAll(Collection<V> vertices) {
+		checkWritable();
+		Version<V, E> version = this.version;
+		HashTrie<V, HashTrie<V, E>> vertexMap = version.vertexMap;
+		int edgeCount = version.edgeCount;
+		for (V vertex : vertices) {
+			HashTrie<V, E> edgeMap = vertexMap.get(vertex);
+			if (edgeMap != null) {
+				edgeCount -= edgeMap.size();
+				vertexMap = vertexMap.remove(vertex);
+			}
+		}
+		for (HashTrie.Entry<V, HashTrie<V, E>> entry : vertexMap) {
+			HashTrie<V, E> edgeMap = entry.value;
+			for (HashTrie.Entry<V, E> edge : entry.value) {
+				if (vertices.contains(edge.key)) {
+					edgeMap = edgeMap.remove(edge.key);
+					edgeCount--;
+				}
+			}
+			if (edgeMap != entry.value) {
+				vertexMap = vertexMap.put(entry.key, edgeMap);
+			}
+		}
+		this.version = new Version<V, E>(vertexMap, edgeCount);
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		HashTrie<V, E> edgeMap = version.vertexMap.get(source);
+		if (edgeMap == null) {
+			return false;
+		}
+		return edgeMap.containsKey(target);
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return version.vertexMap.containsKey(vertex);
+	}
+
+	@Override
+	public Iterable<V> vertices() {
+		final HashTrie<V, HashTrie<V, E>> vertexMap = version.vertexMap;
+		if (vertexMap.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					Iterator<V> delegate = vertexMap.keys();
+					V vertex = null;
+					boolean removable = false;
+
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+
+					@Override
+					public V next() {
+						vertex = delegate.next();
+						removable = true;
+						return vertex;
+					}
+
+					@Override
+					public void remove() {
+						if (!removable) {
+							throw new IllegalStateException();
+						}
+						PersistentDigraph.this.remove(vertex);
+						removable = false;
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Iterable<V> targets(final Object source) {
+		final HashTrie<V, E> edgeMap = version.vertexMap.get(source);
+		if (edgeMap == null || edgeMap.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					Iterator<V> delegate = edgeMap.keys();
+					V target = null;
+					boolean removable = false;
+
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+
+					@Override
+					public V next() {
+						target = delegate.next();
+						removable = true;
+						return target;
+					}
+
+					@Override
+					public void remove() {
+						if (!removable) {
+							throw new IllegalStateException();
+						}
+						@SuppressWarnings("unchecked")
+						V v = (V) source;
+						PersistentDigraph.this.remove(v, target);
+						removable = false;
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public int getVertexCount() {
+		return version.vertexMap.size();
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		HashTrie<V, E> edgeMap = version.vertexMap.get(vertex);
+		if (edgeMap == null) {
+			return 0;
+		}
+		return edgeMap.size();
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return version.edgeCount;
+	}
+
+	/**
+	 * Create reverse digraph of the current version.
+	 */
+	@Override
+	public PersistentDigraph<V, E> reverse() {
+		return Digraphs.<V, E, PersistentDigraph<V, E>> reverse(snapshot(), PersistentDigraph.<V, E>getDigraphFactory());
+	}
+
+	/**
+	 * Create subgraph of the current version.
+	 */
+	@Override
+	public PersistentDigraph<V, E> subgraph(Set<V> vertices) {
+		return Digraphs.<V, E, PersistentDigraph<V, E>> subgraph(snapshot(), vertices, PersistentDigraph.<V, E>getDigraphFactory());
+	}
+
+	/**
+	 * Check the current version for cycles.
+	 */
+	@Override
+	public boolean isAcyclic() {
+		return Digraphs.isAcyclic(snapshot());
+	}
+
+	@Override
+	public String toString() {
+		PersistentDigraph<V, E> snapshot = snapshot();
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		b.append("(");
+		Iterator<V> vertices = snapshot.vertices().iterator();
+		while (vertices.hasNext()) {
+			V v = vertices.next();
+			b.append(v);
+			b.append("[");
+			Iterator<V> targets = snapshot.targets(v).iterator();
+			while (targets.hasNext()) {
+				b.append(targets.next());
+				if (targets.hasNext()) {
+					b.append(", ");
+				}
+			}
+			b.append("]");
+			if (vertices.hasNext()) {
+				b.append(", ");
+				if (b.length() > 1000) {
+					b.append("...");
+					break;
+				}
+			}
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Reverse view of a doubled digraph.
+ * The view is backed by the digraph, so changes to either graph are reflected in the other.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+class ReverseDigraph<V, E> implements DoubledDigraph<V, E> {
+	private final DoubledDigraph<V, E> digraph;
+
+	ReverseDigraph(DoubledDigraph<V, E> digraph) {
+		this.digraph = digraph;
+	}
+
+	@Override
+	public boolean add(V vertex) {
+		return digraph.add(vertex);
+	}
+
+	@Override
+	public E put(V source, V target, E edge) {
+		return digraph.put(target, source, edge);
+	}
+
+	@Override
+	public E get(Object source, Object target) {
+		return digraph.get(target, source);
+	}
+
+	@Override
+	public E remove(V source, V target) {
+		return digraph.remove(target, source);
+	}
+
+	@Override
+	public boolean remove(V vertex) {
+		return digraph.remove(vertex);
+	}
+
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		digraph.removeAll(vertices);
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		return digraph.contains(target, source);
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return digraph.contains(vertex);
+	}
+
+	@Override
+	public Iterable<V> vertices() {
+		return digraph.vertices();
+	}
+
+	@Override
+	public Iterable<V> targets(Object source) {
+		return digraph.sources(source);
+	}
+
+	@Override
+	public Iterable<V> sources(Object target) {
+		return digraph.targets(target);
+	}
+
+	@Override
+	public int getVertexCount() {
+		return digraph.getVertexCount();
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		return digraph.getInDegree(vertex);
+	}
+
+	@Override
+	public int getInDegree(Object vertex) {
+		return digraph.getOutDegree(vertex);
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return digraph.getEdgeCount();
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		return digraph.isAcyclic();
+	}
+
+	@Override
+	public DoubledDigraph<V, E> reverse() {
+		return digraph;
+	}
+
+	@Override
+	public Digraph<V, E> subgraph(Set<V> vertices) {
+		return Digraphs.<V, E, Digraph<V, E>> subgraph(this, vertices, MapDigraph.<V, E> getDefaultDigraphFactory());
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		b.append("(");
+		Iterator<V> vertices = vertices().iterator();
+		while (vertices.hasNext()) {
+			V v = vertices.next();
+			b.append(v);
+			b.append("[");
+			Iterator<V> targets = targets(v).iterator();
+			while (targets.hasNext()) {
+				b.append(targets.next());
+				if (targets.hasNext()) {
+					b.append(", ");
+				}
+			}
+			b.append("]");
+			if (vertices.hasNext()) {
+				b.append(", ");
+				if (b.length() > 1000) {
+					b.append("...");
+					break;
+				}
+			}
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
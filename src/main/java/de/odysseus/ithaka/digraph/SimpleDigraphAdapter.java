@@ -15,7 +15,6 @@
  */
 package de.odysseus.ithaka.digraph;
 
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -105,9 +104,6 @@ public class SimpleDigraphAdapter<V> extends DigraphAdapter<V, Boolean> implemen
 	 * giving the number of edges between components in the original (this) graph.
 	 */
 	public WeightedDigraph<SimpleDigraph<V>> partition(boolean weak) {
-		// compute component sets
-		List<Set<V>> components = weak ? Digraphs.<V>wcc(this) : Digraphs.<V>scc(this);
-
 		// factory to create a digraph with simple V digraph vertices and Integer edges
 		DigraphFactory<? extends Digraph<SimpleDigraph<V>,Integer>> rawFactory =
 			MapDigraph.getDefaultDigraphFactory();
@@ -117,6 +113,9 @@ public class SimpleDigraphAdapter<V> extends DigraphAdapter<V, Boolean> implemen
 			WeightedDigraphAdapter.getAdapterFactory(rawFactory);
 
 		// answer partition graph
-		return Digraphs.partition(this, components, outerFactory, getDigraphFactory(), COUNT_CUMULATOR);
+		if (weak) {
+			return Digraphs.partition(this, Digraphs.<V>wcc(this), outerFactory, getDigraphFactory(), COUNT_CUMULATOR);
+		}
+		return new Condensation<V,Boolean>(this).toDigraph(outerFactory, getDigraphFactory());
 	}
 }
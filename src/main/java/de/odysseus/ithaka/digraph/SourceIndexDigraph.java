@@ -0,0 +1,227 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only doubled view of a plain digraph.
+ * Incoming edges are answered from a compact index, which is built on first access to
+ * {@link #sources(Object)} or {@link #getInDegree(Object)}. The view must not be used after
+ * the underlying digraph has been modified.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+class SourceIndexDigraph<V, E> implements DoubledDigraph<V, E> {
+	private final Digraph<V, E> digraph;
+
+	private VertexIndex<V> index;
+	private int[] offsets; // sources of vertex i are sources[offsets[i]], ..., sources[offsets[i + 1] - 1]
+	private int[] sources;
+
+	SourceIndexDigraph(Digraph<V, E> digraph) {
+		this.digraph = digraph;
+	}
+
+	private void buildIndex() {
+		if (index != null) {
+			return;
+		}
+		VertexIndex<V> index = new VertexIndex<V>(digraph);
+		int[] offsets = new int[index.size() + 1];
+		for (V source : digraph.vertices()) {
+			for (V target : digraph.targets(source)) {
+				offsets[index.getId(target) + 1]++;
+			}
+		}
+		for (int i = 0; i < index.size(); i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		int[] positions = offsets.clone();
+		int[] sources = new int[offsets[index.size()]];
+		for (V source : digraph.vertices()) {
+			int id = index.getId(source);
+			for (V target : digraph.targets(source)) {
+				sources[positions[index.getId(target)]++] = id;
+			}
+		}
+		this.offsets = offsets;
+		this.sources = sources;
+		this.index = index;
+	}
+
+	@Override
+	public int getInDegree(Object vertex) {
+		buildIndex();
+		int id = index.getId(vertex);
+		return id < 0 ? 0 : offsets[id + 1] - offsets[id];
+	}
+
+	@Override
+	public Iterable<V> sources(Object target) {
+		buildIndex();
+		final int id = index.getId(target);
+		if (id < 0 || offsets[id] == offsets[id + 1]) {
+			return Collections.emptySet();
+		}
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					int next = offsets[id];
+
+					@Override
+					public boolean hasNext() {
+						return next < offsets[id + 1];
+					}
+
+					@Override
+					public V next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException("No more vertices");
+						}
+						return index.getVertex(sources[next++]);
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException("This digraph is readonly!");
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public boolean add(V vertex) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public E put(V source, V target, E edge) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public E remove(V source, V target) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public boolean remove(V vertex) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public E get(Object source, Object target) {
+		return digraph.get(source, target);
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		return digraph.contains(source, target);
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return digraph.contains(vertex);
+	}
+
+	private Iterable<V> readonly(final Iterable<V> iterable) {
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				final Iterator<V> delegate = iterable.iterator();
+				return new Iterator<V>() {
+					@Override
+					public boolean hasNext() {
+						return delegate.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return delegate.next();
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException("This digraph is readonly!");
+					}
+				};
+			}
+
+			@Override
+			public String toString() {
+				return iterable.toString();
+			}
+		};
+	}
+
+	@Override
+	public Iterable<V> vertices() {
+		return readonly(digraph.vertices());
+	}
+
+	@Override
+	public Iterable<V> targets(Object source) {
+		return readonly(digraph.targets(source));
+	}
+
+	@Override
+	public int getVertexCount() {
+		return digraph.getVertexCount();
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		return digraph.getOutDegree(vertex);
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return digraph.getEdgeCount();
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		return digraph.isAcyclic();
+	}
+
+	@Override
+	public DoubledDigraph<V, E> reverse() {
+		return new ReverseDigraph<V, E>(this);
+	}
+
+	@Override
+	public Digraph<V, E> subgraph(Set<V> vertices) {
+		return digraph.subgraph(vertices);
+	}
+
+	@Override
+	public String toString() {
+		return digraph.toString();
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Strongly connected components.
+ * <p>
+ * Components are computed in a single, non-recursive pass using Pearce's variant of Tarjan's algorithm,
+ * which needs no reverse digraph. The vertices of all components are stored in one array, each component
+ * occupying a contiguous range. Components are numbered in topological order, i.e. there are only edges
+ * from a component to components with a greater number. The <code>List&lt;Set&lt;V&gt;&gt;</code>
+ * form is created on demand.
+ *
+ * @param <V> vertex type
+ */
+public class StronglyConnectedComponents<V> {
+	private final VertexIndex<V> index;
+	private final int[] components; // vertex id -> component number
+	private final Object[] vertices; // vertices grouped by component
+	private final int[] offsets; // component number -> start offset into vertices (plus end marker)
+
+	private List<Set<V>> sets;
+
+	/**
+	 * Compute the strongly connected components of the given digraph.
+	 * @param digraph digraph
+	 */
+	public StronglyConnectedComponents(Digraph<V,?> digraph) {
+		int n = digraph.getVertexCount();
+		this.index = new VertexIndex<V>(n);
+		this.components = new int[n];
+		this.vertices = new Object[n];
+
+		int[] rindex = components; // 0: undiscovered, > c: completed, otherwise active
+		boolean[] root = new boolean[n];
+		int[] stack = new int[n]; // vertices waiting for their component root
+		int size = 0;
+		int[] path = new int[n];
+		Object[] iterators = new Object[n];
+		int depth = 0;
+		int[] starts = new int[n];
+		int count = 0;
+		int position = n;
+		int next = 1;
+		int c = n;
+
+		for (V start : digraph.vertices()) {
+			if (rindex[index.add(start)] != 0) {
+				continue;
+			}
+			int v = index.getId(start);
+			rindex[v] = next++;
+			root[v] = true;
+			path[0] = v;
+			iterators[0] = digraph.targets(start).iterator();
+			depth = 1;
+			while (depth > 0) {
+				v = path[depth - 1];
+				@SuppressWarnings("unchecked")
+				Iterator<V> targets = (Iterator<V>)iterators[depth - 1];
+				if (targets.hasNext()) {
+					V target = targets.next();
+					int w = index.add(target);
+					if (rindex[w] == 0) {
+						rindex[w] = next++;
+						root[w] = true;
+						path[depth] = w;
+						iterators[depth] = digraph.targets(target).iterator();
+						depth++;
+					} else if (rindex[w] < rindex[v]) {
+						rindex[v] = rindex[w];
+						root[v] = false;
+					}
+				} else {
+					iterators[--depth] = null;
+					if (root[v]) {
+						next--;
+						while (size > 0 && rindex[v] <= rindex[stack[size - 1]]) {
+							int w = stack[--size];
+							rindex[w] = c;
+							vertices[--position] = index.getVertex(w);
+							next--;
+						}
+						rindex[v] = c--;
+						vertices[--position] = index.getVertex(v);
+						starts[count++] = position;
+					} else {
+						stack[size++] = v;
+					}
+					if (depth > 0) {
+						int u = path[depth - 1];
+						if (rindex[v] < rindex[u]) {
+							rindex[u] = rindex[v];
+							root[u] = false;
+						}
+					}
+				}
+			}
+		}
+
+		// components have been completed in reverse topological order
+		this.offsets = new int[count + 1];
+		for (int i = 0; i < count; i++) {
+			offsets[i] = starts[count - 1 - i];
+		}
+		offsets[count] = n;
+		for (int id = 0; id < n; id++) {
+			components[id] = rindex[id] - c - 1;
+		}
+	}
+
+	/**
+	 * @return number of components
+	 */
+	public int getComponentCount() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Get the component number of a vertex.
+	 * @param vertex vertex
+	 * @return component number or <code>-1</code> if <code>vertex</code> is not contained in the digraph
+	 */
+	public int getComponent(Object vertex) {
+		int id = index.getId(vertex);
+		return id < 0 ? -1 : components[id];
+	}
+
+	/**
+	 * Get the size of a component.
+	 * @param component component number
+	 * @return number of vertices in the component
+	 */
+	public int getComponentSize(int component) {
+		return offsets[component + 1] - offsets[component];
+	}
+
+	/**
+	 * Get the vertices of a component. The returned list is an unmodifiable view of the
+	 * component's range.
+	 * @param component component number
+	 * @return component vertices
+	 */
+	public List<V> getComponentVertices(final int component) {
+		final int offset = offsets[component];
+		final int size = getComponentSize(component);
+		return new AbstractList<V>() {
+			@Override
+			public V get(int i) {
+				if (i < 0 || i >= size) {
+					throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+				}
+				@SuppressWarnings("unchecked")
+				V vertex = (V)vertices[offset + i];
+				return vertex;
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * Get the components as sets. The sets are created on the first call.
+	 * @return list of components in topological order
+	 */
+	public List<Set<V>> getComponents() {
+		if (sets == null) {
+			sets = new ArrayList<Set<V>>(getComponentCount());
+			for (int i = 0; i < getComponentCount(); i++) {
+				sets.add(new HashSet<V>(getComponentVertices(i)));
+			}
+		}
+		return sets;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < getComponentCount(); i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(getComponentVertices(i));
+		}
+		return builder.append("]").toString();
+	}
+}
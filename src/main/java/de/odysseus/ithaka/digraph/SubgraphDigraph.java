@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only view of the subgraph induced by a set of vertices.
+ * Queries are answered by filtering the parent digraph through the vertex set;
+ * nothing is copied. Vertex and edge counts are computed on first request.
+ * The view must not be used after the parent digraph or the vertex set have been modified.
+ * Use {@link Digraphs#copy(Digraph, DigraphFactory)} to materialize the subgraph.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+class SubgraphDigraph<V, E> implements Digraph<V, E> {
+	private final Digraph<V, E> digraph;
+	private final Set<V> vertices;
+
+	private int vertexCount = -1;
+	private int edgeCount = -1;
+
+	SubgraphDigraph(Digraph<V, E> digraph, Set<V> vertices) {
+		this.digraph = digraph;
+		this.vertices = vertices;
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return vertices.contains(vertex) && digraph.contains(vertex);
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		return vertices.contains(source) && vertices.contains(target) && digraph.contains(source, target);
+	}
+
+	@Override
+	public E get(Object source, Object target) {
+		return vertices.contains(source) && vertices.contains(target) ? digraph.get(source, target) : null;
+	}
+
+	@Override
+	public boolean add(V vertex) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public E put(V source, V target, E edge) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public E remove(V source, V target) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public boolean remove(V vertex) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public void removeAll(Collection<V> vertices) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	/**
+	 * Filter the given vertices.
+	 * @param candidates vertices to filter
+	 * @param check whether candidates need to be checked against the parent digraph
+	 */
+	private Iterable<V> filter(final Iterable<V> candidates, final boolean check) {
+		return new Iterable<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				final Iterator<V> delegate = candidates.iterator();
+				return new Iterator<V>() {
+					V next;
+					boolean hasNext = advance();
+
+					private boolean advance() {
+						while (delegate.hasNext()) {
+							next = delegate.next();
+							if (check ? contains(next) : vertices.contains(next)) {
+								return true;
+							}
+						}
+						next = null;
+						return false;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return hasNext;
+					}
+
+					@Override
+					public V next() {
+						if (!hasNext) {
+							throw new NoSuchElementException("No more vertices");
+						}
+						V result = next;
+						hasNext = advance();
+						return result;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException("This digraph is readonly!");
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Iterable<V> vertices() {
+		return filter(vertices, true);
+	}
+
+	@Override
+	public Iterable<V> targets(Object source) {
+		if (!contains(source)) {
+			return Collections.emptySet();
+		}
+		return filter(digraph.targets(source), false);
+	}
+
+	@Override
+	public int getVertexCount() {
+		if (vertexCount < 0) {
+			int count = 0;
+			for (V vertex : vertices) {
+				if (digraph.contains(vertex)) {
+					count++;
+				}
+			}
+			vertexCount = count;
+		}
+		return vertexCount;
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		if (!contains(vertex)) {
+			return 0;
+		}
+		int degree = 0;
+		for (V target : digraph.targets(vertex)) {
+			if (vertices.contains(target)) {
+				degree++;
+			}
+		}
+		return degree;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		if (edgeCount < 0) {
+			int count = 0;
+			for (V vertex : vertices()) {
+				count += getOutDegree(vertex);
+			}
+			edgeCount = count;
+		}
+		return edgeCount;
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		return Digraphs.isAcyclic(this);
+	}
+
+	/**
+	 * Create reverse digraph (a copy).
+	 */
+	@Override
+	public Digraph<V, E> reverse() {
+		return Digraphs.<V, E, Digraph<V, E>> reverse(this, MapDigraph.<V, E> getDefaultDigraphFactory());
+	}
+
+	/**
+	 * Create subgraph view.
+	 */
+	@Override
+	public Digraph<V, E> subgraph(Set<V> vertices) {
+		Set<V> intersection = new HashSet<V>();
+		for (V vertex : vertices) {
+			if (this.vertices.contains(vertex)) {
+				intersection.add(vertex);
+			}
+		}
+		return new SubgraphDigraph<V, E>(digraph, intersection);
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		b.append("(");
+		Iterator<V> vertices = vertices().iterator();
+		while (vertices.hasNext()) {
+			V v = vertices.next();
+			b.append(v);
+			b.append("[");
+			Iterator<V> targets = targets(v).iterator();
+			while (targets.hasNext()) {
+				b.append(targets.next());
+				if (targets.hasNext()) {
+					b.append(", ");
+				}
+			}
+			b.append("]");
+			if (vertices.hasNext()) {
+				b.append(", ");
+				if (b.length() > 1000) {
+					b.append("...");
+					break;
+				}
+			}
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
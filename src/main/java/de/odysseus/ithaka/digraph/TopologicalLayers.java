@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Topological layers (Kahn's algorithm).
+ * Layer <code>0</code> contains the vertices without incoming edges, layer <code>i + 1</code> contains
+ * the vertices whose last predecessor has been released in layer <code>i</code>. The vertices of a
+ * layer are pairwise independent.
+ * <p>
+ * The digraph is copied into an <code>int</code> adjacency array once, in-degrees are kept in
+ * primitive counters. Layers are appended to a single queue, so each layer is a range of it.
+ * Large layers may be processed in parallel: each task releases the targets of a chunk of the
+ * current layer, decrementing shared atomic counters.
+ *
+ * @param <V> vertex type
+ */
+class TopologicalLayers<V> {
+	private static final int CHUNK_SIZE = 1024;
+
+	private final VertexIndex<V> index;
+	private final int[] offsets;
+	private final int[] targets;
+
+	TopologicalLayers(Digraph<V,?> digraph) {
+		index = new VertexIndex<V>(digraph);
+		int n = index.size();
+		offsets = new int[n + 1];
+		int[] targets = new int[digraph.getEdgeCount()];
+		int m = 0;
+		for (int source = 0; source < n; source++) {
+			for (V target : digraph.targets(index.getVertex(source))) {
+				if (m == targets.length) {
+					targets = Arrays.copyOf(targets, 2 * m + 1);
+				}
+				targets[m++] = index.getId(target);
+			}
+			offsets[source + 1] = m;
+		}
+		this.targets = targets;
+	}
+
+	private class Release implements Callable<int[]> {
+		private final AtomicIntegerArray inDegrees;
+		private final int[] queue;
+		private final int start;
+		private final int end;
+
+		Release(AtomicIntegerArray inDegrees, int[] queue, int start, int end) {
+			this.inDegrees = inDegrees;
+			this.queue = queue;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int[] call() {
+			int[] released = new int[16];
+			int size = 0;
+			for (int i = start; i < end; i++) {
+				int source = queue[i];
+				for (int j = offsets[source]; j < offsets[source + 1]; j++) {
+					if (inDegrees.decrementAndGet(targets[j]) == 0) {
+						if (size == released.length) {
+							released = Arrays.copyOf(released, 2 * size);
+						}
+						released[size++] = targets[j];
+					}
+				}
+			}
+			return Arrays.copyOf(released, size);
+		}
+	}
+
+	/**
+	 * Compute layers.
+	 * @param numberOfThreads number of threads; if <code>0</code>, compute in the current thread
+	 * @return layers
+	 * @throws IllegalArgumentException if the digraph contains a cycle
+	 * @throws InterruptedException if interrupted while waiting for a layer to be processed
+	 */
+	List<List<V>> compute(int numberOfThreads) throws InterruptedException {
+		int n = index.size();
+		int[] inDegrees = new int[n];
+		for (int target : targets) {
+			inDegrees[target]++;
+		}
+		int[] queue = new int[n];
+		int size = 0;
+		for (int vertex = 0; vertex < n; vertex++) {
+			if (inDegrees[vertex] == 0) {
+				queue[size++] = vertex;
+			}
+		}
+
+		List<Integer> ends = new ArrayList<Integer>();
+		ExecutorService executor = numberOfThreads > 0 ? Executors.newFixedThreadPool(numberOfThreads) : null;
+		try {
+			AtomicIntegerArray counters = executor != null ? new AtomicIntegerArray(inDegrees) : null;
+			int start = 0;
+			while (start < size) {
+				int end = size;
+				ends.add(end);
+				if (executor != null && end - start >= 2 * CHUNK_SIZE) {
+					List<Release> tasks = new ArrayList<Release>();
+					for (int i = start; i < end; i += CHUNK_SIZE) {
+						tasks.add(new Release(counters, queue, i, Math.min(i + CHUNK_SIZE, end)));
+					}
+					for (Future<int[]> future : executor.invokeAll(tasks)) {
+						int[] released = future.get();
+						System.arraycopy(released, 0, queue, size, released.length);
+						size += released.length;
+					}
+				} else {
+					for (int i = start; i < end; i++) {
+						int source = queue[i];
+						for (int j = offsets[source]; j < offsets[source + 1]; j++) {
+							int target = targets[j];
+							if (counters != null ? counters.decrementAndGet(target) == 0 : --inDegrees[target] == 0) {
+								queue[size++] = target;
+							}
+						}
+					}
+				}
+				start = end;
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+		if (size < n) {
+			throw new IllegalArgumentException("Digraph is not acyclic!");
+		}
+
+		List<List<V>> layers = new ArrayList<List<V>>(ends.size());
+		int start = 0;
+		for (int end : ends) {
+			List<V> layer = new ArrayList<V>(end - start);
+			for (int i = start; i < end; i++) {
+				layer.add(index.getVertex(queue[i]));
+			}
+			layers.add(layer);
+			start = end;
+		}
+		return layers;
+	}
+}
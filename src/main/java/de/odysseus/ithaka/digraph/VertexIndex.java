@@ -0,0 +1,222 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Vertex index, assigning dense <code>int</code> ids <code>0, 1, 2, ...</code> to vertices.
+ * Once assigned, a vertex keeps its id until it is removed, so vertices are hashed only when
+ * translating between vertices and ids. Ids of removed vertices are reused by subsequently
+ * added vertices, so the id range doesn't grow beyond the maximum number of vertices held
+ * at any time.
+ *
+ * @param <V> vertex type
+ */
+public class VertexIndex<V> {
+	/**
+	 * Read-only view of an index.
+	 */
+	private static final class UnmodifiableIndex<V> extends VertexIndex<V> {
+		private final VertexIndex<V> index;
+
+		UnmodifiableIndex(VertexIndex<V> index) {
+			super(0);
+			this.index = index;
+		}
+
+		@Override
+		public int add(V vertex) {
+			throw new UnsupportedOperationException("This index is readonly!");
+		}
+
+		@Override
+		public int remove(Object vertex) {
+			throw new UnsupportedOperationException("This index is readonly!");
+		}
+
+		@Override
+		public boolean contains(Object vertex) {
+			return index.contains(vertex);
+		}
+
+		@Override
+		public int getId(Object vertex) {
+			return index.getId(vertex);
+		}
+
+		@Override
+		public V getVertex(int id) {
+			return index.getVertex(id);
+		}
+
+		@Override
+		public int size() {
+			return index.size();
+		}
+
+		@Override
+		public int getVertexCount() {
+			return index.getVertexCount();
+		}
+
+		@Override
+		public String toString() {
+			return index.toString();
+		}
+	}
+
+	/**
+	 * Answer a read-only view of the given index. The view reflects subsequent changes of the
+	 * index, but its {@link #add(Object)} and {@link #remove(Object)} methods throw an
+	 * <code>UnsupportedOperationException</code>.
+	 * @param index vertex index
+	 * @return unmodifiable view of <code>index</code>
+	 */
+	public static <V> VertexIndex<V> unmodifiableIndex(VertexIndex<V> index) {
+		return index instanceof UnmodifiableIndex ? index : new UnmodifiableIndex<V>(index);
+	}
+
+	private final Map<Object,Integer> ids;
+	private Object[] vertices;
+	private int size;
+	private int[] free = new int[0]; // ids of removed vertices
+	private int freeCount;
+
+	/**
+	 * Create empty index.
+	 */
+	public VertexIndex() {
+		this(16);
+	}
+
+	/**
+	 * Create empty index.
+	 * @param capacity initial capacity
+	 */
+	public VertexIndex(int capacity) {
+		ids = new HashMap<Object,Integer>(Math.max(16, (int)(capacity / .75f) + 1));
+		vertices = new Object[capacity];
+	}
+
+	/**
+	 * Create index for the vertices of the given digraph. Ids are assigned in iteration order.
+	 * @param digraph digraph
+	 */
+	public VertexIndex(Digraph<? extends V, ?> digraph) {
+		this(digraph.getVertexCount());
+		for (V vertex : digraph.vertices()) {
+			add(vertex);
+		}
+	}
+
+	/**
+	 * Add vertex (if not already contained) and answer its id.
+	 * @param vertex vertex
+	 * @return vertex id
+	 */
+	public int add(V vertex) {
+		Integer id = ids.get(vertex);
+		if (id != null) {
+			return id.intValue();
+		}
+		if (freeCount > 0) {
+			int reused = free[--freeCount];
+			vertices[reused] = vertex;
+			ids.put(vertex, reused);
+			return reused;
+		}
+		if (size == vertices.length) {
+			vertices = Arrays.copyOf(vertices, Math.max(16, 2 * size));
+		}
+		vertices[size] = vertex;
+		ids.put(vertex, size);
+		return size++;
+	}
+
+	/**
+	 * Remove vertex. Its id will be assigned to another vertex by a subsequent {@link #add(Object)}.
+	 * @param vertex vertex
+	 * @return former vertex id or <code>-1</code> if no id has been assigned to <code>vertex</code>
+	 */
+	public int remove(Object vertex) {
+		Integer id = ids.remove(vertex);
+		if (id == null) {
+			return -1;
+		}
+		if (freeCount == free.length) {
+			free = Arrays.copyOf(free, Math.max(16, 2 * freeCount));
+		}
+		vertices[id] = null;
+		free[freeCount++] = id;
+		return id.intValue();
+	}
+
+	/**
+	 * Vertex test
+	 * @param vertex vertex
+	 * @return <code>true</code> iff an id has been assigned to <code>vertex</code>
+	 */
+	public boolean contains(Object vertex) {
+		return ids.containsKey(vertex);
+	}
+
+	/**
+	 * Get vertex id.
+	 * @param vertex vertex
+	 * @return vertex id or <code>-1</code> if no id has been assigned to <code>vertex</code>
+	 */
+	public int getId(Object vertex) {
+		Integer id = ids.get(vertex);
+		return id == null ? -1 : id.intValue();
+	}
+
+	/**
+	 * Get vertex by id.
+	 * @param id vertex id
+	 * @return vertex with the given id (<code>null</code> if the id is currently unused)
+	 * @throws IndexOutOfBoundsException if <code>id</code> has never been assigned
+	 */
+	public V getVertex(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("Id: " + id + ", Size: " + size);
+		}
+		@SuppressWarnings("unchecked")
+		V vertex = (V)vertices[id];
+		return vertex;
+	}
+
+	/**
+	 * @return id range (all ids are less than this)
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return number of vertices
+	 */
+	public int getVertexCount() {
+		return size - freeCount;
+	}
+
+	@Override
+	public String toString() {
+		return ids.toString();
+	}
+}
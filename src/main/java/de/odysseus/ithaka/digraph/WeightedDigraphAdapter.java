@@ -15,7 +15,6 @@
  */
 package de.odysseus.ithaka.digraph;
 
-import java.util.List;
 import java.util.Set;
 
 public class WeightedDigraphAdapter<V> extends DigraphAdapter<V, Integer> implements WeightedDigraph<V> {
@@ -91,9 +90,6 @@ public class WeightedDigraphAdapter<V> extends DigraphAdapter<V, Integer> implem
 	 * giving the sum of edge weights between components in the original (this) graph.
 	 */
 	public WeightedDigraph<WeightedDigraph<V>> partition(boolean weak) {
-		// compute component sets
-		List<Set<V>> components = weak ? Digraphs.<V>wcc(this) : Digraphs.<V>scc(this);
-
 		// factory to create a digraph with weighted V digraph vertices and Integer edges
 		DigraphFactory<? extends Digraph<WeightedDigraph<V>,Integer>> rawFactory =
 			MapDigraph.getDefaultDigraphFactory();
@@ -103,6 +99,9 @@ public class WeightedDigraphAdapter<V> extends DigraphAdapter<V, Integer> implem
 			WeightedDigraphAdapter.getAdapterFactory(rawFactory);
 
 		// answer partition graph
-		return Digraphs.partition(this, components, outerFactory, getDigraphFactory(), ADD_CUMULATOR);
+		if (weak) {
+			return Digraphs.partition(this, Digraphs.<V>wcc(this), outerFactory, getDigraphFactory(), ADD_CUMULATOR);
+		}
+		return new Condensation<V,Integer>(this, this).toDigraph(outerFactory, getDigraphFactory());
 	}
 }
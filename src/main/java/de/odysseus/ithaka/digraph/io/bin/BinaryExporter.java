@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.io.bin;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.odysseus.ithaka.digraph.Digraph;
+
+/**
+ * Binary digraph exporter. The written file can be loaded via {@link MappedDigraph}.
+ * <p>
+ * The format (all numbers are big-endian <code>int</code>s) consists of
+ * <ul>
+ * <li>a header: magic number, version, flags, vertex count <code>n</code>, edge count <code>m</code>,
+ * hash table size <code>h</code>, label bytes <code>l</code> and a reserved word,</li>
+ * <li>label offsets (<code>n + 1</code>), edge offsets (<code>n + 1</code>) and edge targets (<code>m</code>),</li>
+ * <li>edge weights (<code>m</code>), if the weights flag is set,</li>
+ * <li>an open addressing hash table mapping label hash codes to <code>id + 1</code> (<code>h</code>),</li>
+ * <li>the UTF-8 encoded vertex labels (<code>l</code> bytes).</li>
+ * </ul>
+ * Vertex ids are assigned in vertex iteration order; the targets of a vertex are sorted by id.
+ */
+public class BinaryExporter {
+	private final boolean weights;
+
+	/**
+	 * Create exporter without edge weights.
+	 */
+	public BinaryExporter() {
+		this(false);
+	}
+
+	/**
+	 * Create exporter.
+	 * @param weights whether to export edge weights
+	 */
+	public BinaryExporter(boolean weights) {
+		this.weights = weights;
+	}
+
+	/**
+	 * Export digraph.
+	 * @throws IllegalArgumentException if a vertex label is <code>null</code> or not unique
+	 */
+	public <V, E> void export(
+			BinaryProvider<? super V, ? super E> provider,
+			Digraph<? extends V, ? extends E> digraph,
+			OutputStream stream) throws IOException {
+		int n = digraph.getVertexCount();
+		int m = digraph.getEdgeCount();
+		Map<V, Integer> index = new HashMap<V, Integer>();
+		Map<String, Integer> labels = new HashMap<String, Integer>();
+		ByteArrayOutputStream labelBytes = new ByteArrayOutputStream();
+		int[] labelOffsets = new int[n + 1];
+		int size = 1;
+		while (size < 2 * n) {
+			size <<= 1;
+		}
+		int[] table = new int[size];
+		for (V vertex : digraph.vertices()) {
+			int id = index.size();
+			String label = provider.getVertexLabel(vertex);
+			if (label == null) {
+				throw new IllegalArgumentException("Vertex label must not be null: " + vertex);
+			}
+			if (labels.put(label, id) != null) {
+				throw new IllegalArgumentException("Duplicate vertex label: " + label);
+			}
+			index.put(vertex, id);
+			byte[] bytes = label.getBytes("UTF-8");
+			labelBytes.write(bytes);
+			labelOffsets[id + 1] = labelOffsets[id] + bytes.length;
+			int slot = MappedDigraph.hash(label) & (size - 1);
+			while (table[slot] != 0) {
+				slot = (slot + 1) & (size - 1);
+			}
+			table[slot] = id + 1;
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+		out.writeInt(MappedDigraph.MAGIC);
+		out.writeInt(MappedDigraph.VERSION);
+		out.writeInt(weights ? MappedDigraph.WEIGHTS : 0);
+		out.writeInt(n);
+		out.writeInt(m);
+		out.writeInt(size);
+		out.writeInt(labelBytes.size());
+		out.writeInt(0);
+		for (int offset : labelOffsets) {
+			out.writeInt(offset);
+		}
+
+		// sort edges (packed as target/weight pairs) by target id
+		long[][] edges = new long[n][];
+		int offset = 0;
+		out.writeInt(offset);
+		for (V source : digraph.vertices()) {
+			int id = index.get(source);
+			long[] row = new long[digraph.getOutDegree(source)];
+			int i = 0;
+			for (V target : digraph.targets(source)) {
+				int weight = weights ? provider.getEdgeWeight(digraph.get(source, target)) : 0;
+				row[i++] = ((long)index.get(target) << 32) | (weight & 0xFFFFFFFFL);
+			}
+			Arrays.sort(row);
+			edges[id] = row;
+			offset += row.length;
+			out.writeInt(offset);
+		}
+		if (offset != m) {
+			throw new IllegalArgumentException("Edge count mismatch: " + m + " != " + offset);
+		}
+		for (long[] row : edges) {
+			for (long edge : row) {
+				out.writeInt((int)(edge >>> 32));
+			}
+		}
+		if (weights) {
+			for (long[] row : edges) {
+				for (long edge : row) {
+					out.writeInt((int)edge);
+				}
+			}
+		}
+		for (int slot : table) {
+			out.writeInt(slot);
+		}
+		labelBytes.writeTo(out);
+		out.flush();
+	}
+}
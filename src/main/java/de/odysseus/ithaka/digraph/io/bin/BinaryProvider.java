@@ -0,0 +1,29 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.io.bin;
+
+public interface BinaryProvider<V, E> {
+	/**
+	 * Answer the vertex label. Labels must be unique and must not be <code>null</code>;
+	 * they identify vertices in the {@link MappedDigraph}.
+	 */
+	public String getVertexLabel(V vertex);
+
+	/**
+	 * Answer the edge weight. Only used when exporting weights.
+	 */
+	public int getEdgeWeight(E edge);
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.io.bin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.MapDigraph;
+
+/**
+ * Read-only digraph backed by a memory-mapped file written by {@link BinaryExporter}.
+ * Vertices are the labels, edges are the exported weights (<code>null</code> if the file has no weights).
+ * <p>
+ * Opening a file only maps its sections; nothing is copied into the heap. Vertex labels are decoded on access,
+ * vertex lookup uses the file's hash table. Since the mapping is read-only, its pages are shared
+ * with other processes mapping the same file.
+ * Each section (e.g. the edge targets) is limited to 2GB.
+ * <p>
+ * Call {@link #close()} to drop the mapped buffers as soon as the digraph is no longer used;
+ * the mapping itself is released when the garbage collector reclaims the buffers.
+ * Any further access throws an <code>IllegalStateException</code>.
+ */
+public class MappedDigraph implements Digraph<String, Integer>, Closeable {
+	static final int MAGIC = 0x44494752;
+	static final int VERSION = 1;
+	static final int WEIGHTS = 1;
+
+	private static final int HEADER_SIZE = 32;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	static int hash(String label) {
+		int h = label.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private final int vertexCount;
+	private final int edgeCount;
+	private final int tableSize;
+
+	private IntBuffer labelOffsets;
+	private IntBuffer edgeOffsets;
+	private IntBuffer targets;
+	private IntBuffer weights;
+	private IntBuffer table;
+	private ByteBuffer labels;
+
+	/**
+	 * Map the given file.
+	 * @param file file written by {@link BinaryExporter}
+	 * @throws IOException if the file cannot be read or is not a valid digraph file
+	 */
+	public MappedDigraph(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			if (channel.size() < HEADER_SIZE) {
+				throw new IOException("Not a digraph file: " + file);
+			}
+			IntBuffer header = map(channel, 0, HEADER_SIZE).asIntBuffer();
+			if (header.get(0) != MAGIC) {
+				throw new IOException("Not a digraph file: " + file);
+			}
+			if (header.get(1) != VERSION) {
+				throw new IOException("Unsupported version: " + header.get(1));
+			}
+			boolean weighted = (header.get(2) & WEIGHTS) != 0;
+			vertexCount = header.get(3);
+			edgeCount = header.get(4);
+			tableSize = header.get(5);
+			int labelSize = header.get(6);
+			if (vertexCount < 0 || edgeCount < 0 || labelSize < 0) {
+				throw new IOException("Corrupt digraph file: " + file);
+			}
+			// power of two with at least one empty slot to terminate probing
+			if (tableSize <= vertexCount || (tableSize & (tableSize - 1)) != 0) {
+				throw new IOException("Corrupt digraph file: " + file);
+			}
+
+			long position = HEADER_SIZE;
+			long expected = position + 8L * (vertexCount + 1) + 4L * edgeCount * (weighted ? 2 : 1) + 4L * tableSize + labelSize;
+			if (channel.size() < expected) {
+				throw new IOException("Truncated digraph file: " + file);
+			}
+			labelOffsets = map(channel, position, 4L * (vertexCount + 1)).asIntBuffer();
+			position += 4L * (vertexCount + 1);
+			edgeOffsets = map(channel, position, 4L * (vertexCount + 1)).asIntBuffer();
+			position += 4L * (vertexCount + 1);
+			targets = map(channel, position, 4L * edgeCount).asIntBuffer();
+			position += 4L * edgeCount;
+			if (weighted) {
+				weights = map(channel, position, 4L * edgeCount).asIntBuffer();
+				position += 4L * edgeCount;
+			}
+			table = map(channel, position, 4L * tableSize).asIntBuffer();
+			position += 4L * tableSize;
+			labels = map(channel, position, labelSize);
+		} finally {
+			raf.close(); // mappings stay valid
+		}
+	}
+
+	private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Section too large: " + size);
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+	}
+
+	private void checkOpen() {
+		if (table == null) {
+			throw new IllegalStateException("Digraph has been closed!");
+		}
+	}
+
+	private IntBuffer table() {
+		checkOpen();
+		return table;
+	}
+
+	/**
+	 * Answer vertex id or <code>-1</code>.
+	 */
+	private int id(Object vertex) {
+		checkOpen();
+		if (!(vertex instanceof String)) {
+			return -1;
+		}
+		String label = (String)vertex;
+		byte[] bytes = label.getBytes(UTF8);
+		IntBuffer table = table();
+		int mask = tableSize - 1;
+		int slot = hash(label) & mask;
+		int value;
+		for (int i = 0; i < tableSize && (value = table.get(slot)) != 0; i++) {
+			if (matches(value - 1, bytes)) {
+				return value - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private boolean matches(int id, byte[] bytes) {
+		int start = labelOffsets.get(id);
+		if (labelOffsets.get(id + 1) - start != bytes.length) {
+			return false;
+		}
+		for (int i = 0; i < bytes.length; i++) {
+			if (labels.get(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String label(int id) {
+		table(); // check open
+		int start = labelOffsets.get(id);
+		byte[] bytes = new byte[labelOffsets.get(id + 1) - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = labels.get(start + i);
+		}
+		return new String(bytes, UTF8);
+	}
+
+	/**
+	 * Answer edge position or <code>-1</code>.
+	 */
+	private int search(int source, int target) {
+		int low = edgeOffsets.get(source);
+		int high = edgeOffsets.get(source + 1) - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int value = targets.get(mid);
+			if (value < target) {
+				low = mid + 1;
+			} else if (value > target) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return <code>true</code> if the file contains edge weights
+	 */
+	public boolean isWeighted() {
+		checkOpen();
+		return weights != null;
+	}
+
+	/**
+	 * @return the weight of the edge from source to target or <code>null</code> if there is no
+	 * such edge or the file contains no weights (use {@link #contains(Object, Object)} to check for edges)
+	 */
+	@Override
+	public Integer get(Object source, Object target) {
+		int s = id(source);
+		int t = id(target);
+		if (s < 0 || t < 0 || weights == null) {
+			return null;
+		}
+		int position = search(s, t);
+		return position < 0 ? null : Integer.valueOf(weights.get(position));
+	}
+
+	@Override
+	public boolean contains(Object source, Object target) {
+		int s = id(source);
+		int t = id(target);
+		return s >= 0 && t >= 0 && search(s, t) >= 0;
+	}
+
+	@Override
+	public boolean contains(Object vertex) {
+		return id(vertex) >= 0;
+	}
+
+	@Override
+	public boolean add(String vertex) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public Integer put(String source, String target, Integer edge) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public Integer remove(String source, String target) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public boolean remove(String vertex) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public void removeAll(Collection<String> vertices) {
+		throw new UnsupportedOperationException("This digraph is readonly!");
+	}
+
+	@Override
+	public Iterable<String> vertices() {
+		checkOpen();
+		return range(0, vertexCount, false);
+	}
+
+	@Override
+	public Iterable<String> targets(Object source) {
+		int id = id(source);
+		if (id < 0) {
+			return Collections.emptySet();
+		}
+		return range(edgeOffsets.get(id), edgeOffsets.get(id + 1), true);
+	}
+
+	private Iterable<String> range(final int start, final int end, final boolean edges) {
+		return new Iterable<String>() {
+			@Override
+			public Iterator<String> iterator() {
+				return new Iterator<String>() {
+					int next = start;
+
+					@Override
+					public boolean hasNext() {
+						checkOpen();
+						return next < end;
+					}
+
+					@Override
+					public String next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException("No more vertices");
+						}
+						int id = next++;
+						return label(edges ? targets.get(id) : id);
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException("This digraph is readonly!");
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public int getVertexCount() {
+		checkOpen();
+		return vertexCount;
+	}
+
+	@Override
+	public int getOutDegree(Object vertex) {
+		int id = id(vertex);
+		return id < 0 ? 0 : edgeOffsets.get(id + 1) - edgeOffsets.get(id);
+	}
+
+	@Override
+	public int getEdgeCount() {
+		checkOpen();
+		return edgeCount;
+	}
+
+	@Override
+	public boolean isAcyclic() {
+		return Digraphs.isAcyclic(this);
+	}
+
+	/**
+	 * @return reverse digraph (a heap copy)
+	 */
+	@Override
+	public Digraph<String, Integer> reverse() {
+		return Digraphs.<String,Integer,Digraph<String,Integer>>reverse(this, MapDigraph.<String,Integer>getDefaultDigraphFactory());
+	}
+
+	/**
+	 * @return subgraph (a heap copy)
+	 */
+	@Override
+	public Digraph<String, Integer> subgraph(Set<String> vertices) {
+		return Digraphs.<String,Integer,Digraph<String,Integer>>subgraph(this, vertices, MapDigraph.<String,Integer>getDefaultDigraphFactory());
+	}
+
+	/**
+	 * Drop the mapped buffers. The mapping is released when the garbage collector reclaims them.
+	 * Any further access to this digraph (including iterators obtained before) throws an
+	 * <code>IllegalStateException</code>; closing a closed digraph has no effect.
+	 */
+	@Override
+	public void close() {
+		labelOffsets = null;
+		edgeOffsets = null;
+		targets = null;
+		weights = null;
+		table = null;
+		labels = null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer b = new StringBuffer();
+		b.append(getClass().getName().substring(getClass().getName().lastIndexOf('.') + 1));
+		if (table == null) {
+			return b.append("(closed)").toString();
+		}
+		b.append("(");
+		Iterator<String> vertices = vertices().iterator();
+		while (vertices.hasNext()) {
+			String v = vertices.next();
+			b.append(v);
+			b.append("[");
+			Iterator<String> targets = targets(v).iterator();
+			while (targets.hasNext()) {
+				b.append(targets.next());
+				if (targets.hasNext()) {
+					b.append(", ");
+				}
+			}
+			b.append("]");
+			if (vertices.hasNext()) {
+				b.append(", ");
+				if (b.length() > 1000) {
+					b.append("...");
+					break;
+				}
+			}
+		}
+		b.append(")");
+		return b.toString();
+	}
+}
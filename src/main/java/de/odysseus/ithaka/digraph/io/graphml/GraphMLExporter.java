@@ -28,6 +28,8 @@ import javax.xml.stream.XMLStreamWriter;
 
 import de.odysseus.ithaka.digraph.Digraph;
 import de.odysseus.ithaka.digraph.DigraphProvider;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.DoubledDigraph;
 
 /**
  * Export digraph as GraphML.
@@ -94,14 +96,15 @@ public class GraphMLExporter {
 		if (parseInfos.contains(GraphMLParseInfo.EdgeIds)) {
 			writer.writeAttribute("parse.edgeids", "canonical");
 		}
-		Digraph<?, ?> reverse = null;
+		DoubledDigraph<?, ?> doubled = null;
 		if (parseInfos.contains(GraphMLParseInfo.InDegree) || parseInfos.contains(GraphMLParseInfo.MaxInDegree)) {
-			reverse = digraph.reverse();
+			Digraph<? extends V, ?> graph = digraph;
+			doubled = Digraphs.doubledView(graph);
 		}
 		if (parseInfos.contains(GraphMLParseInfo.MaxInDegree)) {
 			int maxInDegree = 0;
 			for (V vertex : digraph.vertices()) {
-				maxInDegree = Math.max(maxInDegree, reverse.getOutDegree(vertex));
+				maxInDegree = Math.max(maxInDegree, doubled.getInDegree(vertex));
 			}
 			writer.writeAttribute("parse.maxindegree", String.valueOf(maxInDegree));
 		}
@@ -121,7 +124,7 @@ public class GraphMLExporter {
 			String id = idGenerator.nextNodeId();
 			writer.writeAttribute("id", id);
 			if (parseInfos.contains(GraphMLParseInfo.InDegree)) {
-				writer.writeAttribute("parse.indegree", String.valueOf(reverse.getOutDegree(vertex)));
+				writer.writeAttribute("parse.indegree", String.valueOf(doubled.getInDegree(vertex)));
 			}
 			if (parseInfos.contains(GraphMLParseInfo.OutDegree)) {
 				writer.writeAttribute("parse.outdegree", String.valueOf(digraph.getOutDegree(vertex)));
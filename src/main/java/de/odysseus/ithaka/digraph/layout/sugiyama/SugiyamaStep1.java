@@ -150,30 +150,19 @@ public class SugiyamaStep1<V,E> {
 	}
 
 	/**
-	 * Compute minimum layers for nodes
-	 * @param graph
+	 * Compute minimum layers for nodes (longest path layering).
+	 * Nodes are processed in topological order, pushing their targets below them.
+	 * @param graph acyclic layout graph
 	 * @return the maximum layer number
 	 */
-	private int minLayers(Digraph<SugiyamaNode<V>,SugiyamaArc<V,E>> graph) {
+	private int minLayers(DoubledDigraph<SugiyamaNode<V>,SugiyamaArc<V,E>> graph) {
 		int maxLayer = 0;
-		for (SugiyamaNode<V> node : graph.vertices()) {
-			if (graph.reverse().getOutDegree(node) == 0) {
-				maxLayer = Math.max(maxLayer, minLayers(graph, node));
-			}
-		}
-		return maxLayer;
-	}
-
-	/**
-	 * Compute minimum layers for nodes reachable from specified source
-	 * @return the maximum layer number
-	 */
-	private int minLayers(Digraph<SugiyamaNode<V>,SugiyamaArc<V,E>> graph, SugiyamaNode<V> source) {
-		int maxLayer = source.getLayer();
-		for (SugiyamaNode<V> target : graph.targets(source)) {
-			if (target.getLayer() <= source.getLayer()) {
-				target.setLayer(source.getLayer() + 1);
-				maxLayer = Math.max(maxLayer, minLayers(graph, target));
+		for (SugiyamaNode<V> source : Digraphs.topsort(graph, false)) {
+			maxLayer = Math.max(maxLayer, source.getLayer());
+			for (SugiyamaNode<V> target : graph.targets(source)) {
+				if (target.getLayer() <= source.getLayer()) {
+					target.setLayer(source.getLayer() + 1);
+				}
 			}
 		}
 		return maxLayer;
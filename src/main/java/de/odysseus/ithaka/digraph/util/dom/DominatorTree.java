@@ -0,0 +1,298 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.dom;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.VertexIndex;
+
+/**
+ * Dominator tree of a rooted digraph.
+ * <p>
+ * A vertex <code>a</code> dominates <code>b</code> if every path from the root to <code>b</code>
+ * passes through <code>a</code>. Only vertices reachable from the root are part of the tree.
+ * <p>
+ * Dominators are computed with the semi-NCA algorithm: reachable vertices are numbered in depth
+ * first preorder (which serves as vertex id, all further work is done on flat <code>int</code>
+ * arrays), semidominators are computed with path compression, and immediate dominators are derived
+ * as nearest common ancestors in the search tree. Finally, the dominator tree is numbered in preorder,
+ * so that each subtree covers an interval and {@link #dominates(Object, Object)} takes constant time.
+ *
+ * @param <V> vertex type
+ */
+public class DominatorTree<V> {
+	/**
+	 * Compute the post-dominator tree, i.e. the dominator tree of the reverse digraph.
+	 * For a {@link de.odysseus.ithaka.digraph.DoubledDigraph}, the reverse view uses its in-edges.
+	 * @param digraph digraph
+	 * @param exit root of the reverse digraph
+	 * @return post-dominator tree
+	 */
+	public static <V> DominatorTree<V> postDominators(Digraph<V,?> digraph, V exit) {
+		return new DominatorTree<V>(Digraphs.reverseView(digraph), exit);
+	}
+
+	private final VertexIndex<V> index; // ids in depth first preorder
+	private final int[] dominators; // immediate dominator ids (-1 for root)
+	private final int[] intervals; // dominator tree preorder numbers
+	private final int[] sizes; // dominator subtree sizes
+
+	private int[] childOffsets; // dominator tree children, created on demand
+	private int[] children;
+
+	/**
+	 * Compute dominator tree.
+	 * @param digraph digraph
+	 * @param root root vertex
+	 * @throws IllegalArgumentException if <code>root</code> is not a vertex of the digraph
+	 */
+	public DominatorTree(Digraph<V,?> digraph, V root) {
+		if (!digraph.contains(root)) {
+			throw new IllegalArgumentException("No such vertex: " + root);
+		}
+		index = new VertexIndex<V>();
+
+		// depth first search: preorder ids, search tree parents and predecessor edges
+		int[] parents = new int[16];
+		int[] edgeSources = new int[16];
+		int[] edgeTargets = new int[16];
+		int m = 0;
+		int[] stack = new int[16];
+		Object[] iterators = new Object[16];
+		int depth = 0;
+		index.add(root);
+		parents[0] = -1;
+		iterators[depth] = digraph.targets(root).iterator();
+		stack[depth++] = 0;
+		while (depth > 0) {
+			int vertex = stack[depth - 1];
+			@SuppressWarnings("unchecked")
+			Iterator<V> targets = (Iterator<V>)iterators[depth - 1];
+			if (targets.hasNext()) {
+				V target = targets.next();
+				int n = index.size();
+				int id = index.add(target);
+				if (m == edgeSources.length) {
+					edgeSources = Arrays.copyOf(edgeSources, 2 * m);
+					edgeTargets = Arrays.copyOf(edgeTargets, 2 * m);
+				}
+				edgeSources[m] = vertex;
+				edgeTargets[m++] = id;
+				if (id == n) { // discovered
+					if (id == parents.length) {
+						parents = Arrays.copyOf(parents, 2 * id);
+					}
+					parents[id] = vertex;
+					if (depth == stack.length) {
+						stack = Arrays.copyOf(stack, 2 * depth);
+						iterators = Arrays.copyOf(iterators, 2 * depth);
+					}
+					iterators[depth] = digraph.targets(target).iterator();
+					stack[depth++] = id;
+				}
+			} else {
+				iterators[--depth] = null;
+			}
+		}
+		int n = index.size();
+
+		// predecessors
+		int[] predecessorOffsets = new int[n + 1];
+		for (int i = 0; i < m; i++) {
+			predecessorOffsets[edgeTargets[i] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			predecessorOffsets[i + 1] += predecessorOffsets[i];
+		}
+		int[] predecessors = new int[m];
+		int[] positions = Arrays.copyOf(predecessorOffsets, n);
+		for (int i = 0; i < m; i++) {
+			predecessors[positions[edgeTargets[i]]++] = edgeSources[i];
+		}
+
+		// semidominators
+		int[] semi = new int[n];
+		int[] labels = new int[n];
+		int[] ancestors = new int[n];
+		for (int i = 0; i < n; i++) {
+			semi[i] = labels[i] = i;
+			ancestors[i] = -1;
+		}
+		int[] path = stack.length >= n ? stack : new int[n];
+		for (int w = n - 1; w > 0; w--) {
+			for (int i = predecessorOffsets[w]; i < predecessorOffsets[w + 1]; i++) {
+				int u = eval(predecessors[i], ancestors, labels, semi, path);
+				if (semi[u] < semi[w]) {
+					semi[w] = semi[u];
+				}
+			}
+			ancestors[w] = parents[w];
+		}
+
+		// immediate dominators (nearest common ancestors)
+		dominators = new int[n];
+		dominators[0] = -1;
+		for (int w = 1; w < n; w++) {
+			int dominator = parents[w];
+			while (dominator > semi[w]) {
+				dominator = dominators[dominator];
+			}
+			dominators[w] = dominator;
+		}
+
+		// dominator tree intervals (parents precede their children in depth first preorder)
+		sizes = new int[n];
+		for (int w = n - 1; w >= 0; w--) {
+			sizes[w]++;
+			if (w > 0) {
+				sizes[dominators[w]] += sizes[w];
+			}
+		}
+		intervals = new int[n];
+		int[] next = semi; // reuse: next free preorder number in a subtree
+		next[0] = 1;
+		for (int w = 1; w < n; w++) {
+			intervals[w] = next[dominators[w]];
+			next[dominators[w]] += sizes[w];
+			next[w] = intervals[w] + 1;
+		}
+	}
+
+	/**
+	 * Answer the vertex with minimum semidominator on the compressed path from <code>v</code>.
+	 */
+	private static int eval(int v, int[] ancestors, int[] labels, int[] semi, int[] path) {
+		if (ancestors[v] < 0) {
+			return v;
+		}
+		int size = 0;
+		for (int x = v; ancestors[ancestors[x]] >= 0; x = ancestors[x]) {
+			path[size++] = x;
+		}
+		while (size > 0) {
+			int x = path[--size];
+			int a = ancestors[x];
+			if (semi[labels[a]] < semi[labels[x]]) {
+				labels[x] = labels[a];
+			}
+			ancestors[x] = ancestors[a];
+		}
+		return labels[v];
+	}
+
+	/**
+	 * @return root vertex
+	 */
+	public V getRoot() {
+		return index.getVertex(0);
+	}
+
+	/**
+	 * @param vertex vertex
+	 * @return <code>true</code> iff <code>vertex</code> is reachable from the root
+	 */
+	public boolean contains(Object vertex) {
+		return index.contains(vertex);
+	}
+
+	/**
+	 * Get immediate dominator.
+	 * @param vertex vertex
+	 * @return immediate dominator or <code>null</code> if <code>vertex</code> is the root or not reachable
+	 */
+	public V getImmediateDominator(Object vertex) {
+		int id = index.getId(vertex);
+		return id > 0 ? index.getVertex(dominators[id]) : null;
+	}
+
+	/**
+	 * Test dominance. Every reachable vertex dominates itself.
+	 * @param a dominator candidate
+	 * @param b dominated candidate
+	 * @return <code>true</code> iff <code>a</code> dominates <code>b</code>
+	 */
+	public boolean dominates(Object a, Object b) {
+		int x = index.getId(a);
+		int y = index.getId(b);
+		return x >= 0 && y >= 0 && intervals[x] <= intervals[y] && intervals[y] < intervals[x] + sizes[x];
+	}
+
+	/**
+	 * Test strict dominance.
+	 * @param a dominator candidate
+	 * @param b dominated candidate
+	 * @return <code>true</code> iff <code>a</code> dominates <code>b</code> and <code>a != b</code>
+	 */
+	public boolean strictlyDominates(Object a, Object b) {
+		return dominates(a, b) && !a.equals(b);
+	}
+
+	/**
+	 * Get the vertices immediately dominated by the given vertex.
+	 * @param vertex vertex
+	 * @return children of <code>vertex</code> in the dominator tree
+	 */
+	public List<V> getChildren(Object vertex) {
+		final int id = index.getId(vertex);
+		if (id < 0) {
+			return Collections.emptyList();
+		}
+		if (children == null) {
+			int n = dominators.length;
+			int[] offsets = new int[n + 1];
+			for (int w = 1; w < n; w++) {
+				offsets[dominators[w] + 1]++;
+			}
+			for (int w = 0; w < n; w++) {
+				offsets[w + 1] += offsets[w];
+			}
+			int[] ids = new int[Math.max(0, n - 1)];
+			int[] positions = Arrays.copyOf(offsets, n);
+			for (int w = 1; w < n; w++) {
+				ids[positions[dominators[w]]++] = w;
+			}
+			childOffsets = offsets;
+			children = ids;
+		}
+		return new AbstractList<V>() {
+			@Override
+			public V get(int i) {
+				if (i < 0 || i >= size()) {
+					throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+				}
+				return index.getVertex(children[childOffsets[id] + i]);
+			}
+
+			@Override
+			public int size() {
+				return childOffsets[id + 1] - childOffsets[id];
+			}
+		};
+	}
+
+	/**
+	 * @return number of vertices in the tree (i.e. vertices reachable from the root)
+	 */
+	public int size() {
+		return dominators.length;
+	}
+}
@@ -16,6 +16,7 @@
 package de.odysseus.ithaka.digraph.util.fas;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -28,6 +29,7 @@ import de.odysseus.ithaka.digraph.Digraph;
 import de.odysseus.ithaka.digraph.Digraphs;
 import de.odysseus.ithaka.digraph.EdgeWeights;
 import de.odysseus.ithaka.digraph.MapDigraph;
+import de.odysseus.ithaka.digraph.StronglyConnectedComponents;
 
 /**
  * Abstract feedback arc set provider.
@@ -48,7 +50,7 @@ public abstract class AbstractFeedbackArcSetProvider implements FeedbackArcSetPr
 
 		@Override
 		public FeedbackArcSet<V, E> call() {
-			return fas(digraph.subgraph(scc), weights, policy);			
+			return fas(Digraphs.subgraphView(digraph, scc), weights, policy);
 		}
 	}
 	
@@ -174,8 +176,10 @@ public abstract class AbstractFeedbackArcSetProvider implements FeedbackArcSetPr
 		}
 		if (decompose) {
 			List<FeedbackTask<V,E>> tasks = new ArrayList<FeedbackTask<V,E>>();
-			for (Set<V> component : Digraphs.scc(digraph)) {
-				if (component.size() > 1) {
+			StronglyConnectedComponents<V> components = new StronglyConnectedComponents<V>(digraph);
+			for (int i = 0; i < components.getComponentCount(); i++) {
+				if (components.getComponentSize(i) > 1) {
+					Set<V> component = new HashSet<V>(components.getComponentVertices(i));
 					tasks.add(new FeedbackTask<V, E>(digraph, weights, policy, component));
 				}
 			}
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
+import de.odysseus.ithaka.digraph.DepthFirstSearch;
 import de.odysseus.ithaka.digraph.Digraph;
 import de.odysseus.ithaka.digraph.DigraphFactory;
 import de.odysseus.ithaka.digraph.Digraphs;
@@ -113,14 +114,18 @@ public class SimpleFeedbackArcSetProvider extends AbstractFeedbackArcSetProvider
 		/*
 		 * perform DFS for each node, keep best result
 		 */
-		List<Digraph<V,E>> copies = copies(tangle, Math.min(10, tangle.getVertexCount()));		
+		List<DepthFirstSearch<V>> searches = new ArrayList<DepthFirstSearch<V>>();
+		for (Digraph<V,E> copy : copies(tangle, Math.min(10, tangle.getVertexCount()))) {
+			searches.add(new DepthFirstSearch<V>(copy));
+		}
 		List<V> finished = new ArrayList<V>(tangle.getVertexCount());
+		DepthFirstSearch.Visitor<V> visitor = DepthFirstSearch.<V>finished(finished);
 		Set<V> discovered = new HashSet<V>(tangle.getVertexCount());
 		for (V start : tangle.vertices()) {
-			for (Digraph<V, E> copy : copies) {
+			for (DepthFirstSearch<V> search : searches) {
 				finished.clear();
 				discovered.clear();
-				Digraphs.dfs(copy, start, discovered, finished);
+				search.search(start, discovered, visitor);
 				assert finished.size() == tangle.getVertexCount();
 
 				int weight = 0;
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.iso;
+
+import java.util.Arrays;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.VertexIndex;
+
+/**
+ * Weisfeiler-Lehman fingerprint of a digraph.
+ * <p>
+ * The fingerprint only depends on the digraph's structure, not on its vertex objects
+ * (nor edge objects), i.e. isomorphic digraphs have equal fingerprints. Therefore, different
+ * fingerprints prove that two digraphs are not isomorphic, while equal fingerprints make
+ * isomorphism very likely (Weisfeiler-Lehman refinement cannot distinguish certain regular
+ * digraphs).
+ * <p>
+ * All vertices start with the same label. In each iteration, a vertex's label is replaced by a
+ * hash of its label and the multisets of its targets' and sources' labels. Multisets are hashed as
+ * sums, so no sorting is needed and an iteration takes linear time. Iteration stops when the number
+ * of distinct labels doesn't grow any more (the labeling is stable), or after a given maximum
+ * number of iterations. The fingerprint is a hash of the multiset of final labels.
+ *
+ * @param <V> vertex type
+ */
+public class WeisfeilerLehman<V> {
+	/**
+	 * Compute the fingerprint of the given digraph (iterating until the labeling is stable).
+	 * @param digraph digraph
+	 * @return fingerprint
+	 */
+	public static long fingerprint(Digraph<?,?> digraph) {
+		return new WeisfeilerLehman<Object>(digraph).getFingerprint();
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	private static int countDistinct(long[] labels) {
+		long[] sorted = labels.clone();
+		Arrays.sort(sorted);
+		int count = sorted.length > 0 ? 1 : 0;
+		for (int i = 1; i < sorted.length; i++) {
+			if (sorted[i] != sorted[i - 1]) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private final VertexIndex<V> index;
+	private final long[] labels;
+	private final int classes;
+	private final int iterations;
+	private final long fingerprint;
+
+	/**
+	 * Compute labels, iterating until the labeling is stable.
+	 * @param digraph digraph
+	 */
+	public WeisfeilerLehman(Digraph<? extends V,?> digraph) {
+		this(digraph, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Compute labels.
+	 * @param digraph digraph
+	 * @param maxIterations maximum number of refinement iterations
+	 * @throws IllegalArgumentException if <code>maxIterations</code> is negative
+	 */
+	public WeisfeilerLehman(Digraph<? extends V,?> digraph, int maxIterations) {
+		if (maxIterations < 0) {
+			throw new IllegalArgumentException("Negative number of iterations: " + maxIterations);
+		}
+		index = new VertexIndex<V>(digraph);
+		int n = index.size();
+		int m = 0;
+		int[] edgeSources = new int[digraph.getEdgeCount()];
+		int[] edgeTargets = new int[edgeSources.length];
+		for (int source = 0; source < n; source++) {
+			for (Object target : digraph.targets(index.getVertex(source))) {
+				if (m == edgeSources.length) {
+					edgeSources = Arrays.copyOf(edgeSources, 2 * m + 1);
+					edgeTargets = Arrays.copyOf(edgeTargets, edgeSources.length);
+				}
+				edgeSources[m] = source;
+				edgeTargets[m++] = index.getId(target);
+			}
+		}
+
+		long[] labels = new long[n];
+		long[] targetSums = new long[n];
+		long[] sourceSums = new long[n];
+		int classes = countDistinct(labels);
+		int iterations = 0;
+		while (iterations < maxIterations && n > 0) {
+			Arrays.fill(targetSums, 0);
+			Arrays.fill(sourceSums, 0);
+			for (int i = 0; i < m; i++) {
+				targetSums[edgeSources[i]] += mix(labels[edgeTargets[i]] + 0x9e3779b97f4a7c15L);
+				sourceSums[edgeTargets[i]] += mix(labels[edgeSources[i]] - 0x9e3779b97f4a7c15L);
+			}
+			for (int vertex = 0; vertex < n; vertex++) {
+				labels[vertex] = mix(mix(mix(labels[vertex]) + targetSums[vertex]) + sourceSums[vertex]);
+			}
+			iterations++;
+			int count = countDistinct(labels);
+			if (count == classes) {
+				break;
+			}
+			classes = count;
+		}
+
+		long fingerprint = mix(n);
+		for (int vertex = 0; vertex < n; vertex++) {
+			fingerprint += mix(labels[vertex]);
+		}
+
+		this.labels = labels;
+		this.classes = classes;
+		this.iterations = iterations;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * @return fingerprint
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Answer the final label of the given vertex.
+	 * Vertices of isomorphic digraphs which are mapped onto each other by an isomorphism have equal
+	 * labels (if computed with the same number of iterations).
+	 * @param vertex vertex
+	 * @return vertex label
+	 * @throws IllegalArgumentException if <code>vertex</code> is not a vertex of the digraph
+	 */
+	public long getLabel(Object vertex) {
+		int id = index.getId(vertex);
+		if (id < 0) {
+			throw new IllegalArgumentException("No such vertex: " + vertex);
+		}
+		return labels[id];
+	}
+
+	/**
+	 * @return number of distinct vertex labels
+	 */
+	public int getClassCount() {
+		return classes;
+	}
+
+	/**
+	 * @return number of refinement iterations performed
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+}
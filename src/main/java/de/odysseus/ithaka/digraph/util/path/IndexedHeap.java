@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.path;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap of <code>int</code> ids, ordered by <code>long</code> keys.
+ * The keys are kept in an array supplied by the caller (e.g. the distance array of a shortest
+ * path computation); after decreasing a key, {@link #update(int)} must be called to restore the heap.
+ */
+class IndexedHeap {
+	private final long[] keys;
+	private final int[] heap;
+	private final int[] positions; // id -> heap position or -1
+	private int size;
+
+	IndexedHeap(long[] keys) {
+		this.keys = keys;
+		this.heap = new int[keys.length];
+		this.positions = new int[keys.length];
+		Arrays.fill(positions, -1);
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Insert id or restore heap after its key has been decreased.
+	 */
+	void update(int id) {
+		int position = positions[id];
+		if (position < 0) {
+			position = size++;
+		}
+		up(id, position);
+	}
+
+	/**
+	 * Remove id with minimum key.
+	 */
+	int poll() {
+		int result = heap[0];
+		positions[result] = -1;
+		if (--size > 0) {
+			down(heap[size], 0);
+		}
+		return result;
+	}
+
+	private void up(int id, int position) {
+		long key = keys[id];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (keys[heap[parent]] <= key) {
+				break;
+			}
+			move(heap[parent], position);
+			position = parent;
+		}
+		move(id, position);
+	}
+
+	private void down(int id, int position) {
+		long key = keys[id];
+		int half = size >>> 1;
+		while (position < half) {
+			int child = 2 * position + 1;
+			if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+				child++;
+			}
+			if (key <= keys[heap[child]]) {
+				break;
+			}
+			move(heap[child], position);
+			position = child;
+		}
+		move(id, position);
+	}
+
+	private void move(int id, int position) {
+		heap[position] = id;
+		positions[id] = position;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.odysseus.ithaka.digraph.VertexIndex;
+
+/**
+ * Shortest paths from a single source vertex.
+ *
+ * @param <V> vertex type
+ */
+public class ShortestPathTree<V> {
+	/**
+	 * Distance of unreachable vertices.
+	 */
+	public static final long UNREACHABLE = Long.MAX_VALUE;
+
+	private final VertexIndex<V> index;
+	private final int source;
+	private final long[] distances;
+	private final int[] parents;
+
+	ShortestPathTree(VertexIndex<V> index, int source, long[] distances, int[] parents) {
+		this.index = index;
+		this.source = source;
+		this.distances = distances;
+		this.parents = parents;
+	}
+
+	/**
+	 * @return source vertex
+	 */
+	public V getSource() {
+		return index.getVertex(source);
+	}
+
+	/**
+	 * Test if the given vertex is reachable from the source.
+	 * @param target target vertex
+	 * @return <code>true</code> iff there's a path from the source to <code>target</code>
+	 */
+	public boolean isReachable(V target) {
+		return getDistance(target) != UNREACHABLE;
+	}
+
+	/**
+	 * Get the length of a shortest path.
+	 * @param target target vertex
+	 * @return shortest path length or {@link #UNREACHABLE}
+	 */
+	public long getDistance(V target) {
+		int id = index.getId(target);
+		return id < 0 ? UNREACHABLE : distances[id];
+	}
+
+	/**
+	 * Get a shortest path.
+	 * @param target target vertex
+	 * @return list of vertices from the source to <code>target</code> (both inclusive) or
+	 * <code>null</code> if <code>target</code> is not reachable
+	 */
+	public List<V> getPath(V target) {
+		int id = index.getId(target);
+		if (id < 0 || distances[id] == UNREACHABLE) {
+			return null;
+		}
+		List<V> path = new ArrayList<V>();
+		for (; id >= 0; id = parents[id]) {
+			path.add(index.getVertex(id));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		for (int id = 0; id < distances.length; id++) {
+			if (distances[id] != UNREACHABLE) {
+				if (builder.length() > 1) {
+					builder.append(", ");
+				}
+				builder.append(index.getVertex(id)).append('=').append(distances[id]);
+			}
+		}
+		return builder.append('}').toString();
+	}
+}
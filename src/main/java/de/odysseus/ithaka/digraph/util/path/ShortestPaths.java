@@ -0,0 +1,236 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.EdgeWeights;
+import de.odysseus.ithaka.digraph.VertexIndex;
+import de.odysseus.ithaka.digraph.WeightedDigraph;
+
+/**
+ * Single source shortest paths.
+ * <p>
+ * The digraph and its edge weights are copied into primitive arrays at construction time, so each
+ * weight is unboxed once. If the digraph is acyclic, paths are computed by relaxing edges in
+ * topological order, which also admits negative weights. Otherwise, Dijkstra's algorithm is used
+ * with an indexed binary heap over <code>long</code> distances.
+ * <p>
+ * Computations do not share state, so multiple sources may be processed concurrently
+ * (see {@link #compute(List, int)}).
+ *
+ * @param <V> vertex type
+ */
+public class ShortestPaths<V> {
+	private final VertexIndex<V> index;
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] weights;
+	private final int[] order; // topological order or null if cyclic
+	private final int[] positions; // vertex -> position in topological order
+
+	/**
+	 * Create shortest paths computation using the weights of a weighted digraph.
+	 * @param digraph weighted digraph
+	 * @throws IllegalArgumentException if the digraph is cyclic and has negative weights
+	 */
+	public ShortestPaths(WeightedDigraph<V> digraph) {
+		this(digraph, digraph);
+	}
+
+	/**
+	 * Create shortest paths computation.
+	 * @param digraph digraph
+	 * @param weights edge weights
+	 * @throws IllegalArgumentException if the digraph is cyclic and has negative weights
+	 */
+	public ShortestPaths(Digraph<V,?> digraph, EdgeWeights<? super V> weights) {
+		index = new VertexIndex<V>(digraph);
+		int n = index.size();
+		int m = digraph.getEdgeCount();
+		offsets = new int[n + 1];
+		int[] targets = new int[m];
+		int[] values = new int[m];
+		int[] inDegrees = new int[n];
+		boolean negative = false;
+		m = 0;
+		for (int source = 0; source < n; source++) {
+			V vertex = index.getVertex(source);
+			for (V target : digraph.targets(vertex)) {
+				if (m == targets.length) {
+					targets = Arrays.copyOf(targets, 2 * m + 1);
+					values = Arrays.copyOf(values, targets.length);
+				}
+				int id = index.getId(target);
+				targets[m] = id;
+				values[m] = weights.get(vertex, target).intValue();
+				negative |= values[m] < 0;
+				inDegrees[id]++;
+				m++;
+			}
+			offsets[source + 1] = m;
+		}
+		this.targets = targets;
+		this.weights = values;
+
+		// topological order (Kahn)
+		int[] order = new int[n];
+		int size = 0;
+		for (int vertex = 0; vertex < n; vertex++) {
+			if (inDegrees[vertex] == 0) {
+				order[size++] = vertex;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			int vertex = order[i];
+			for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+				if (--inDegrees[targets[j]] == 0) {
+					order[size++] = targets[j];
+				}
+			}
+		}
+		if (size == n) {
+			this.order = order;
+			this.positions = new int[n];
+			for (int i = 0; i < n; i++) {
+				positions[order[i]] = i;
+			}
+		} else if (negative) {
+			throw new IllegalArgumentException("Negative edge weights require an acyclic digraph!");
+		} else {
+			this.order = null;
+			this.positions = null;
+		}
+	}
+
+	/**
+	 * Compute shortest paths from the given source.
+	 * @param source source vertex
+	 * @return shortest path tree
+	 * @throws IllegalArgumentException if <code>source</code> is not a vertex of the digraph
+	 */
+	public ShortestPathTree<V> compute(V source) {
+		int id = index.getId(source);
+		if (id < 0) {
+			throw new IllegalArgumentException("No such vertex: " + source);
+		}
+		int n = index.size();
+		long[] distances = new long[n];
+		int[] parents = new int[n];
+		Arrays.fill(distances, ShortestPathTree.UNREACHABLE);
+		Arrays.fill(parents, -1);
+		distances[id] = 0;
+		if (order != null) {
+			relax(id, distances, parents);
+		} else {
+			dijkstra(id, distances, parents);
+		}
+		return new ShortestPathTree<V>(index, id, distances, parents);
+	}
+
+	private void relax(int source, long[] distances, int[] parents) {
+		for (int i = positions[source]; i < order.length; i++) {
+			int vertex = order[i];
+			long distance = distances[vertex];
+			if (distance != ShortestPathTree.UNREACHABLE) {
+				for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+					int target = targets[j];
+					if (distance + weights[j] < distances[target]) {
+						distances[target] = distance + weights[j];
+						parents[target] = vertex;
+					}
+				}
+			}
+		}
+	}
+
+	private void dijkstra(int source, long[] distances, int[] parents) {
+		IndexedHeap heap = new IndexedHeap(distances);
+		heap.update(source);
+		while (!heap.isEmpty()) {
+			int vertex = heap.poll();
+			long distance = distances[vertex];
+			for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+				int target = targets[j];
+				if (distance + weights[j] < distances[target]) {
+					distances[target] = distance + weights[j];
+					parents[target] = vertex;
+					heap.update(target);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compute shortest paths from several sources. Sources are distributed to the given number of threads.
+	 * If <code>numberOfThreads == 0</code>, calculation is done in the current thread.
+	 * Passing all vertices computes all pairs shortest paths.
+	 * @param sources source vertices
+	 * @param numberOfThreads number of threads
+	 * @return list of shortest path trees, corresponding to the source list, or <code>null</code> if interrupted
+	 * @throws IllegalArgumentException if a source is not a vertex of the digraph
+	 */
+	public List<ShortestPathTree<V>> compute(final List<? extends V> sources, int numberOfThreads) {
+		List<ShortestPathTree<V>> result = new ArrayList<ShortestPathTree<V>>(sources.size());
+		if (numberOfThreads <= 0) {
+			for (V source : sources) {
+				result.add(compute(source));
+			}
+			return result;
+		}
+		List<Callable<ShortestPathTree<V>>> tasks = new ArrayList<Callable<ShortestPathTree<V>>>(sources.size());
+		for (final V source : sources) {
+			tasks.add(new Callable<ShortestPathTree<V>>() {
+				@Override
+				public ShortestPathTree<V> call() {
+					return compute(source);
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			for (Future<ShortestPathTree<V>> future : executor.invokeAll(tasks)) {
+				result.add(future.get());
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} finally {
+			executor.shutdown();
+		}
+		return result;
+	}
+
+	/**
+	 * @return <code>true</code> if paths are computed by topological relaxation (i.e. the digraph is acyclic)
+	 */
+	public boolean isAcyclic() {
+		return order != null;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.rank;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.EdgeWeights;
+import de.odysseus.ithaka.digraph.VertexIndex;
+
+/**
+ * Degree centrality.
+ * Degrees are normalized by the maximum possible degree without self loops, <code>n - 1</code>.
+ * If edge weights are given, weighted degrees are used instead of edge counts.
+ */
+public class DegreeCentrality {
+	private static <V> VertexScores<V> degrees(Digraph<V,?> digraph, EdgeWeights<? super V> weights, boolean in) {
+		VertexIndex<V> index = new VertexIndex<V>(digraph);
+		int n = index.size();
+		double[] scores = new double[n];
+		for (int id = 0; id < n; id++) {
+			V source = index.getVertex(id);
+			for (V target : digraph.targets(source)) {
+				double weight = weights == null ? 1 : weights.get(source, target).doubleValue();
+				scores[in ? index.getId(target) : id] += weight;
+			}
+		}
+		if (n > 1) {
+			for (int id = 0; id < n; id++) {
+				scores[id] /= n - 1;
+			}
+		}
+		return new VertexScores<V>(index, scores);
+	}
+
+	/**
+	 * Compute in-degree centrality.
+	 * @param digraph digraph
+	 * @param weights edge weights (may be <code>null</code>)
+	 * @return normalized in-degrees
+	 */
+	public static <V> VertexScores<V> inDegree(Digraph<V,?> digraph, EdgeWeights<? super V> weights) {
+		return degrees(digraph, weights, true);
+	}
+
+	/**
+	 * Compute out-degree centrality.
+	 * @param digraph digraph
+	 * @param weights edge weights (may be <code>null</code>)
+	 * @return normalized out-degrees
+	 */
+	public static <V> VertexScores<V> outDegree(Digraph<V,?> digraph, EdgeWeights<? super V> weights) {
+		return degrees(digraph, weights, false);
+	}
+}
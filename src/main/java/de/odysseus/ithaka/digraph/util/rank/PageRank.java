@@ -0,0 +1,259 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.rank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.EdgeWeights;
+import de.odysseus.ithaka.digraph.VertexIndex;
+
+/**
+ * PageRank.
+ * <p>
+ * The digraph is copied into an in-edge adjacency array over dense vertex ids, where each in-edge
+ * carries the fraction of its source's rank it receives (proportional to the edge weight, if weights
+ * are given). Iterations pull ranks from <code>double</code> arrays; the rank of vertices without
+ * outgoing edges (or with zero total weight) is distributed evenly. Iteration stops when the sum of
+ * absolute rank changes drops below the tolerance, or after the maximum number of iterations.
+ * <p>
+ * Vertex ranges may be processed by several threads.
+ *
+ * @param <V> vertex type
+ */
+public class PageRank<V> {
+	private static final int CHUNK_SIZE = 4096;
+
+	private final VertexIndex<V> index;
+	private final int[] offsets; // in-edges per target
+	private final int[] sources;
+	private final double[] fractions;
+	private final int[] danglings;
+
+	private double damping = 0.85;
+	private double tolerance = 1e-9;
+	private int maxIterations = 100;
+	private int numberOfThreads;
+	private PageRankListener listener;
+
+	private class Pull implements Callable<Double> {
+		private final double[] ranks;
+		private final double[] next;
+		private final double base;
+		private final int start;
+		private final int end;
+
+		Pull(double[] ranks, double[] next, double base, int start, int end) {
+			this.ranks = ranks;
+			this.next = next;
+			this.base = base;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Double call() {
+			double delta = 0;
+			for (int target = start; target < end; target++) {
+				double sum = 0;
+				for (int i = offsets[target]; i < offsets[target + 1]; i++) {
+					sum += ranks[sources[i]] * fractions[i];
+				}
+				next[target] = base + damping * sum;
+				delta += Math.abs(next[target] - ranks[target]);
+			}
+			return delta;
+		}
+	}
+
+	/**
+	 * Create PageRank computation with unit edge weights.
+	 * @param digraph digraph
+	 */
+	public PageRank(Digraph<V,?> digraph) {
+		this(digraph, null);
+	}
+
+	/**
+	 * Create PageRank computation.
+	 * @param digraph digraph
+	 * @param weights edge weights (may be <code>null</code>)
+	 * @throws IllegalArgumentException if an edge weight is negative
+	 */
+	public PageRank(Digraph<V,?> digraph, EdgeWeights<? super V> weights) {
+		index = new VertexIndex<V>(digraph);
+		int n = index.size();
+		int m = digraph.getEdgeCount();
+		int[] edgeSources = new int[m];
+		int[] edgeTargets = new int[m];
+		double[] edgeWeights = new double[m];
+		double[] totals = new double[n];
+		m = 0;
+		for (int source = 0; source < n; source++) {
+			V vertex = index.getVertex(source);
+			for (V target : digraph.targets(vertex)) {
+				if (m == edgeSources.length) {
+					edgeSources = Arrays.copyOf(edgeSources, 2 * m + 1);
+					edgeTargets = Arrays.copyOf(edgeTargets, edgeSources.length);
+					edgeWeights = Arrays.copyOf(edgeWeights, edgeSources.length);
+				}
+				double weight = weights == null ? 1 : weights.get(vertex, target).doubleValue();
+				if (weight < 0) {
+					throw new IllegalArgumentException("Negative edge weight: " + vertex + " -> " + target);
+				}
+				edgeSources[m] = source;
+				edgeTargets[m] = index.getId(target);
+				edgeWeights[m++] = weight;
+				totals[source] += weight;
+			}
+		}
+
+		offsets = new int[n + 1];
+		for (int i = 0; i < m; i++) {
+			offsets[edgeTargets[i] + 1]++;
+		}
+		for (int target = 0; target < n; target++) {
+			offsets[target + 1] += offsets[target];
+		}
+		sources = new int[m];
+		fractions = new double[m];
+		int[] positions = Arrays.copyOf(offsets, n);
+		for (int i = 0; i < m; i++) {
+			int position = positions[edgeTargets[i]]++;
+			sources[position] = edgeSources[i];
+			fractions[position] = totals[edgeSources[i]] > 0 ? edgeWeights[i] / totals[edgeSources[i]] : 0;
+		}
+
+		int count = 0;
+		int[] danglings = new int[n];
+		for (int vertex = 0; vertex < n; vertex++) {
+			if (totals[vertex] <= 0) {
+				danglings[count++] = vertex;
+			}
+		}
+		this.danglings = Arrays.copyOf(danglings, count);
+	}
+
+	/**
+	 * Set damping factor (default is <code>0.85</code>).
+	 * @param damping probability of following an edge
+	 */
+	public void setDamping(double damping) {
+		if (damping < 0 || damping > 1) {
+			throw new IllegalArgumentException("Damping factor must be in [0, 1]: " + damping);
+		}
+		this.damping = damping;
+	}
+
+	/**
+	 * Set convergence tolerance (default is <code>1e-9</code>).
+	 * @param tolerance iteration stops when the sum of absolute rank changes is below this value
+	 */
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Set maximum number of iterations (default is <code>100</code>).
+	 * @param maxIterations maximum number of iterations
+	 */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Set number of threads. If <code>numberOfThreads == 0</code> (default), calculation is done
+	 * in the current thread.
+	 * @param numberOfThreads number of threads
+	 */
+	public void setNumberOfThreads(int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * Set iteration callback.
+	 * @param listener listener (may be <code>null</code>)
+	 */
+	public void setListener(PageRankListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Compute ranks. Ranks sum up to <code>1</code>.
+	 * @return vertex ranks or <code>null</code> if interrupted
+	 */
+	public VertexScores<V> compute() {
+		int n = index.size();
+		double[] ranks = new double[n];
+		double[] next = new double[n];
+		if (n == 0) {
+			return new VertexScores<V>(index, ranks);
+		}
+		Arrays.fill(ranks, 1.0 / n);
+		ExecutorService executor = numberOfThreads > 0 && n >= 2 * CHUNK_SIZE ? Executors.newFixedThreadPool(numberOfThreads) : null;
+		try {
+			for (int iteration = 1; iteration <= maxIterations; iteration++) {
+				long start = System.nanoTime();
+				double dangling = 0;
+				for (int vertex : danglings) {
+					dangling += ranks[vertex];
+				}
+				double base = (1 - damping) / n + damping * dangling / n;
+				double delta = 0;
+				if (executor != null) {
+					List<Pull> tasks = new ArrayList<Pull>();
+					for (int i = 0; i < n; i += CHUNK_SIZE) {
+						tasks.add(new Pull(ranks, next, base, i, Math.min(i + CHUNK_SIZE, n)));
+					}
+					for (Future<Double> future : executor.invokeAll(tasks)) {
+						delta += future.get();
+					}
+				} else {
+					delta = new Pull(ranks, next, base, 0, n).call();
+				}
+				double[] swap = ranks;
+				ranks = next;
+				next = swap;
+				if (listener != null) {
+					listener.iteration(iteration, delta, System.nanoTime() - start);
+				}
+				if (delta < tolerance) {
+					break;
+				}
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+		return new VertexScores<V>(index, ranks);
+	}
+}
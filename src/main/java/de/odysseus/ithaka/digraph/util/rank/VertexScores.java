@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.rank;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.odysseus.ithaka.digraph.VertexIndex;
+
+/**
+ * Vertex scores (e.g. ranks or centralities).
+ *
+ * @param <V> vertex type
+ */
+public class VertexScores<V> {
+	private final VertexIndex<V> index;
+	private final double[] scores;
+
+	VertexScores(VertexIndex<V> index, double[] scores) {
+		this.index = index;
+		this.scores = scores;
+	}
+
+	/**
+	 * Get score.
+	 * @param vertex vertex
+	 * @return score of <code>vertex</code> or <code>0</code> if <code>vertex</code> is unknown
+	 */
+	public double getScore(Object vertex) {
+		int id = index.getId(vertex);
+		return id < 0 ? 0 : scores[id];
+	}
+
+	/**
+	 * Answer <code>true</code> if the first vertex ranks before the second
+	 * (higher score, ties broken by id).
+	 */
+	private boolean before(int id1, int id2) {
+		int compare = Double.compare(scores[id1], scores[id2]);
+		return compare > 0 || compare == 0 && id1 < id2;
+	}
+
+	/**
+	 * Restore the heap property below the given position of a heap whose root ranks last.
+	 */
+	private void siftDown(int[] heap, int position, int size) {
+		int id = heap[position];
+		for (int child = 2 * position + 1; child < size; child = 2 * position + 1) {
+			if (child + 1 < size && before(heap[child], heap[child + 1])) {
+				child++;
+			}
+			if (!before(id, heap[child])) {
+				break;
+			}
+			heap[position] = heap[child];
+			position = child;
+		}
+		heap[position] = id;
+	}
+
+	/**
+	 * Get the vertices with the highest scores.
+	 * The vertices are selected using a heap of size <code>count</code>, which takes
+	 * <code>O(n log(count))</code> time for <code>n</code> vertices.
+	 * @param count maximum number of vertices
+	 * @return vertices, ordered by descending score
+	 */
+	public List<V> getTop(int count) {
+		int size = Math.max(0, Math.min(count, scores.length));
+		int[] heap = new int[size]; // root ranks last
+		for (int id = 0; id < size; id++) {
+			heap[id] = id;
+		}
+		for (int position = size / 2 - 1; position >= 0; position--) {
+			siftDown(heap, position, size);
+		}
+		for (int id = size; id < scores.length && size > 0; id++) {
+			if (before(id, heap[0])) {
+				heap[0] = id;
+				siftDown(heap, 0, size);
+			}
+		}
+		int[] top = new int[size];
+		while (size > 0) {
+			top[--size] = heap[0];
+			heap[0] = heap[size];
+			siftDown(heap, 0, size);
+		}
+		List<V> result = new ArrayList<V>(top.length);
+		for (int id : top) {
+			result.add(index.getVertex(id));
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of vertices
+	 */
+	public int size() {
+		return scores.length;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		for (int id = 0; id < scores.length; id++) {
+			if (id > 0) {
+				builder.append(", ");
+			}
+			builder.append(index.getVertex(id)).append('=').append(scores[id]);
+		}
+		return builder.append('}').toString();
+	}
+}
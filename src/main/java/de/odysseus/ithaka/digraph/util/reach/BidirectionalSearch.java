@@ -0,0 +1,277 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.reach;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import de.odysseus.ithaka.digraph.DoubledDigraph;
+import de.odysseus.ithaka.digraph.IndexedDigraph;
+import de.odysseus.ithaka.digraph.IntCursor;
+import de.odysseus.ithaka.digraph.IntDigraph;
+import de.odysseus.ithaka.digraph.VertexIndex;
+
+/**
+ * Bidirectional breadth first search for single source/target queries.
+ * <p>
+ * The search expands a forward frontier from the source (using <code>targets</code>) and a backward
+ * frontier from the target (using <code>sources</code>), always the smaller one, level by level,
+ * and stops as soon as the two searches meet. Visited sets are bit sets over dense vertex ids.
+ * If the digraph is an {@link IndexedDigraph}, the search runs on its id-based view and vertices
+ * are hashed only to look up the source and target. Otherwise, vertices are assigned ids by a
+ * per-query hash-based {@link VertexIndex} when first discovered, so visiting a vertex costs a hash
+ * lookup and no work is spent on undiscovered parts of the digraph.
+ * Plain digraphs may be searched via {@link de.odysseus.ithaka.digraph.Digraphs#doubledView(de.odysseus.ithaka.digraph.Digraph)}.
+ * <p>
+ * Searches do not share state, so queries may be issued concurrently as long as the digraph
+ * is not modified.
+ *
+ * @param <V> vertex type
+ */
+public class BidirectionalSearch<V> {
+	/**
+	 * Search state of one direction.
+	 */
+	private static final class Side {
+		final boolean forward;
+		final BitSet visited = new BitSet();
+		int[] parents = new int[16];
+		int[] distances = new int[16];
+		int[] frontier = new int[16];
+		int size;
+
+		Side(boolean forward, int start) {
+			this.forward = forward;
+			visit(start, -1, 0);
+			frontier[size++] = start;
+		}
+
+		void visit(int id, int parent, int distance) {
+			if (id >= parents.length) {
+				parents = Arrays.copyOf(parents, Math.max(2 * parents.length, id + 1));
+				distances = Arrays.copyOf(distances, parents.length);
+			}
+			visited.set(id);
+			parents[id] = parent;
+			distances[id] = distance;
+		}
+	}
+
+	/**
+	 * Vertex ids of one query.
+	 */
+	private abstract class Ids {
+		abstract int getId(V vertex);
+		abstract V getVertex(int id);
+		abstract IntCursor targets(int id, boolean forward);
+	}
+
+	/**
+	 * Ids of an indexed digraph.
+	 */
+	private final class IndexedIds extends Ids {
+		private final VertexIndex<V> index;
+		private final IntDigraph<?> targets;
+		private final IntDigraph<?> sources;
+
+		IndexedIds(IndexedDigraph<V,?> digraph) {
+			this.index = digraph.getVertexIndex();
+			this.targets = digraph.getIntDigraph();
+			this.sources = targets.reverse();
+		}
+
+		@Override
+		int getId(V vertex) {
+			return index.getId(vertex);
+		}
+
+		@Override
+		V getVertex(int id) {
+			return index.getVertex(id);
+		}
+
+		@Override
+		IntCursor targets(int id, boolean forward) {
+			return (forward ? targets : sources).targets(id);
+		}
+	}
+
+	/**
+	 * Ids assigned on discovery.
+	 */
+	private final class HashedIds extends Ids {
+		private final VertexIndex<V> index = new VertexIndex<V>();
+
+		@Override
+		int getId(V vertex) {
+			return index.add(vertex);
+		}
+
+		@Override
+		V getVertex(int id) {
+			return index.getVertex(id);
+		}
+
+		@Override
+		IntCursor targets(int id, boolean forward) {
+			V vertex = index.getVertex(id);
+			final Iterator<V> vertices = (forward ? digraph.targets(vertex) : digraph.sources(vertex)).iterator();
+			return new IntCursor() {
+				@Override
+				public boolean hasNext() {
+					return vertices.hasNext();
+				}
+				@Override
+				public int next() {
+					return index.add(vertices.next());
+				}
+			};
+		}
+	}
+
+	private final DoubledDigraph<V,?> digraph;
+
+	/**
+	 * Create search.
+	 * @param digraph digraph to search
+	 */
+	public BidirectionalSearch(DoubledDigraph<V,?> digraph) {
+		this.digraph = digraph;
+	}
+
+	private Ids ids() {
+		if (digraph instanceof IndexedDigraph) {
+			return new IndexedIds((IndexedDigraph<V,?>)digraph);
+		}
+		return new HashedIds();
+	}
+
+	/**
+	 * Search a meeting vertex.
+	 * @param shortest if <code>true</code>, finish the current level to pick a meeting vertex on a shortest path
+	 * @return id of meeting vertex or <code>-1</code>
+	 */
+	private int search(Ids ids, Side forward, Side backward, boolean shortest) {
+		while (forward.size > 0 && backward.size > 0) {
+			Side side = forward.size <= backward.size ? forward : backward;
+			Side other = side == forward ? backward : forward;
+			int[] next = new int[16];
+			int size = 0;
+			int meet = -1;
+			int length = Integer.MAX_VALUE;
+			for (int i = 0; i < side.size; i++) {
+				int vertex = side.frontier[i];
+				IntCursor cursor = ids.targets(vertex, side.forward);
+				while (cursor.hasNext()) {
+					int id = cursor.next();
+					if (!side.visited.get(id)) {
+						side.visit(id, vertex, side.distances[vertex] + 1);
+						if (other.visited.get(id)) {
+							if (!shortest) {
+								return id;
+							}
+							if (side.distances[id] + other.distances[id] < length) {
+								length = side.distances[id] + other.distances[id];
+								meet = id;
+							}
+						}
+						if (size == next.length) {
+							next = Arrays.copyOf(next, 2 * size);
+						}
+						next[size++] = id;
+					}
+				}
+			}
+			if (meet >= 0) {
+				return meet;
+			}
+			side.frontier = next;
+			side.size = size;
+		}
+		return -1;
+	}
+
+	private boolean contains(V source, V target) {
+		return digraph.contains(source) && digraph.contains(target);
+	}
+
+	/**
+	 * Answer <code>true</code> if there is a path from the given source to the given target.
+	 * If source is equal to target, answer <code>true</code>.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return <code>true</code> iff there's a path from <code>source</code> to <code>target</code>
+	 */
+	public boolean isReachable(V source, V target) {
+		if (source.equals(target)) {
+			return true;
+		}
+		if (!contains(source, target)) {
+			return false;
+		}
+		Ids ids = ids();
+		Side forward = new Side(true, ids.getId(source));
+		Side backward = new Side(false, ids.getId(target));
+		return search(ids, forward, backward, false) >= 0;
+	}
+
+	/**
+	 * Compute a path with the minimum number of edges from the given source to the given target.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return list of vertices from <code>source</code> to <code>target</code> (both inclusive) or
+	 * <code>null</code> if there's no such path
+	 */
+	public List<V> getPath(V source, V target) {
+		if (source.equals(target)) {
+			return Collections.singletonList(source);
+		}
+		if (!contains(source, target)) {
+			return null;
+		}
+		Ids ids = ids();
+		Side forward = new Side(true, ids.getId(source));
+		Side backward = new Side(false, ids.getId(target));
+		int meet = search(ids, forward, backward, true);
+		if (meet < 0) {
+			return null;
+		}
+		List<V> path = new ArrayList<V>();
+		for (int id = meet; id >= 0; id = forward.parents[id]) {
+			path.add(ids.getVertex(id));
+		}
+		Collections.reverse(path);
+		for (int id = backward.parents[meet]; id >= 0; id = backward.parents[id]) {
+			path.add(ids.getVertex(id));
+		}
+		return path;
+	}
+
+	/**
+	 * Compute the minimum number of edges on a path from the given source to the given target.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return distance or <code>-1</code> if there's no such path
+	 */
+	public int getDistance(V source, V target) {
+		List<V> path = getPath(source, target);
+		return path == null ? -1 : path.size() - 1;
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.reach;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.VertexIndex;
+
+/**
+ * Batch closure computation using multi-source breadth first search (MS-BFS).
+ * <p>
+ * Sources are processed in batches of 64. The visit state of a vertex for all sources of a batch
+ * is packed into one <code>long</code> word, so every edge is scanned once per batch and level rather than
+ * once per source: for an edge <code>(v, w)</code>, the sources that reach <code>w</code> for the first
+ * time are <code>visit[v] &amp; ~seen[w]</code>.
+ * <p>
+ * The digraph is copied into an <code>int</code> adjacency array at construction time, so later
+ * modifications of the digraph are not reflected. Computations do not share state and may be
+ * issued concurrently.
+ *
+ * @param <V> vertex type
+ */
+public class MultiSourceClosure<V> {
+	private static final int BATCH_SIZE = 64;
+
+	/**
+	 * Batch result callback.
+	 */
+	private interface Collector {
+		void collect(int offset, long[] seen);
+	}
+
+	private final VertexIndex<V> index;
+	private final int[] offsets;
+	private final int[] targets;
+
+	/**
+	 * Create closure computation.
+	 * @param digraph digraph
+	 */
+	public MultiSourceClosure(Digraph<V,?> digraph) {
+		index = new VertexIndex<V>(digraph);
+		int n = index.size();
+		offsets = new int[n + 1];
+		int[] targets = new int[digraph.getEdgeCount()];
+		int m = 0;
+		for (int source = 0; source < n; source++) {
+			for (V target : digraph.targets(index.getVertex(source))) {
+				if (m == targets.length) {
+					targets = Arrays.copyOf(targets, 2 * m + 1);
+				}
+				targets[m++] = index.getId(target);
+			}
+			offsets[source + 1] = m;
+		}
+		this.targets = targets;
+	}
+
+	private void compute(List<? extends V> sources, Collector collector) {
+		int n = index.size();
+		long[] seen = new long[n];
+		long[] visit = new long[n];
+		long[] visitNext = new long[n];
+		int[] frontier = new int[n];
+		int[] frontierNext = new int[n];
+		for (int offset = 0; offset < sources.size(); offset += BATCH_SIZE) {
+			int batchSize = Math.min(BATCH_SIZE, sources.size() - offset);
+			Arrays.fill(seen, 0);
+			int size = 0;
+			for (int i = 0; i < batchSize; i++) {
+				int id = index.getId(sources.get(offset + i));
+				if (id >= 0) {
+					if (visit[id] == 0) {
+						frontier[size++] = id;
+					}
+					seen[id] |= 1L << i;
+					visit[id] |= 1L << i;
+				}
+			}
+			while (size > 0) {
+				int sizeNext = 0;
+				for (int i = 0; i < size; i++) {
+					int vertex = frontier[i];
+					long bits = visit[vertex];
+					visit[vertex] = 0;
+					for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+						int target = targets[j];
+						long reached = bits & ~seen[target];
+						if (reached != 0) {
+							if (visitNext[target] == 0) {
+								frontierNext[sizeNext++] = target;
+							}
+							visitNext[target] |= reached;
+							seen[target] |= reached;
+						}
+					}
+				}
+				long[] words = visit;
+				visit = visitNext;
+				visitNext = words;
+				int[] ids = frontier;
+				frontier = frontierNext;
+				frontierNext = ids;
+				size = sizeNext;
+			}
+			collector.collect(offset, seen);
+		}
+	}
+
+	/**
+	 * Compute the closures of the given sources. As with
+	 * {@link de.odysseus.ithaka.digraph.Digraphs#closure(Digraph, Object)}, the closure
+	 * of a vertex contains the vertex itself.
+	 * @param sources source vertices
+	 * @return list of closures, corresponding to the source list
+	 */
+	public List<Set<V>> closures(final List<? extends V> sources) {
+		final List<Set<V>> result = new ArrayList<Set<V>>(sources.size());
+		for (V source : sources) {
+			result.add(index.contains(source) ? new HashSet<V>() : new HashSet<V>(Collections.singleton(source)));
+		}
+		compute(sources, new Collector() {
+			@Override
+			public void collect(int offset, long[] seen) {
+				for (int id = 0; id < seen.length; id++) {
+					for (long bits = seen[id]; bits != 0; bits &= bits - 1) {
+						result.get(offset + Long.numberOfTrailingZeros(bits)).add(index.getVertex(id));
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Compute the closure sizes of the given sources, i.e. the number of reachable vertices
+	 * (including the source itself).
+	 * @param sources source vertices
+	 * @return array of closure sizes, corresponding to the source list
+	 */
+	public int[] closureSizes(List<? extends V> sources) {
+		final int[] result = new int[sources.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = index.contains(sources.get(i)) ? 0 : 1;
+		}
+		compute(sources, new Collector() {
+			@Override
+			public void collect(int offset, long[] seen) {
+				for (long bits : seen) {
+					for (; bits != 0; bits &= bits - 1) {
+						result[offset + Long.numberOfTrailingZeros(bits)]++;
+					}
+				}
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.reach;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.StronglyConnectedComponents;
+
+/**
+ * Reachability index.
+ * <p>
+ * The index is built over the condensation of a digraph, i.e. the acyclic digraph of its strongly
+ * connected components. Components are numbered topologically, so a query between vertices in the
+ * same component or against the topological order is answered right away. Otherwise, the index
+ * uses GRAIL labeling: each of a number of randomized depth first traversals of the condensation assigns
+ * an interval <code>[low, rank]</code> to each component, where <code>rank</code> is the post-order
+ * rank and <code>low</code> is the lowest rank reachable from the component. If the target's
+ * interval is not contained in the source's interval for any traversal, the target is not reachable.
+ * If the target has been reached via tree edges of the first traversal, it is reachable.
+ * Only the remaining queries fall back to a depth first search, which is pruned using the labels.
+ * <p>
+ * The index is a snapshot; it does not reflect later modifications of the digraph.
+ * Queries may be issued concurrently.
+ *
+ * @param <V> vertex type
+ */
+public class ReachabilityIndex<V> {
+	/**
+	 * Per-thread search state for fallback searches.
+	 */
+	private static final class Search {
+		final int[] marks;
+		final int[] stack;
+		int stamp;
+
+		Search(int size) {
+			marks = new int[size];
+			stack = new int[size];
+		}
+	}
+
+	private final StronglyConnectedComponents<V> components;
+	private final int[] offsets; // condensation adjacency
+	private final int[] targets;
+	private final int[][] lows;
+	private final int[][] ranks;
+	private final int[] treeLows; // lowest rank in a component's subtree of the first traversal
+
+	private final ThreadLocal<Search> search = new ThreadLocal<Search>() {
+		@Override
+		protected Search initialValue() {
+			return new Search(components.getComponentCount());
+		}
+	};
+
+	/**
+	 * Create index using two traversals.
+	 * @param digraph digraph
+	 */
+	public ReachabilityIndex(Digraph<V,?> digraph) {
+		this(digraph, 2);
+	}
+
+	/**
+	 * Create index.
+	 * @param digraph digraph
+	 * @param traversals number of labeling traversals (at least one); each traversal costs
+	 * two <code>int</code>s per component, but improves filtering of negative queries
+	 */
+	public ReachabilityIndex(Digraph<V,?> digraph, int traversals) {
+		if (traversals < 1) {
+			throw new IllegalArgumentException("At least one traversal required: " + traversals);
+		}
+		components = new StronglyConnectedComponents<V>(digraph);
+		int n = components.getComponentCount();
+
+		// condensation, without duplicate edges
+		offsets = new int[n + 1];
+		int[] buffer = new int[16];
+		int m = 0;
+		int[] last = new int[n];
+		Arrays.fill(last, -1);
+		for (int c = 0; c < n; c++) {
+			for (V vertex : components.getComponentVertices(c)) {
+				for (V target : digraph.targets(vertex)) {
+					int t = components.getComponent(target);
+					if (t != c && last[t] != c) {
+						last[t] = c;
+						if (m == buffer.length) {
+							buffer = Arrays.copyOf(buffer, 2 * m);
+						}
+						buffer[m++] = t;
+					}
+				}
+			}
+			offsets[c + 1] = m;
+		}
+		targets = Arrays.copyOf(buffer, m);
+
+		// roots (components without incoming edges)
+		boolean[] hasSources = new boolean[n];
+		for (int t : targets) {
+			hasSources[t] = true;
+		}
+		int rootCount = 0;
+		int[] roots = new int[n];
+		for (int c = 0; c < n; c++) {
+			if (!hasSources[c]) {
+				roots[rootCount++] = c;
+			}
+		}
+
+		lows = new int[traversals][];
+		ranks = new int[traversals][];
+		treeLows = new int[n];
+		Random random = new Random(n);
+		int[] children = targets.clone();
+		for (int i = 0; i < traversals; i++) {
+			if (i > 0) { // randomize order of roots and children
+				shuffle(roots, 0, rootCount, random);
+				for (int c = 0; c < n; c++) {
+					shuffle(children, offsets[c], offsets[c + 1], random);
+				}
+			}
+			lows[i] = new int[n];
+			ranks[i] = new int[n];
+			label(children, roots, rootCount, lows[i], ranks[i], i == 0 ? treeLows : null);
+		}
+	}
+
+	private static void shuffle(int[] values, int start, int end, Random random) {
+		for (int i = end - 1; i > start; i--) {
+			int j = start + random.nextInt(i - start + 1);
+			int value = values[i];
+			values[i] = values[j];
+			values[j] = value;
+		}
+	}
+
+	/**
+	 * Non-recursive post-order traversal, assigning ranks <code>1, 2, ...</code> and lows.
+	 * Optionally record the first rank of each component's subtree.
+	 */
+	private void label(int[] children, int[] roots, int rootCount, int[] lows, int[] ranks, int[] treeLows) {
+		int n = ranks.length;
+		int[] stack = new int[n];
+		int[] positions = new int[n];
+		int rank = 0;
+		for (int r = 0; r < rootCount; r++) {
+			int depth = 0;
+			int root = roots[r];
+			stack[depth] = root;
+			positions[depth++] = offsets[root];
+			lows[root] = Integer.MAX_VALUE;
+			if (treeLows != null) {
+				treeLows[root] = rank + 1;
+			}
+			while (depth > 0) {
+				int c = stack[depth - 1];
+				int position = positions[depth - 1];
+				if (position < offsets[c + 1]) {
+					positions[depth - 1]++;
+					int child = children[position];
+					if (lows[child] == 0) { // undiscovered
+						lows[child] = Integer.MAX_VALUE;
+						if (treeLows != null) {
+							treeLows[child] = rank + 1;
+						}
+						stack[depth] = child;
+						positions[depth++] = offsets[child];
+					} else {
+						lows[c] = Math.min(lows[c], lows[child]);
+					}
+				} else {
+					ranks[c] = ++rank;
+					lows[c] = Math.min(lows[c], rank);
+					if (--depth > 0) {
+						int parent = stack[depth - 1];
+						lows[parent] = Math.min(lows[parent], lows[c]);
+					}
+				}
+			}
+		}
+	}
+
+	private boolean contains(int source, int target) {
+		for (int i = 0; i < ranks.length; i++) {
+			if (lows[i][target] < lows[i][source] || ranks[i][target] > ranks[i][source]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Answer <code>true</code> if there is a path from the given source to the given target.
+	 * If source is equal to target, answer <code>true</code>.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return <code>true</code> iff there's a path from <code>source</code> to <code>target</code>
+	 */
+	public boolean isReachable(V source, V target) {
+		int s = components.getComponent(source);
+		int t = components.getComponent(target);
+		if (s < 0 || t < 0) {
+			return source.equals(target);
+		}
+		if (s == t) {
+			return true;
+		}
+		if (s > t || !contains(s, t)) {
+			return false;
+		}
+		if (treeLows[s] <= ranks[0][t] && ranks[0][t] <= ranks[0][s]) {
+			return true;
+		}
+
+		// fallback: search the condensation, pruned by topological order and labels
+		Search search = this.search.get();
+		int stamp = ++search.stamp;
+		if (stamp == 0) { // overflow
+			Arrays.fill(search.marks, 0);
+			stamp = search.stamp = 1;
+		}
+		int[] stack = search.stack;
+		int size = 0;
+		search.marks[s] = stamp;
+		stack[size++] = s;
+		while (size > 0) {
+			int c = stack[--size];
+			for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+				int child = targets[i];
+				if (child == t) {
+					return true;
+				}
+				if (search.marks[child] != stamp && child < t && contains(child, t)) {
+					search.marks[child] = stamp;
+					stack[size++] = child;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return number of strongly connected components
+	 */
+	public int getComponentCount() {
+		return components.getComponentCount();
+	}
+}
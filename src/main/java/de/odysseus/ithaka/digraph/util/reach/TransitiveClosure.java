@@ -0,0 +1,323 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.reach;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.DigraphFactory;
+import de.odysseus.ithaka.digraph.StronglyConnectedComponents;
+
+/**
+ * Transitive closure and reduction.
+ * <p>
+ * Both operations work on the condensation of a digraph, i.e. the acyclic digraph of its strongly
+ * connected components. For each component, the set of reachable components is stored as a row of
+ * <code>long</code> words, which is computed from the rows of its successors in reverse topological
+ * order. Components of the same height (the length of a longest path to a sink) do not depend on each
+ * other, so their rows may be computed in parallel.
+ * <p>
+ * A row has one bit per component, so memory is quadratic in the number of components: up to
+ * <code>C<sup>2</sup>/8</code> bytes for <code>C</code> components, e.g. 1.25 GB for 100,000 components.
+ * Sinks of the condensation don't reach any component and share an empty row.
+ * <p>
+ * The rows are computed at construction time (use {@link #compute(Digraph, int)} to compute them in
+ * parallel), so later modifications of the digraph are not reflected.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class TransitiveClosure<V,E> {
+	private static final int CHUNK_SIZE = 256;
+	private static final long[] EMPTY_ROW = new long[0];
+
+	private final Digraph<V,E> digraph;
+	private final StronglyConnectedComponents<V> components;
+	private final int[] offsets; // condensation adjacency, successors sorted by component number
+	private final int[] targets;
+	private final boolean[] cyclic; // component contains a cycle
+	private final long[][] rows; // reachable components (via at least one edge)
+	private final int[] levels; // components grouped by height
+	private final int[] levelOffsets;
+
+	private class Rows implements Callable<Void> {
+		private final int[] level;
+		private final int start;
+		private final int end;
+
+		Rows(int[] level, int start, int end) {
+			this.level = level;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Void call() {
+			for (int i = start; i < end; i++) {
+				computeRow(level[i]);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Compute reachable components, distributing large levels of rows to a given number of threads.
+	 * If <code>numberOfThreads == 0</code>, calculation is done in the current thread.
+	 * @param digraph digraph
+	 * @param numberOfThreads number of threads
+	 * @return transitive closure or <code>null</code> if the current thread has been interrupted
+	 */
+	public static <V,E> TransitiveClosure<V,E> compute(Digraph<V,E> digraph, int numberOfThreads) {
+		TransitiveClosure<V,E> result = new TransitiveClosure<V,E>(digraph, false);
+		return result.computeRows(numberOfThreads) ? result : null;
+	}
+
+	/**
+	 * Compute reachable components in the current thread.
+	 * @param digraph digraph
+	 */
+	public TransitiveClosure(Digraph<V,E> digraph) {
+		this(digraph, true);
+	}
+
+	private TransitiveClosure(Digraph<V,E> digraph, boolean computeRows) {
+		this.digraph = digraph;
+		this.components = new StronglyConnectedComponents<V>(digraph);
+		int n = components.getComponentCount();
+
+		// condensation, without duplicate edges
+		offsets = new int[n + 1];
+		cyclic = new boolean[n];
+		int[] buffer = new int[16];
+		int m = 0;
+		int[] last = new int[n];
+		Arrays.fill(last, -1);
+		for (int c = 0; c < n; c++) {
+			cyclic[c] = components.getComponentSize(c) > 1;
+			for (V vertex : components.getComponentVertices(c)) {
+				for (V target : digraph.targets(vertex)) {
+					int t = components.getComponent(target);
+					if (t == c) {
+						cyclic[c] = true;
+					} else if (last[t] != c) {
+						last[t] = c;
+						if (m == buffer.length) {
+							buffer = Arrays.copyOf(buffer, 2 * m);
+						}
+						buffer[m++] = t;
+					}
+				}
+			}
+			offsets[c + 1] = m;
+			Arrays.sort(buffer, offsets[c], m);
+		}
+		targets = Arrays.copyOf(buffer, m);
+
+		// group components by height
+		int[] heights = new int[n];
+		int maxHeight = -1;
+		for (int c = n - 1; c >= 0; c--) {
+			for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+				heights[c] = Math.max(heights[c], heights[targets[i]] + 1);
+			}
+			maxHeight = Math.max(maxHeight, heights[c]);
+		}
+		levelOffsets = new int[maxHeight + 2];
+		for (int c = 0; c < n; c++) {
+			levelOffsets[heights[c] + 1]++;
+		}
+		for (int h = 0; h <= maxHeight; h++) {
+			levelOffsets[h + 1] += levelOffsets[h];
+		}
+		levels = new int[n];
+		int[] positions = Arrays.copyOf(levelOffsets, maxHeight + 1);
+		for (int c = 0; c < n; c++) {
+			levels[positions[heights[c]]++] = c;
+		}
+
+		rows = new long[n][];
+		if (computeRows) {
+			computeRows(0);
+		}
+	}
+
+	/**
+	 * Compute rows level by level.
+	 * @return <code>false</code> if the current thread has been interrupted
+	 */
+	private boolean computeRows(int numberOfThreads) {
+		ExecutorService executor = numberOfThreads > 0 ? Executors.newFixedThreadPool(numberOfThreads) : null;
+		try {
+			for (int h = 0; h < levelOffsets.length - 1; h++) {
+				int start = levelOffsets[h];
+				int end = levelOffsets[h + 1];
+				if (executor != null && end - start >= 2 * CHUNK_SIZE) {
+					List<Rows> tasks = new ArrayList<Rows>();
+					for (int i = start; i < end; i += CHUNK_SIZE) {
+						tasks.add(new Rows(levels, i, Math.min(i + CHUNK_SIZE, end)));
+					}
+					for (Future<Void> future : executor.invokeAll(tasks)) {
+						future.get();
+					}
+				} else {
+					new Rows(levels, start, end).call();
+				}
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+		return true;
+	}
+
+	private void computeRow(int c) {
+		if (offsets[c] == offsets[c + 1]) { // sink
+			rows[c] = EMPTY_ROW;
+			return;
+		}
+		long[] row = new long[(components.getComponentCount() + 63) >>> 6];
+		for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+			int t = targets[i];
+			row[t >>> 6] |= 1L << t;
+			long[] successor = rows[t];
+			for (int j = (t + 1) >>> 6; j < successor.length; j++) { // successors have greater numbers
+				row[j] |= successor[j];
+			}
+		}
+		rows[c] = row;
+	}
+
+	private boolean isReachable(int source, int target) {
+		if (source == target) {
+			return cyclic[source];
+		}
+		long[] row = rows[source];
+		return target >>> 6 < row.length && (row[target >>> 6] & (1L << target)) != 0;
+	}
+
+	/**
+	 * Answer <code>true</code> if there is a non-empty path from the given source to the given target.
+	 * In particular, a vertex reaches itself only if it lies on a cycle.
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return <code>true</code> iff the transitive closure contains an edge from <code>source</code> to <code>target</code>
+	 */
+	public boolean isReachable(V source, V target) {
+		int s = components.getComponent(source);
+		int t = components.getComponent(target);
+		return s >= 0 && t >= 0 && isReachable(s, t);
+	}
+
+	/**
+	 * Compute the transitive closure, which contains an edge from <code>u</code> to <code>v</code>
+	 * iff there is a non-empty path from <code>u</code> to <code>v</code>.
+	 * Edges of the original digraph keep their values, other edges are <code>null</code>.
+	 * @param <G> result type
+	 * @param factory factory used to create result graph
+	 * @return transitive closure
+	 */
+	public <G extends Digraph<V,E>> G closure(DigraphFactory<? extends G> factory) {
+		G result = factory.create();
+		int n = components.getComponentCount();
+		for (int s = 0; s < n; s++) {
+			for (V source : components.getComponentVertices(s)) {
+				result.add(source);
+				for (int t = isReachable(s, s) ? s : s + 1; t < n; t++) {
+					if (isReachable(s, t)) {
+						for (V target : components.getComponentVertices(t)) {
+							result.put(source, target, digraph.get(source, target));
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Compute the transitive reduction, i.e. a digraph with a minimum number of edges, which has the same
+	 * transitive closure. For an acyclic digraph, this is the unique subgraph without implied edges.
+	 * Otherwise, the vertices of each strongly connected component are linked by a simple cycle (in
+	 * component order), and components are connected by one edge of the original digraph.
+	 * Edges of the original digraph keep their values, other edges are <code>null</code>.
+	 * @param <G> result type
+	 * @param factory factory used to create result graph
+	 * @return transitive reduction
+	 */
+	public <G extends Digraph<V,E>> G reduction(DigraphFactory<? extends G> factory) {
+		G result = factory.create();
+		int n = components.getComponentCount();
+		long[] covered = new long[(n + 63) >>> 6];
+		boolean[] kept = new boolean[n];
+		for (int s = 0; s < n; s++) {
+			List<V> vertices = components.getComponentVertices(s);
+			for (V vertex : vertices) {
+				result.add(vertex);
+			}
+			if (vertices.size() > 1) {
+				for (int i = 0; i < vertices.size(); i++) {
+					V source = vertices.get(i);
+					V target = vertices.get((i + 1) % vertices.size());
+					result.put(source, target, digraph.get(source, target));
+				}
+			} else if (cyclic[s]) { // self loop
+				result.put(vertices.get(0), vertices.get(0), digraph.get(vertices.get(0), vertices.get(0)));
+			}
+
+			// keep successors not covered by closer successors
+			Arrays.fill(covered, 0);
+			for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+				int t = targets[i];
+				kept[t] = (covered[t >>> 6] & (1L << t)) == 0;
+				if (kept[t]) {
+					long[] row = rows[t];
+					for (int j = 0; j < row.length; j++) {
+						covered[j] |= row[j];
+					}
+				}
+			}
+			for (V source : vertices) {
+				for (V target : digraph.targets(source)) {
+					int t = components.getComponent(target);
+					if (t != s && kept[t]) {
+						kept[t] = false; // one edge per pair of components
+						result.put(source, target, digraph.get(source, target));
+					}
+				}
+			}
+			for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+				kept[targets[i]] = false;
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AcyclicDigraphAdapterTest {
+	private static <V> void assertTopologicallySorted(Digraph<V,?> digraph, List<V> order) {
+		Assert.assertEquals(digraph.getVertexCount(), order.size());
+		Map<V,Integer> positions = new HashMap<V,Integer>();
+		for (V vertex : order) {
+			positions.put(vertex, positions.size());
+		}
+		for (V source : digraph.vertices()) {
+			for (V target : digraph.targets(source)) {
+				Assert.assertTrue(positions.get(source) < positions.get(target));
+			}
+		}
+	}
+
+	@Test
+	public void testPut() {
+		AcyclicDigraphAdapter<String,Integer> g = new AcyclicDigraphAdapter<String,Integer>();
+		g.put("c", "d", 1);
+		g.put("a", "b", 2);
+		g.put("b", "c", 3);
+		g.put("d", "e", 4);
+		assertTopologicallySorted(g, g.topsort());
+		assertTopologicallySorted(g, Digraphs.topsort(g, false));
+		Assert.assertTrue(g.wouldCreateCycle("e", "a"));
+		Assert.assertTrue(g.wouldCreateCycle("a", "a"));
+		Assert.assertFalse(g.wouldCreateCycle("a", "e"));
+		Assert.assertFalse(g.wouldCreateCycle("e", "x"));
+		try {
+			g.put("e", "b", 5);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		Assert.assertFalse(g.contains("e", "b"));
+		Assert.assertEquals(4, g.getEdgeCount());
+		Assert.assertEquals(Integer.valueOf(4), g.put("d", "e", 5));
+		Assert.assertTrue(g.isAcyclic());
+
+		g.remove("b", "c");
+		Assert.assertFalse(g.wouldCreateCycle("e", "b"));
+		g.put("e", "b", 6);
+		assertTopologicallySorted(g, g.topsort());
+
+		g.remove("d");
+		Assert.assertFalse(g.contains("d"));
+		g.put("e", "c", 7);
+		assertTopologicallySorted(g, g.topsort());
+	}
+
+	@Test
+	public void testChurn() {
+		AcyclicDigraphAdapter<Integer,Object> g = new AcyclicDigraphAdapter<Integer,Object>();
+		for (int i = 0; i < 1000; i++) {
+			g.put(i + 2, i + 1, null);
+			g.put(i + 1, i, null);
+			g.remove(Integer.valueOf(i));
+			if (i % 3 == 0) {
+				g.removeAll(Collections.singleton(i + 1));
+			}
+			assertTopologicallySorted(g, g.topsort());
+		}
+		Assert.assertTrue(g.getVertexCount() <= 3);
+		Assert.assertTrue(g.wouldCreateCycle(1000, 1001) == g.contains(1000));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCyclicDelegate() {
+		DoubledMapDigraph<String,Integer> delegate = new DoubledMapDigraph<String,Integer>();
+		delegate.put("a", "b", 1);
+		delegate.put("b", "a", 2);
+		new AcyclicDigraphAdapter<String,Integer>(delegate);
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(11);
+		int n = 200;
+		int[][] edges = RandomDigraphs.edges(random, n, 2000);
+		AcyclicDigraphAdapter<Integer,Object> g = new AcyclicDigraphAdapter<Integer,Object>();
+		for (int i = 0; i < edges.length; i++) {
+			int source = edges[i][0];
+			int target = edges[i][1];
+			boolean cycle = source == target || Digraphs.isReachable(g, target, source);
+			Assert.assertEquals(cycle, g.wouldCreateCycle(source, target));
+			if (cycle) {
+				try {
+					g.put(source, target, null);
+					Assert.fail();
+				} catch (IllegalArgumentException e) {
+					// expected
+				}
+			} else {
+				g.put(source, target, null);
+			}
+			if (i % 10 == 0) {
+				g.remove(random.nextInt(n));
+			}
+			assertTopologicallySorted(g, g.topsort());
+		}
+		Assert.assertTrue(Digraphs.isAcyclic(g));
+	}
+}
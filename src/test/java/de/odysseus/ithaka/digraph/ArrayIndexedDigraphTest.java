@@ -0,0 +1,198 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArrayIndexedDigraphTest {
+
+	@Test
+	public void testAdd() {
+		ArrayIndexedDigraph<String,Integer> digraph = new ArrayIndexedDigraph<String,Integer>();
+		Assert.assertTrue(digraph.add("foo"));
+		Assert.assertFalse(digraph.add("foo"));
+		Assert.assertTrue(digraph.contains("foo"));
+		Assert.assertFalse(digraph.contains("bar"));
+		Assert.assertEquals(1, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getVertexIndex().getId("foo"));
+		Assert.assertTrue(digraph.getIntDigraph().contains(0));
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void testVertexIndexReadonly() {
+		ArrayIndexedDigraph<String,Integer> digraph = new ArrayIndexedDigraph<String,Integer>();
+		digraph.getVertexIndex().add("foo");
+	}
+
+	@Test
+	public void testPut() {
+		ArrayIndexedDigraph<String,Integer> digraph = new ArrayIndexedDigraph<String,Integer>();
+		Assert.assertNull(digraph.put("foo", "bar", 1));
+		Assert.assertEquals(1, digraph.put("foo", "bar", 2).intValue());
+		Assert.assertEquals(2, digraph.get("foo", "bar").intValue());
+		Assert.assertNull(digraph.get("bar", "foo"));
+		Assert.assertNull(digraph.get("baz", "foo"));
+		Assert.assertTrue(digraph.contains("foo", "bar"));
+		Assert.assertFalse(digraph.contains("bar", "foo"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertEquals(1, digraph.getOutDegree("foo"));
+		Assert.assertEquals(0, digraph.getOutDegree("baz"));
+	}
+
+	@Test
+	public void testRemove() {
+		ArrayIndexedDigraph<String,Integer> digraph = new ArrayIndexedDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("b", "a", 2);
+		digraph.put("b", "c", 3);
+
+		Assert.assertEquals(3, digraph.remove("b", "c").intValue());
+		Assert.assertNull(digraph.remove("b", "c"));
+		Assert.assertTrue(digraph.remove("a"));
+		Assert.assertFalse(digraph.remove("a"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+
+		digraph.add("a");
+		Assert.assertEquals(0, digraph.getVertexIndex().getId("a"));
+	}
+
+	@Test
+	public void testRemoveAll() {
+		ArrayIndexedDigraph<String,Integer> digraph = new ArrayIndexedDigraph<String,Integer>();
+		digraph.put("a", "a", 1);
+		digraph.put("a", "b", 2);
+		digraph.put("a", "c", 3);
+		digraph.put("b", "a", 4);
+		digraph.put("c", "b", 5);
+
+		Set<String> vertices = new HashSet<String>();
+		vertices.add("a");
+		vertices.add("b");
+		vertices.add("d");
+		digraph.removeAll(vertices);
+
+		Assert.assertEquals(1, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+		Assert.assertTrue(digraph.contains("c"));
+	}
+
+	@Test
+	public void testChurn() {
+		ArrayIndexedDigraph<Integer,Integer> digraph = new ArrayIndexedDigraph<Integer,Integer>();
+		for (int i = 0; i < 1000; i++) {
+			digraph.put(i, i + 1, i);
+			digraph.remove(Integer.valueOf(i));
+		}
+		Assert.assertEquals(1, digraph.getVertexCount());
+		Assert.assertTrue(digraph.contains(1000));
+		Assert.assertTrue(digraph.getVertexIndex().size() <= 2);
+		digraph.put(1000, 1001, 1);
+		digraph.removeAll(Arrays.asList(1000));
+		Iterator<Integer> vertices = digraph.vertices().iterator();
+		Assert.assertEquals(1001, vertices.next().intValue());
+		vertices.remove();
+		Assert.assertEquals(0, digraph.getVertexIndex().getVertexCount());
+		digraph.put(1, 2, 3);
+		Assert.assertEquals(3, digraph.get(1, 2).intValue());
+		Assert.assertTrue(digraph.getVertexIndex().size() <= 2);
+	}
+
+	@Test
+	public void testVertices() {
+		ArrayIndexedDigraph<String,Integer> digraph = new ArrayIndexedDigraph<String,Integer>();
+		digraph.add("c");
+		digraph.add("b");
+		digraph.put("a", "b", 1);
+
+		Iterator<String> vertices = digraph.vertices().iterator();
+		Assert.assertEquals("c", vertices.next());
+		Assert.assertEquals("b", vertices.next());
+		vertices.remove();
+		Assert.assertEquals("a", vertices.next());
+		Assert.assertFalse(vertices.hasNext());
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+	}
+
+	@Test
+	public void testTargets() {
+		ArrayIndexedDigraph<String,Integer> digraph = new ArrayIndexedDigraph<String,Integer>();
+		digraph.add("c");
+		digraph.add("b");
+		digraph.put("a", "b", 1);
+		digraph.put("a", "c", 2);
+		digraph.put("a", "a", 3);
+
+		Iterator<String> targets = digraph.targets("a").iterator();
+		Assert.assertEquals("c", targets.next());
+		Assert.assertEquals("b", targets.next());
+		targets.remove();
+		Assert.assertEquals("a", targets.next());
+		Assert.assertFalse(targets.hasNext());
+		Assert.assertEquals(2, digraph.getEdgeCount());
+		Assert.assertFalse(digraph.contains("a", "b"));
+		Assert.assertFalse(digraph.targets("b").iterator().hasNext());
+		Assert.assertFalse(digraph.targets("foo").iterator().hasNext());
+	}
+
+	@Test
+	public void testReverse() {
+		ArrayIndexedDigraph<String,Integer> digraph = new ArrayIndexedDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("a", "c", 2);
+		Digraph<String,Integer> reverse = digraph.reverse();
+		Assert.assertEquals(3, reverse.getVertexCount());
+		Assert.assertEquals(1, reverse.get("b", "a").intValue());
+		Assert.assertEquals(2, reverse.get("c", "a").intValue());
+	}
+
+	@Test
+	public void testDigraphs() {
+		ArrayIndexedDigraph<Integer,Boolean> g = new ArrayIndexedDigraph<Integer,Boolean>();
+		g.put(1, 2, true);
+		g.put(2, 1, true);
+		g.put(1, 3, true);
+		g.put(3, 4, true);
+		g.put(4, 2, true);
+		g.put(3, 5, true);
+
+		List<Set<Integer>> components = Digraphs.scc(g);
+		Assert.assertEquals(2, components.size());
+		Assert.assertEquals(4, components.get(0).size());
+		Assert.assertTrue(components.get(1).contains(5));
+		Assert.assertFalse(g.isAcyclic());
+
+		Set<Integer> closure = Digraphs.closure(g, 3);
+		Assert.assertEquals(5, closure.size());
+
+		g.remove(2, 1);
+		g.remove(4, 2);
+		List<Integer> vertices = Digraphs.topsort(g, false);
+		Assert.assertEquals(5, vertices.size());
+		Assert.assertEquals(1, vertices.get(0).intValue());
+		Assert.assertTrue(vertices.indexOf(3) < vertices.indexOf(4));
+		Assert.assertTrue(g.isAcyclic());
+	}
+}
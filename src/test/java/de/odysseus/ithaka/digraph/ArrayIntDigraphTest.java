@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArrayIntDigraphTest {
+
+	@Test
+	public void testAdd() {
+		ArrayIntDigraph<Object> digraph = new ArrayIntDigraph<Object>(2);
+		Assert.assertTrue(digraph.add(5));
+		Assert.assertFalse(digraph.add(5));
+		Assert.assertTrue(digraph.contains(5));
+		Assert.assertFalse(digraph.contains(4));
+		Assert.assertFalse(digraph.contains(-1));
+		Assert.assertEquals(1, digraph.getVertexCount());
+		Assert.assertEquals(6, digraph.getVertexBound());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testAddNegative() {
+		new ArrayIntDigraph<Object>().add(-1);
+	}
+
+	@Test
+	public void testPut() {
+		ArrayIntDigraph<String> digraph = new ArrayIntDigraph<String>();
+		Assert.assertNull(digraph.put(1, 3, "foo"));
+		Assert.assertNull(digraph.put(1, 2, "bar"));
+		Assert.assertEquals("foo", digraph.put(1, 3, "foobar"));
+		Assert.assertEquals(3, digraph.getVertexCount());
+		Assert.assertEquals(2, digraph.getEdgeCount());
+		Assert.assertEquals("foobar", digraph.get(1, 3));
+		Assert.assertEquals("bar", digraph.get(1, 2));
+		Assert.assertNull(digraph.get(2, 1));
+		Assert.assertTrue(digraph.contains(1, 2));
+		Assert.assertFalse(digraph.contains(2, 1));
+	}
+
+	@Test
+	public void testTargets() {
+		ArrayIntDigraph<Object> digraph = new ArrayIntDigraph<Object>();
+		digraph.put(1, 3, null);
+		digraph.put(1, 0, null);
+		digraph.put(1, 2, null);
+
+		IntCursor targets = digraph.targets(1);
+		Assert.assertEquals(0, targets.next());
+		Assert.assertEquals(2, targets.next());
+		Assert.assertEquals(3, targets.next());
+		Assert.assertFalse(targets.hasNext());
+		Assert.assertFalse(digraph.targets(0).hasNext());
+		Assert.assertFalse(digraph.targets(7).hasNext());
+
+		Assert.assertEquals(3, digraph.getOutDegree(1));
+		Assert.assertEquals(2, digraph.getTarget(1, 1));
+	}
+
+	@Test
+	public void testVertices() {
+		ArrayIntDigraph<Object> digraph = new ArrayIntDigraph<Object>();
+		digraph.add(4);
+		digraph.add(1);
+		digraph.add(7);
+
+		IntCursor vertices = digraph.vertices();
+		Assert.assertEquals(1, vertices.next());
+		Assert.assertEquals(4, vertices.next());
+		Assert.assertEquals(7, vertices.next());
+		Assert.assertFalse(vertices.hasNext());
+	}
+
+	@Test
+	public void testRemove() {
+		ArrayIntDigraph<Object> digraph = new ArrayIntDigraph<Object>();
+		digraph.put(1, 2, "foo");
+		digraph.put(2, 3, "bar");
+		digraph.put(3, 2, "baz");
+
+		Assert.assertEquals("bar", digraph.remove(2, 3));
+		Assert.assertNull(digraph.remove(2, 3));
+		Assert.assertEquals(2, digraph.getEdgeCount());
+
+		Assert.assertTrue(digraph.remove(2));
+		Assert.assertFalse(digraph.remove(2));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+		Assert.assertFalse(digraph.contains(1, 2));
+		Assert.assertFalse(digraph.contains(3, 2));
+	}
+
+	@Test
+	public void testReverse() {
+		ArrayIntDigraph<String> digraph = new ArrayIntDigraph<String>();
+		digraph.put(1, 2, "foo");
+		digraph.put(1, 3, "bar");
+		digraph.add(4);
+
+		IntDigraph<String> reverse = digraph.reverse();
+		Assert.assertEquals(4, reverse.getVertexCount());
+		Assert.assertEquals(2, reverse.getEdgeCount());
+		Assert.assertEquals("foo", reverse.get(2, 1));
+		Assert.assertEquals("bar", reverse.get(3, 1));
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentMapDigraphTest {
+
+	@Test
+	public void testPut() {
+		ConcurrentMapDigraph<String,Integer> digraph = new ConcurrentMapDigraph<String,Integer>();
+		Assert.assertNull(digraph.put("foo", "bar", 1));
+		Assert.assertEquals(1, digraph.put("foo", "bar", 2).intValue());
+		Assert.assertEquals(2, digraph.get("foo", "bar").intValue());
+		Assert.assertNull(digraph.get("bar", "foo"));
+		Assert.assertTrue(digraph.contains("foo", "bar"));
+		Assert.assertFalse(digraph.contains("bar", "foo"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertEquals(1, digraph.getOutDegree("foo"));
+		Assert.assertEquals(0, digraph.getOutDegree("baz"));
+	}
+
+	@Test
+	public void testNullEdge() {
+		ConcurrentMapDigraph<String,Integer> digraph = new ConcurrentMapDigraph<String,Integer>();
+		Assert.assertNull(digraph.put("foo", "bar", null));
+		Assert.assertTrue(digraph.contains("foo", "bar"));
+		Assert.assertNull(digraph.get("foo", "bar"));
+		Assert.assertNull(digraph.put("foo", "bar", 1));
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertEquals(1, digraph.remove("foo", "bar").intValue());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+	}
+
+	@Test
+	public void testRemove() {
+		ConcurrentMapDigraph<String,Integer> digraph = new ConcurrentMapDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("b", "a", 2);
+		digraph.put("b", "c", 3);
+		digraph.put("c", "c", 4);
+		Assert.assertEquals(3, digraph.remove("b", "c").intValue());
+		Assert.assertNull(digraph.remove("b", "c"));
+		Assert.assertTrue(digraph.remove("a"));
+		Assert.assertFalse(digraph.remove("a"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		digraph.removeAll(Arrays.asList("c"));
+		Assert.assertEquals(1, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+	}
+
+	@Test
+	public void testIterators() {
+		ConcurrentMapDigraph<String,Integer> digraph = new ConcurrentMapDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("a", "c", 2);
+		digraph.put("b", "a", 3);
+		Iterator<String> targets = digraph.targets("a").iterator();
+		targets.next();
+		targets.remove();
+		Assert.assertEquals(1, digraph.getOutDegree("a"));
+		Assert.assertEquals(2, digraph.getEdgeCount());
+		// weakly consistent iteration while modifying
+		for (String vertex : digraph.vertices()) {
+			if (!vertex.equals("d")) {
+				digraph.put(vertex, "d", 0);
+			}
+		}
+		Iterator<String> vertices = digraph.vertices().iterator();
+		while (vertices.hasNext()) {
+			if (!vertices.next().equals("d")) {
+				vertices.remove();
+			}
+		}
+		Assert.assertEquals(1, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		final ConcurrentMapDigraph<Integer,Integer> digraph = new ConcurrentMapDigraph<Integer,Integer>(4);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for (int t = 0; t < 4; t++) {
+				final int offset = t * 100;
+				futures.add(executor.submit(new Callable<Object>() {
+					@Override
+					public Object call() {
+						for (int i = 0; i < 100; i++) {
+							for (int j = 0; j < 50; j++) {
+								digraph.put(offset + i, j, i);
+							}
+							for (Integer target : digraph.targets(offset + i)) {
+								if (target % 2 == 1) {
+									digraph.remove(offset + i, target);
+								}
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Object> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(400 * 25, digraph.getEdgeCount());
+		digraph.removeAll(Arrays.asList(0, 2));
+		Assert.assertEquals(398 * 23, digraph.getEdgeCount());
+	}
+
+	@Test
+	public void testReverse() {
+		ConcurrentMapDigraph<String,Integer> digraph = new ConcurrentMapDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("b", "c", 2);
+		Digraph<String,Integer> reverse = digraph.reverse();
+		Assert.assertEquals(2, reverse.get("c", "b").intValue());
+		Assert.assertTrue(digraph.isAcyclic());
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CondensationTest {
+	private static WeightedDigraphAdapter<Integer> graph() {
+		WeightedDigraphAdapter<Integer> g = new WeightedDigraphAdapter<Integer>();
+		g.put(1, 2, 1);
+		g.put(2, 1, 2);
+		g.put(1, 3, 3);
+		g.put(2, 3, 4);
+		g.put(3, 4, 5);
+		g.put(4, 3, 6);
+		g.put(2, 5, 7);
+		g.put(4, 5, 8);
+		return g;
+	}
+
+	@Test
+	public void testMultiplicities() {
+		WeightedDigraphAdapter<Integer> g = graph();
+		Condensation<Integer,Integer> counts = new Condensation<Integer,Integer>(g);
+		Condensation<Integer,Integer> weights = new Condensation<Integer,Integer>(g, g);
+		Assert.assertEquals(3, counts.getComponentCount());
+		Assert.assertEquals(3, counts.getEdgeCount());
+
+		StronglyConnectedComponents<Integer> components = counts.getComponents();
+		int c12 = components.getComponent(1);
+		int c34 = components.getComponent(3);
+		int c5 = components.getComponent(5);
+		Assert.assertEquals(2, counts.getOutDegree(c12));
+		Assert.assertEquals(1, counts.getOutDegree(c34));
+		Assert.assertEquals(0, counts.getOutDegree(c5));
+		for (int i = 0; i < counts.getOutDegree(c12); i++) {
+			if (counts.getTarget(c12, i) == c34) {
+				Assert.assertEquals(2, counts.getMultiplicity(c12, i));
+				Assert.assertEquals(7, weights.getMultiplicity(c12, i));
+			} else {
+				Assert.assertEquals(c5, counts.getTarget(c12, i));
+				Assert.assertEquals(1, counts.getMultiplicity(c12, i));
+				Assert.assertEquals(7, weights.getMultiplicity(c12, i));
+			}
+		}
+		Assert.assertEquals(c5, counts.getTarget(c34, 0));
+		Assert.assertEquals(8, weights.getMultiplicity(c34, 0));
+	}
+
+	@Test
+	public void testSubgraph() {
+		WeightedDigraphAdapter<Integer> g = graph();
+		Condensation<Integer,Integer> condensation = new Condensation<Integer,Integer>(g);
+		int c = condensation.getComponents().getComponent(3);
+		Digraph<Integer,Integer> subgraph = condensation.getSubgraph(c);
+		Assert.assertSame(subgraph, condensation.getSubgraph(c));
+		Assert.assertEquals(2, subgraph.getVertexCount());
+		Assert.assertEquals(2, subgraph.getEdgeCount());
+		Assert.assertEquals(Integer.valueOf(6), subgraph.get(4, 3));
+	}
+
+	@Test
+	public void testToDigraph() {
+		WeightedDigraphAdapter<Integer> g = graph();
+		WeightedDigraph<WeightedDigraph<Integer>> partition = g.partition(false);
+		Assert.assertEquals(3, partition.getVertexCount());
+		Assert.assertEquals(3, partition.getEdgeCount());
+		Assert.assertEquals(7 + 7 + 8, partition.totalWeight());
+		for (WeightedDigraph<Integer> component : partition.vertices()) {
+			if (component.contains(1)) {
+				Assert.assertEquals(new HashSet<Integer>(Arrays.asList(1, 2)), new HashSet<Integer>(Digraphs.topsort(component, false)));
+				Assert.assertEquals(3, component.totalWeight());
+				Assert.assertEquals(2, partition.getOutDegree(component));
+			}
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CsrDigraphTest {
+	private MapDigraph<String,Integer> createMapDigraph() {
+		MapDigraph<String,Integer> digraph = new MapDigraph<String,Integer>();
+		digraph.add("a");
+		digraph.put("a", "c", 1);
+		digraph.put("a", "b", 2);
+		digraph.put("b", "c", 3);
+		digraph.put("c", "a", 4);
+		digraph.put("c", "c", 5);
+		digraph.add("d");
+		return digraph;
+	}
+
+	@Test
+	public void testCopy() {
+		MapDigraph<String,Integer> digraph = createMapDigraph();
+		CsrDigraph<String,Integer> csr = new CsrDigraph<String,Integer>(digraph);
+
+		Assert.assertEquals(4, csr.getVertexCount());
+		Assert.assertEquals(5, csr.getEdgeCount());
+		Assert.assertTrue(Digraphs.isEquivalent(digraph, csr, true));
+		Assert.assertTrue(Digraphs.isEquivalent(csr, digraph, true));
+	}
+
+	@Test
+	public void testVertices() {
+		CsrDigraph<String,Integer> csr = new CsrDigraph<String,Integer>(createMapDigraph());
+		Iterator<String> vertices = csr.vertices().iterator();
+		Assert.assertEquals("a", vertices.next());
+		Assert.assertEquals("c", vertices.next());
+		Assert.assertEquals("b", vertices.next());
+		Assert.assertEquals("d", vertices.next());
+		Assert.assertFalse(vertices.hasNext());
+	}
+
+	@Test
+	public void testTargets() {
+		CsrDigraph<String,Integer> csr = new CsrDigraph<String,Integer>(createMapDigraph());
+		Iterator<String> targets = csr.targets("c").iterator();
+		Assert.assertEquals("a", targets.next());
+		Assert.assertEquals("c", targets.next());
+		Assert.assertFalse(targets.hasNext());
+		Assert.assertFalse(csr.targets("d").iterator().hasNext());
+		Assert.assertFalse(csr.targets("foo").iterator().hasNext());
+	}
+
+	@Test
+	public void testSources() {
+		CsrDigraph<String,Integer> csr = new CsrDigraph<String,Integer>(createMapDigraph());
+		Set<String> sources = new HashSet<String>();
+		for (String source : csr.sources("c")) {
+			sources.add(source);
+		}
+		Assert.assertEquals(3, sources.size());
+		Assert.assertTrue(sources.contains("a"));
+		Assert.assertTrue(sources.contains("b"));
+		Assert.assertTrue(sources.contains("c"));
+		Assert.assertEquals(3, csr.getInDegree("c"));
+		Assert.assertEquals(0, csr.getInDegree("d"));
+	}
+
+	@Test
+	public void testGet() {
+		CsrDigraph<String,Integer> csr = new CsrDigraph<String,Integer>(createMapDigraph());
+		Assert.assertEquals(2, csr.get("a", "b").intValue());
+		Assert.assertEquals(5, csr.get("c", "c").intValue());
+		Assert.assertNull(csr.get("b", "a"));
+		Assert.assertNull(csr.get("foo", "a"));
+		Assert.assertNull(csr.get("a", "foo"));
+	}
+
+	@Test
+	public void testGetOutDegree() {
+		CsrDigraph<String,Integer> csr = new CsrDigraph<String,Integer>(createMapDigraph());
+		Assert.assertEquals(2, csr.getOutDegree("a"));
+		Assert.assertEquals(1, csr.getOutDegree("b"));
+		Assert.assertEquals(0, csr.getOutDegree("d"));
+		Assert.assertEquals(0, csr.getOutDegree("foo"));
+	}
+
+	@Test
+	public void testReverse() {
+		MapDigraph<String,Integer> digraph = createMapDigraph();
+		CsrDigraph<String,Integer> csr = new CsrDigraph<String,Integer>(digraph);
+		CsrDigraph<String,Integer> reverse = csr.reverse();
+
+		Assert.assertTrue(Digraphs.isEquivalent(digraph.reverse(), reverse, true));
+		Assert.assertEquals(4, reverse.get("a", "c").intValue());
+		Assert.assertEquals(1, reverse.getOutDegree("a"));
+		Assert.assertEquals(3, reverse.getOutDegree("c"));
+		Assert.assertSame(csr, reverse.reverse());
+	}
+
+	@Test
+	public void testSubgraph() {
+		CsrDigraph<String,Integer> csr = new CsrDigraph<String,Integer>(createMapDigraph());
+		Set<String> vertices = new HashSet<String>();
+		vertices.add("a");
+		vertices.add("b");
+		Digraph<String,Integer> subgraph = csr.subgraph(vertices);
+		Assert.assertEquals(2, subgraph.getVertexCount());
+		Assert.assertEquals(1, subgraph.getEdgeCount());
+		Assert.assertTrue(subgraph.contains("a", "b"));
+	}
+
+	@Test
+	public void testIsAcyclic() {
+		MapDigraph<String,Integer> digraph = createMapDigraph();
+		Assert.assertFalse(new CsrDigraph<String,Integer>(digraph).isAcyclic());
+		digraph.remove("c", "a");
+		digraph.remove("c", "c");
+		Assert.assertTrue(new CsrDigraph<String,Integer>(digraph).isAcyclic());
+	}
+
+	@Test
+	public void testGetIntDigraph() {
+		CsrDigraph<String,Integer> csr = new CsrDigraph<String,Integer>(createMapDigraph());
+		IntDigraph<Integer> ints = csr.getIntDigraph();
+		VertexIndex<String> index = csr.getVertexIndex();
+		int a = index.getId("a");
+		int c = index.getId("c");
+
+		Assert.assertEquals(4, ints.getVertexCount());
+		Assert.assertEquals(5, ints.getEdgeCount());
+		Assert.assertEquals(4, ints.get(c, a).intValue());
+		Assert.assertEquals(2, ints.getOutDegree(a));
+		IntCursor targets = ints.targets(c);
+		Assert.assertEquals(a, targets.next());
+		Assert.assertEquals(c, targets.next());
+		Assert.assertFalse(targets.hasNext());
+		Assert.assertEquals(1, ints.reverse().get(c, a).intValue());
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void testPut() {
+		new CsrDigraph<String,Integer>(createMapDigraph()).put("a", "d", 6);
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void testRemove() {
+		new CsrDigraph<String,Integer>(createMapDigraph()).remove("a");
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void testTargetsRemove() {
+		Iterator<String> targets = new CsrDigraph<String,Integer>(createMapDigraph()).targets("a").iterator();
+		targets.next();
+		targets.remove();
+	}
+}
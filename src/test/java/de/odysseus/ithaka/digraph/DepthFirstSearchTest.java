@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.DepthFirstSearch.EdgeType;
+
+public class DepthFirstSearchTest {
+
+	@Test
+	public void testVisitor() {
+		Digraph<Integer,Object> digraph = new MapDigraph<Integer,Object>();
+		digraph.put(1, 2, null);
+		digraph.put(2, 3, null);
+		digraph.put(3, 1, null);
+		digraph.put(1, 3, null);
+		digraph.put(4, 3, null);
+
+		final List<String> events = new ArrayList<String>();
+		DepthFirstSearch.Visitor<Integer> visitor = new DepthFirstSearch.Visitor<Integer>(true) {
+			@Override
+			public void discover(Integer vertex) {
+				events.add("d" + vertex);
+			}
+			@Override
+			public void finish(Integer vertex) {
+				events.add("f" + vertex);
+			}
+			@Override
+			public void edge(Integer source, Integer target, EdgeType type) {
+				events.add(source + "-" + target + ":" + type);
+			}
+		};
+		Set<Integer> discovered = new HashSet<Integer>();
+		DepthFirstSearch<Integer> search = new DepthFirstSearch<Integer>(digraph);
+		Assert.assertTrue(search.search(1, discovered, visitor));
+		Assert.assertFalse(search.search(1, discovered, visitor));
+		search.searchAll(discovered, visitor);
+		Assert.assertEquals(Arrays.asList(
+				"d1", "1-2:TREE", "d2", "2-3:TREE", "d3", "3-1:BACK", "f3", "f2", "1-3:FORWARD_OR_CROSS", "f1",
+				"d4", "4-3:FORWARD_OR_CROSS", "f4"), events);
+	}
+
+	@Test
+	public void testBackward() {
+		Digraph<Integer,Object> digraph = new MapDigraph<Integer,Object>();
+		digraph.put(1, 2, null);
+		digraph.put(3, 2, null);
+		digraph.add(4);
+		List<Integer> finished = new ArrayList<Integer>();
+		new DepthFirstSearch<Integer>(digraph, digraph.reverse()).search(1, new HashSet<Integer>(), DepthFirstSearch.<Integer>finished(finished));
+		Assert.assertEquals(Arrays.asList(3, 2, 1), finished);
+	}
+
+	@Test
+	public void testDeepChain() {
+		int n = 200000;
+		Digraph<Integer,Object> digraph = new MapDigraph<Integer,Object>();
+		for (int i = 0; i < n; i++) {
+			digraph.put(i, i + 1, null);
+		}
+		Assert.assertEquals(n + 1, Digraphs.closure(digraph, 0).size());
+		List<Integer> order = Digraphs.topsort(digraph, false);
+		Assert.assertEquals(0, order.get(0).intValue());
+		Assert.assertEquals(n, order.get(n).intValue());
+		Assert.assertEquals(n + 1, Digraphs.wcc(digraph).get(0).size());
+		Assert.assertEquals(n + 1, Digraphs.scc(digraph).size());
+	}
+}
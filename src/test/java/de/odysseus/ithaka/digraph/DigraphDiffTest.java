@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DigraphDiffTest {
+	static final Comparator<Integer> CMP = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			return o1.compareTo(o2);
+		}
+	};
+
+	private void fill(Digraph<Integer,String> digraph, boolean second) {
+		digraph.put(1, 2, "a");
+		digraph.put(2, 3, second ? "B" : "b");
+		digraph.put(3, 1, "c");
+		digraph.put(4, 1, "d"); // 4 removed/added
+		digraph.put(1, 4, "e");
+		if (second) {
+			digraph.remove(4);
+			digraph.put(5, 1, "f");
+			digraph.put(1, 3, "g");
+			digraph.add(6);
+			digraph.remove(3, 1);
+		}
+	}
+
+	private void assertDiff(Digraph<Integer,String> from, Digraph<Integer,String> to) {
+		fill(from, false);
+		fill(to, true);
+		DigraphDiff<Integer,String> diff = DigraphDiff.compute(from, to);
+		Assert.assertEquals(Arrays.asList(4), diff.getRemovedVertices());
+		Assert.assertEquals(new HashSet<Integer>(Arrays.asList(5, 6)), new HashSet<Integer>(diff.getAddedVertices()));
+		Assert.assertEquals(2, diff.getAddedEdges().getEdgeCount());
+		Assert.assertEquals("f", diff.getAddedEdges().get(5, 1));
+		Assert.assertEquals("g", diff.getAddedEdges().get(1, 3));
+		Assert.assertEquals(1, diff.getRemovedEdges().getEdgeCount());
+		Assert.assertEquals("c", diff.getRemovedEdges().get(3, 1));
+		Assert.assertEquals(1, diff.getChangedEdges().getEdgeCount());
+		Assert.assertEquals("B", diff.getChangedEdges().get(2, 3));
+		Assert.assertFalse(diff.isEmpty());
+
+		diff.apply(from);
+		Assert.assertTrue(Digraphs.isEquivalent(from, to, true));
+		Assert.assertTrue(DigraphDiff.compute(from, to).isEmpty());
+	}
+
+	@Test
+	public void testSorted() {
+		assertDiff(new MapDigraph<Integer,String>(CMP), new MapDigraph<Integer,String>(CMP));
+	}
+
+	@Test
+	public void testUnsorted() {
+		assertDiff(new MapDigraph<Integer,String>(), new MapDigraph<Integer,String>());
+		assertDiff(new MapDigraph<Integer,String>(CMP), new MapDigraph<Integer,String>(Collections.<Integer>reverseOrder()));
+		assertDiff(new MapDigraph<Integer,String>(CMP, null), new MapDigraph<Integer,String>(CMP, null));
+		assertDiff(new DoubledDigraphAdapter<Integer,String>(), new MapDigraph<Integer,String>(CMP));
+	}
+
+	@Test
+	public void testEmpty() {
+		Assert.assertTrue(DigraphDiff.compute(new MapDigraph<Integer,String>(CMP), new MapDigraph<Integer,String>(CMP)).isEmpty());
+		Digraph<Integer,String> digraph = new MapDigraph<Integer,String>(CMP);
+		fill(digraph, false);
+		DigraphDiff<Integer,String> diff = DigraphDiff.compute(new MapDigraph<Integer,String>(CMP), digraph);
+		Assert.assertEquals(4, diff.getAddedVertices().size());
+		Assert.assertEquals(5, diff.getAddedEdges().getEdgeCount());
+		diff = DigraphDiff.compute(digraph, new MapDigraph<Integer,String>(CMP));
+		Assert.assertEquals(4, diff.getRemovedVertices().size());
+		Assert.assertEquals(0, diff.getRemovedEdges().getEdgeCount());
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(7);
+		for (int round = 0; round < 20; round++) {
+			Digraph<Integer,String> from = new MapDigraph<Integer,String>(CMP);
+			Digraph<Integer,String> to = new MapDigraph<Integer,String>(CMP);
+			Digraph<Integer,String> receiver = new DoubledDigraphAdapter<Integer,String>();
+			for (int i = 0; i < 200; i++) {
+				int source = random.nextInt(40);
+				int target = random.nextInt(40);
+				String edge = String.valueOf(random.nextInt(3));
+				from.put(source, target, edge);
+				receiver.put(source, target, edge);
+				if (random.nextInt(4) > 0) {
+					to.put(source, target, random.nextInt(4) > 0 ? edge : "x");
+				}
+			}
+			for (int i = 0; i < 40; i++) {
+				to.put(random.nextInt(45), random.nextInt(45), "y");
+			}
+			DigraphDiff<Integer,String> diff = DigraphDiff.compute(from, to);
+			diff.apply(receiver);
+			Assert.assertTrue(Digraphs.isEquivalent(receiver, to, true));
+		}
+	}
+}
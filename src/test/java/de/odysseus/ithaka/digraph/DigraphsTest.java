@@ -16,6 +16,7 @@
 package de.odysseus.ithaka.digraph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -59,6 +60,59 @@ public class DigraphsTest {
 		Assert.assertEquals(g.getVertexCount(), n);
 	}
 
+	@Test
+	public void testTopsortLayers() {
+		SimpleDigraph<Integer> g = new SimpleDigraphAdapter<Integer>();
+		g.add(1, 2);
+		g.add(2, 3);
+		g.add(3, 4);
+		g.add(1, 3);
+		g.add(5, 3);
+		g.add(6);
+
+		List<List<Integer>> layers = Digraphs.topsortLayers(g);
+		Assert.assertEquals(4, layers.size());
+		Assert.assertEquals(new HashSet<Integer>(Arrays.asList(1, 5, 6)), new HashSet<Integer>(layers.get(0)));
+		Assert.assertEquals(Arrays.asList(2), layers.get(1));
+		Assert.assertEquals(Arrays.asList(3), layers.get(2));
+		Assert.assertEquals(Arrays.asList(4), layers.get(3));
+
+		g.add(4, 2);
+		try {
+			Digraphs.topsortLayers(g);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testTopsortLayersParallel() {
+		// complete bipartite layers of width 3000
+		SimpleDigraph<Integer> g = new SimpleDigraphAdapter<Integer>();
+		int width = 3000;
+		for (int layer = 0; layer < 4; layer++) {
+			for (int i = 0; i < width; i++) {
+				int source = layer * width + i;
+				g.add(source);
+				if (layer < 3) {
+					g.add(source, (layer + 1) * width + i);
+					g.add(source, (layer + 1) * width + (i + 1) % width);
+				}
+			}
+		}
+		List<List<Integer>> expected = Digraphs.topsortLayers(g);
+		List<List<Integer>> layers = Digraphs.topsortLayers(g, 4);
+		Assert.assertEquals(4, layers.size());
+		for (int layer = 0; layer < 4; layer++) {
+			Assert.assertEquals(width, layers.get(layer).size());
+			Assert.assertEquals(new HashSet<Integer>(expected.get(layer)), new HashSet<Integer>(layers.get(layer)));
+			for (int vertex : layers.get(layer)) {
+				Assert.assertEquals(layer, vertex / width);
+			}
+		}
+	}
+
 	@Test
 	public void testClosure() {
 		SimpleDigraph<Integer> g = new SimpleDigraphAdapter<Integer>();
@@ -103,6 +157,12 @@ public class DigraphsTest {
 		g.add(3, 2);
 		g.add(3, 4);
 		Assert.assertFalse(Digraphs.isAcyclic(g));
+
+		g = new SimpleDigraphAdapter<Integer>(); // n * (n - 1) / 2 exceeds int range
+		for (int i = 1; i < 50000; i++) {
+			g.add(0, i);
+		}
+		Assert.assertTrue(Digraphs.isAcyclic(g));
 	}
 
 	@Test
@@ -328,6 +388,39 @@ public class DigraphsTest {
 		Assert.assertTrue(r.contains(6, 5));
 	}
 
+	@Test
+	public void testReverseView() {
+		Digraph<Integer,Integer> digraph = new MapDigraph<Integer,Integer>();
+		digraph.put(1, 2, 12);
+		digraph.put(1, 3, 13);
+		digraph.put(3, 2, 32);
+		digraph.add(4);
+
+		DoubledDigraph<Integer,Integer> reverse = Digraphs.reverseView(digraph);
+		Assert.assertEquals(4, reverse.getVertexCount());
+		Assert.assertEquals(3, reverse.getEdgeCount());
+		Assert.assertEquals(2, reverse.getOutDegree(2));
+		Assert.assertEquals(2, reverse.getInDegree(1));
+		Assert.assertEquals(32, reverse.get(2, 3).intValue());
+		Assert.assertTrue(reverse.contains(3, 1));
+		Assert.assertFalse(reverse.contains(1, 3));
+		Assert.assertTrue(Digraphs.isEquivalent(digraph.reverse(), reverse, true));
+		Assert.assertTrue(Digraphs.isEquivalent(digraph, reverse.reverse(), true));
+		try {
+			reverse.put(1, 4, 14);
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		// doubled digraphs: view is backed by the digraph
+		DoubledDigraph<Integer,Integer> doubled = new DoubledMapDigraph<Integer,Integer>();
+		Assert.assertSame(doubled, Digraphs.doubledView(doubled));
+		reverse = Digraphs.reverseView(doubled);
+		reverse.put(1, 2, 21);
+		Assert.assertEquals(21, doubled.get(2, 1).intValue());
+	}
+
 	@Test
 	public void testSubgraph() {
 		SimpleDigraph<Integer> g = new SimpleDigraphAdapter<Integer>();
@@ -350,6 +443,72 @@ public class DigraphsTest {
 		Assert.assertTrue(s.contains(1, 3));
 	}
 
+	@Test
+	public void testSubgraphView() {
+		Digraph<Integer,Integer> g = new MapDigraph<Integer,Integer>();
+		g.put(1, 2, 12);
+		g.put(1, 3, 13);
+		g.put(4, 2, 42);
+		g.put(5, 6, 56);
+		g.add(7);
+
+		Set<Integer> nodes = new HashSet<Integer>();
+		nodes.add(1);
+		nodes.add(2);
+		nodes.add(3);
+		nodes.add(7);
+		nodes.add(8);
+		Digraph<Integer,Integer> s = Digraphs.subgraphView(g, nodes);
+
+		Assert.assertEquals(4, s.getVertexCount());
+		Assert.assertEquals(2, s.getEdgeCount());
+		Assert.assertTrue(s.contains(1, 2));
+		Assert.assertEquals(13, s.get(1, 3).intValue());
+		Assert.assertFalse(s.contains(4));
+		Assert.assertFalse(s.contains(8));
+		Assert.assertNull(s.get(4, 2));
+		Assert.assertEquals(0, s.getOutDegree(4));
+		Assert.assertFalse(s.targets(4).iterator().hasNext());
+		Assert.assertTrue(Digraphs.isEquivalent(g.subgraph(nodes), s, true));
+		Assert.assertTrue(Digraphs.isEquivalent(g.subgraph(nodes), Digraphs.copy(s, MapDigraph.<Integer,Integer>getDefaultDigraphFactory()), true));
+
+		nodes = new HashSet<Integer>();
+		nodes.add(1);
+		nodes.add(2);
+		nodes.add(4);
+		Digraph<Integer,Integer> t = s.subgraph(nodes);
+		Assert.assertEquals(2, t.getVertexCount());
+		Assert.assertEquals(1, t.getEdgeCount());
+	}
+
+	@Test
+	public void testPartitionView() {
+		Digraph<Integer,Boolean> g = new MapDigraph<Integer,Boolean>();
+		g.put(1, 2, true);
+		g.put(2, 1, true);
+		g.put(1, 3, true);
+		g.put(3, 4, true);
+		g.put(4, 3, true);
+
+		EdgeCumulator<Digraph<Integer,Boolean>, Integer, Boolean> c =
+			new EdgeCumulator<Digraph<Integer,Boolean>, Integer, Boolean>() {
+			@Override
+			public Integer add(Digraph<Integer,Boolean> s, Digraph<Integer,Boolean> t, Integer c, Boolean e) {
+				return c == null ? 1 : c + 1;
+			}
+		};
+		Digraph<Digraph<Integer,Boolean>,Integer> p =
+			Digraphs.partition(g, Digraphs.scc(g), MapDigraph.<Digraph<Integer,Boolean>,Integer>getDefaultDigraphFactory(), c);
+
+		Assert.assertEquals(2, p.getVertexCount());
+		Assert.assertEquals(1, p.getEdgeCount());
+		for (Digraph<Integer,Boolean> s : p.vertices()) {
+			Assert.assertEquals(2, s.getVertexCount());
+			Assert.assertEquals(2, s.getEdgeCount());
+			Assert.assertEquals(s.contains(1) ? 1 : 0, p.getOutDegree(s));
+		}
+	}
+
 	@Test
 	public void testPartition() {
 		SimpleDigraph<Integer> g = new SimpleDigraphAdapter<Integer>();
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DoubledMapDigraphTest {
+
+	@Test
+	public void testPut() {
+		DoubledMapDigraph<String,Integer> digraph = new DoubledMapDigraph<String,Integer>();
+		Assert.assertNull(digraph.put("foo", "bar", 1));
+		Assert.assertEquals(1, digraph.put("foo", "bar", 2).intValue());
+		Assert.assertEquals(2, digraph.get("foo", "bar").intValue());
+		Assert.assertNull(digraph.put("bar", "bar", null));
+		Assert.assertNull(digraph.put("bar", "bar", 3));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(2, digraph.getEdgeCount());
+		Assert.assertEquals(2, digraph.getInDegree("bar"));
+		Assert.assertEquals(0, digraph.getInDegree("foo"));
+		Assert.assertEquals("[foo, bar]", digraph.sources("bar").toString());
+	}
+
+	@Test
+	public void testRemoveVertex() {
+		DoubledMapDigraph<String,Integer> digraph = new DoubledMapDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("b", "a", 2);
+		digraph.put("b", "b", 3);
+		digraph.put("b", "c", 4);
+		digraph.put("c", "b", 5);
+		Assert.assertTrue(digraph.remove("b"));
+		Assert.assertFalse(digraph.remove("b"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+		Assert.assertEquals(0, digraph.getOutDegree("a"));
+		Assert.assertEquals(0, digraph.getInDegree("a"));
+		Assert.assertFalse(digraph.sources("c").iterator().hasNext());
+		digraph.put("a", "c", 6);
+		Assert.assertEquals("[a]", digraph.sources("c").toString());
+	}
+
+	@Test
+	public void testRemoveAll() {
+		DoubledMapDigraph<String,Integer> digraph = new DoubledMapDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("a", "c", 1);
+		digraph.put("b", "c", 1);
+		digraph.put("c", "d", 1);
+		digraph.removeAll(Arrays.asList("b", "d"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertTrue(digraph.contains("a", "c"));
+		Assert.assertEquals(1, digraph.getInDegree("c"));
+	}
+
+	@Test
+	public void testIterators() {
+		DoubledMapDigraph<String,Integer> digraph = new DoubledMapDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("a", "c", 2);
+		digraph.put("b", "a", 3);
+		digraph.put("c", "a", 4);
+		Iterator<String> targets = digraph.targets("a").iterator();
+		targets.next();
+		targets.remove();
+		Assert.assertEquals(0, digraph.getInDegree("b"));
+		Iterator<String> sources = digraph.sources("a").iterator();
+		Assert.assertEquals("b", sources.next());
+		sources.remove();
+		Assert.assertEquals(0, digraph.getOutDegree("b"));
+		Assert.assertEquals(2, digraph.getEdgeCount());
+		Iterator<String> vertices = digraph.vertices().iterator();
+		while (vertices.hasNext()) {
+			if (!vertices.next().equals("b")) {
+				vertices.remove();
+			}
+		}
+		Assert.assertEquals(1, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+	}
+
+	@Test
+	public void testReverse() {
+		DoubledMapDigraph<String,Integer> digraph = new DoubledMapDigraph<String,Integer>(String.CASE_INSENSITIVE_ORDER);
+		digraph.put("b", "a", 1);
+		digraph.put("c", "a", 2);
+		DoubledDigraph<String,Integer> reverse = digraph.reverse();
+		Assert.assertSame(digraph, reverse.reverse());
+		Assert.assertEquals(2, reverse.get("a", "c").intValue());
+		Assert.assertEquals("[b, c]", reverse.targets("a").toString());
+		Assert.assertEquals(2, reverse.getOutDegree("a"));
+		Assert.assertEquals(1, reverse.getInDegree("b"));
+		Assert.assertTrue(Digraphs.isEquivalent(digraph, reverse.reverse(), true));
+	}
+}
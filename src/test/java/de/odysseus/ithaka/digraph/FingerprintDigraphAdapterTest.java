@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FingerprintDigraphAdapterTest {
+	private FingerprintDigraphAdapter<String,Integer> graph() {
+		FingerprintDigraphAdapter<String,Integer> digraph = new FingerprintDigraphAdapter<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("b", "c", 2);
+		digraph.put("c", "a", 3);
+		digraph.put("c", "d", 4);
+		digraph.add("e");
+		return digraph;
+	}
+
+	private void assertFingerprint(FingerprintDigraphAdapter<String,Integer> digraph) {
+		FingerprintDigraphAdapter<String,Integer> copy = new FingerprintDigraphAdapter<String,Integer>();
+		for (String source : digraph.vertices()) {
+			copy.add(source);
+			for (String target : digraph.targets(source)) {
+				copy.put(source, target, digraph.get(source, target));
+			}
+		}
+		Assert.assertEquals(copy.getFingerprint(false), digraph.getFingerprint(false));
+		Assert.assertEquals(copy.getFingerprint(true), digraph.getFingerprint(true));
+	}
+
+	@Test
+	public void testConstructor() {
+		MapDigraph<String,Integer> delegate = new MapDigraph<String,Integer>();
+		delegate.put("a", "b", 1);
+		delegate.put("b", "a", 2);
+		FingerprintDigraphAdapter<String,Integer> digraph = new FingerprintDigraphAdapter<String,Integer>();
+		digraph.put("b", "a", 2);
+		digraph.put("a", "b", 1);
+		Assert.assertEquals(digraph.getFingerprint(true), new FingerprintDigraphAdapter<String,Integer>(delegate).getFingerprint(true));
+	}
+
+	@Test
+	public void testPutRemove() {
+		FingerprintDigraphAdapter<String,Integer> digraph = graph();
+		long structure = digraph.getFingerprint(false);
+		long edges = digraph.getFingerprint(true);
+
+		digraph.put("a", "b", 5);
+		Assert.assertEquals(structure, digraph.getFingerprint(false));
+		Assert.assertFalse(edges == digraph.getFingerprint(true));
+		assertFingerprint(digraph);
+		digraph.put("a", "b", 1);
+		Assert.assertEquals(edges, digraph.getFingerprint(true));
+
+		digraph.put("d", "f", 6);
+		Assert.assertFalse(structure == digraph.getFingerprint(false));
+		assertFingerprint(digraph);
+		digraph.remove("d", "f");
+		digraph.remove("f");
+		Assert.assertEquals(structure, digraph.getFingerprint(false));
+		Assert.assertEquals(edges, digraph.getFingerprint(true));
+
+		Assert.assertNull(digraph.remove("a", "c"));
+		Assert.assertFalse(digraph.remove("x"));
+		Assert.assertEquals(edges, digraph.getFingerprint(true));
+
+		digraph.put("a", "a", 7);
+		assertFingerprint(digraph);
+		digraph.remove("a", "a");
+		Assert.assertEquals(edges, digraph.getFingerprint(true));
+	}
+
+	@Test
+	public void testDirection() {
+		FingerprintDigraphAdapter<String,Integer> digraph1 = new FingerprintDigraphAdapter<String,Integer>();
+		digraph1.put("a", "b", null);
+		FingerprintDigraphAdapter<String,Integer> digraph2 = new FingerprintDigraphAdapter<String,Integer>();
+		digraph2.put("b", "a", null);
+		Assert.assertFalse(digraph1.getFingerprint(false) == digraph2.getFingerprint(false));
+	}
+
+	@Test
+	public void testRemoveVertex() {
+		FingerprintDigraphAdapter<String,Integer> digraph = graph();
+		digraph.remove("c");
+		assertFingerprint(digraph);
+		digraph = graph();
+		digraph.removeAll(Arrays.asList("a", "d", "x"));
+		assertFingerprint(digraph);
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		FingerprintDigraphAdapter<String,Integer> digraph = graph();
+		Iterator<String> targets = digraph.targets("c").iterator();
+		targets.next();
+		targets.remove();
+		assertFingerprint(digraph);
+		Iterator<String> vertices = digraph.vertices().iterator();
+		while (!"b".equals(vertices.next())) {
+		}
+		vertices.remove();
+		Assert.assertFalse(digraph.contains("b"));
+		assertFingerprint(digraph);
+	}
+
+	@Test
+	public void testIsEquivalent() {
+		FingerprintDigraphAdapter<String,Integer> digraph1 = graph();
+		FingerprintDigraphAdapter<String,Integer> digraph2 = graph();
+		Assert.assertTrue(Digraphs.isEquivalent(digraph1, digraph2, true));
+		digraph2.put("a", "b", 5);
+		Assert.assertTrue(Digraphs.isEquivalent(digraph1, digraph2, false));
+		Assert.assertFalse(Digraphs.isEquivalent(digraph1, digraph2, true));
+		digraph2.remove("a", "b");
+		digraph2.put("b", "a", 1);
+		Assert.assertFalse(Digraphs.isEquivalent(digraph1, digraph2, false));
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.BitSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntDigraphsTest {
+
+	@Test
+	public void testTopsort() {
+		IntDigraph<Object> g = new ArrayIntDigraph<Object>();
+		g.put(1, 2, null);
+		g.put(2, 3, null);
+		g.put(3, 4, null);
+		g.put(1, 3, null);
+		g.put(2, 4, null);
+
+		int[] vertices = IntDigraphs.topsort(g, false);
+		Assert.assertEquals(4, vertices.length);
+		for (int i = 0; i < vertices.length; i++) {
+			Assert.assertEquals(i + 1, vertices[i]);
+		}
+		vertices = IntDigraphs.topsort(g, true);
+		for (int i = 0; i < vertices.length; i++) {
+			Assert.assertEquals(4 - i, vertices[i]);
+		}
+	}
+
+	@Test
+	public void testClosure() {
+		IntDigraph<Object> g = new ArrayIntDigraph<Object>();
+		g.put(1, 2, null);
+		g.put(2, 3, null);
+		g.put(3, 2, null);
+		g.put(3, 4, null);
+
+		BitSet c;
+
+		c = IntDigraphs.closure(g, 1);
+		Assert.assertEquals(4, c.cardinality());
+
+		c = IntDigraphs.closure(g, 2);
+		Assert.assertEquals(3, c.cardinality());
+		Assert.assertFalse(c.get(1));
+
+		c = IntDigraphs.closure(g, 4);
+		Assert.assertEquals(1, c.cardinality());
+		Assert.assertTrue(c.get(4));
+	}
+
+	@Test
+	public void testClosureMissing() {
+		IntDigraph<Object> g = new ArrayIntDigraph<Object>();
+		BitSet c = IntDigraphs.closure(g, 0);
+		Assert.assertEquals(1, c.cardinality());
+		Assert.assertTrue(c.get(0));
+
+		g.put(0, 1, null);
+		g.remove(0);
+		c = IntDigraphs.closure(g, 0);
+		Assert.assertEquals(1, c.cardinality());
+		Assert.assertTrue(c.get(0));
+		Assert.assertTrue(IntDigraphs.isReachable(g, 0, 0));
+		Assert.assertFalse(IntDigraphs.isReachable(g, 0, 1));
+	}
+
+	@Test
+	public void testIsAcyclic() {
+		IntDigraph<Object> g = new ArrayIntDigraph<Object>();
+		g.put(1, 2, null);
+		g.put(2, 3, null);
+		g.put(3, 4, null);
+		g.put(1, 3, null);
+		Assert.assertTrue(IntDigraphs.isAcyclic(g));
+		g.put(3, 2, null);
+		Assert.assertFalse(IntDigraphs.isAcyclic(g));
+	}
+
+	@Test
+	public void testIsAcyclicLarge() {
+		IntDigraph<Object> g = new ArrayIntDigraph<Object>();
+		for (int i = 1; i < 50000; i++) {
+			g.put(i - 1, i, null);
+		}
+		Assert.assertTrue(IntDigraphs.isAcyclic(g));
+	}
+
+	@Test
+	public void testIsReachable() {
+		IntDigraph<Object> g = new ArrayIntDigraph<Object>();
+		g.put(1, 2, null);
+		g.put(2, 3, null);
+		g.put(3, 2, null);
+		g.put(3, 4, null);
+
+		Assert.assertTrue(IntDigraphs.isReachable(g, 1, 1));
+		Assert.assertTrue(IntDigraphs.isReachable(g, 1, 4));
+		Assert.assertTrue(IntDigraphs.isReachable(g, 3, 2));
+		Assert.assertFalse(IntDigraphs.isReachable(g, 2, 1));
+		Assert.assertFalse(IntDigraphs.isReachable(g, 4, 3));
+	}
+
+	@Test
+	public void testDfs() {
+		IntDigraph<Object> g = new ArrayIntDigraph<Object>();
+		g.put(1, 2, null);
+		g.put(2, 3, null);
+		g.put(3, 2, null);
+		g.put(3, 4, null);
+
+		BitSet discovered = new BitSet();
+		int[] finished = new int[g.getVertexCount()];
+		Assert.assertEquals(4, IntDigraphs.dfs(g, 1, discovered, finished, 0));
+		Assert.assertEquals(4, discovered.cardinality());
+		Assert.assertEquals(4, finished[0]);
+		Assert.assertEquals(3, finished[1]);
+		Assert.assertEquals(2, finished[2]);
+		Assert.assertEquals(1, finished[3]);
+	}
+
+	@Test
+	public void testScc() {
+		IntDigraph<Object> g = new ArrayIntDigraph<Object>();
+		g.put(1, 2, null);
+		g.put(2, 1, null);
+		g.put(1, 3, null);
+		g.put(3, 4, null);
+		g.put(4, 2, null);
+		g.put(3, 5, null);
+
+		int[][] components = IntDigraphs.scc(g);
+		Assert.assertEquals(2, components.length);
+		Assert.assertEquals(4, components[0].length);
+		Assert.assertEquals(1, components[1].length);
+		Assert.assertEquals(5, components[1][0]);
+	}
+
+	@Test
+	public void testWcc() {
+		IntDigraph<Object> g = new ArrayIntDigraph<Object>();
+		g.put(1, 2, null);
+		g.put(1, 3, null);
+		g.put(4, 2, null);
+		g.put(5, 6, null);
+
+		int[][] components = IntDigraphs.wcc(g);
+		Assert.assertEquals(2, components.length);
+		Assert.assertEquals(4, components[0].length);
+		Assert.assertEquals(2, components[1].length);
+		Assert.assertEquals(5, components[1][0]);
+		Assert.assertEquals(6, components[1][1]);
+	}
+}
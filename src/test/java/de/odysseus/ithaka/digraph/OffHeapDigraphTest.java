@@ -0,0 +1,334 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapDigraphTest {
+
+	@Test
+	public void testPut() {
+		OffHeapDigraph<String> digraph = new OffHeapDigraph<String>();
+		Assert.assertNull(digraph.put("foo", "bar", 1));
+		Assert.assertEquals(1, digraph.put("foo", "bar", 2).intValue());
+		Assert.assertEquals(2, digraph.get("foo", "bar").intValue());
+		Assert.assertNull(digraph.get("bar", "foo"));
+		Assert.assertNull(digraph.get("baz", "foo"));
+		Assert.assertTrue(digraph.contains("foo", "bar"));
+		Assert.assertFalse(digraph.contains("bar", "foo"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertEquals(1, digraph.getOutDegree("foo"));
+		Assert.assertEquals(0, digraph.getOutDegree("baz"));
+		digraph.close();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPutNull() {
+		new OffHeapDigraph<String>().put("foo", "bar", null);
+	}
+
+	@Test
+	public void testAddWeight() {
+		OffHeapDigraph<String> digraph = new OffHeapDigraph<String>();
+		digraph.add("foo", "bar", 2);
+		digraph.add("foo", "bar", 3);
+		digraph.add("bar", "foo", 1);
+		Assert.assertEquals(5, digraph.get("foo", "bar").intValue());
+		Assert.assertEquals(6, digraph.totalWeight());
+		digraph.close();
+	}
+
+	@Test
+	public void testGrowth() {
+		// small chunks force dedicated blocks and free list reuse
+		OffHeapDigraph<Integer> digraph = new OffHeapDigraph<Integer>(16);
+		for (int i = 0; i < 100; i++) {
+			for (int j = 99; j >= 0; j -= 3) {
+				digraph.put(i, j, i + j);
+			}
+		}
+		Assert.assertEquals(100, digraph.getVertexCount());
+		Assert.assertEquals(3400, digraph.getEdgeCount());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(34, digraph.getOutDegree(i));
+			for (int j = 0; j < 100; j++) {
+				Integer weight = digraph.get(i, j);
+				if (j % 3 == 0) {
+					Assert.assertEquals(i + j, weight.intValue());
+				} else {
+					Assert.assertNull(weight);
+				}
+			}
+		}
+		digraph.close();
+	}
+
+	@Test
+	public void testRemove() {
+		OffHeapDigraph<String> digraph = new OffHeapDigraph<String>();
+		digraph.put("a", "b", 1);
+		digraph.put("b", "a", 2);
+		digraph.put("b", "c", 3);
+		digraph.put("c", "c", 4);
+		Assert.assertEquals(3, digraph.remove("b", "c").intValue());
+		Assert.assertNull(digraph.remove("b", "c"));
+		Assert.assertEquals(3, digraph.getEdgeCount());
+		Assert.assertTrue(digraph.remove("a"));
+		Assert.assertFalse(digraph.remove("a"));
+		Assert.assertFalse(digraph.contains("a"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertEquals(0, digraph.getOutDegree("b"));
+		digraph.put("a", "c", 5);
+		Assert.assertTrue(digraph.contains("a"));
+		Assert.assertEquals(5, digraph.get("a", "c").intValue());
+		digraph.close();
+	}
+
+	@Test
+	public void testChurn() {
+		OffHeapDigraph<Integer> digraph = new OffHeapDigraph<Integer>(16);
+		for (int i = 0; i < 1000; i++) {
+			digraph.put(i, i + 1, i);
+			digraph.put(i + 1, i, i);
+			digraph.remove(Integer.valueOf(i));
+		}
+		Assert.assertEquals(1, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+		digraph.put(1000, 1001, 1);
+		digraph.put(1001, 1000, 2);
+		digraph.removeAll(Arrays.asList(1000));
+		digraph.put(1002, 1001, 3);
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertEquals(3, digraph.get(1002, 1001).intValue());
+		Assert.assertFalse(digraph.contains(1000));
+		Assert.assertEquals(0, digraph.getOutDegree(1001));
+		digraph.close();
+	}
+
+	@Test
+	public void testChunkGrowth() {
+		OffHeapDigraph<Integer> digraph = new OffHeapDigraph<Integer>();
+		digraph.put(0, 1, 1);
+		Assert.assertTrue(digraph.getChunkCapacity() < 1024);
+		for (int i = 1; i < 100000; i++) {
+			digraph.put(i, i + 1, i);
+		}
+		Assert.assertEquals(100000, digraph.getEdgeCount());
+		for (int i = 1; i < 100000; i++) {
+			Assert.assertEquals(i, digraph.get(i, i + 1).intValue());
+		}
+		digraph.close();
+	}
+
+	@Test
+	public void testChunkReuse() {
+		OffHeapDigraph<Integer> digraph = new OffHeapDigraph<Integer>(16);
+		for (int k = 0; k < 100; k++) {
+			for (int i = 1; i <= 64; i++) {
+				digraph.put(0, i, i);
+			}
+			Assert.assertEquals(64, digraph.getOutDegree(0));
+			Assert.assertEquals(64, digraph.get(0, 64).intValue());
+			digraph.remove(Integer.valueOf(0));
+		}
+		Assert.assertTrue(digraph.getChunkCount() < 10);
+		Assert.assertEquals(0, digraph.getEdgeCount());
+		digraph.close();
+	}
+
+	@Test
+	public void testRemoveAll() {
+		OffHeapDigraph<String> digraph = new OffHeapDigraph<String>();
+		digraph.put("a", "b", 1);
+		digraph.put("a", "c", 1);
+		digraph.put("b", "c", 1);
+		digraph.put("c", "d", 1);
+		digraph.removeAll(Arrays.asList("b", "d"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertTrue(digraph.contains("a", "c"));
+		Assert.assertEquals(0, digraph.getOutDegree("c"));
+		digraph.close();
+	}
+
+	@Test
+	public void testIterators() {
+		OffHeapDigraph<String> digraph = new OffHeapDigraph<String>();
+		digraph.put("a", "c", 1);
+		digraph.put("a", "b", 2);
+		digraph.put("b", "a", 3);
+		HashSet<String> targets = new HashSet<String>();
+		for (String target : digraph.targets("a")) {
+			targets.add(target);
+		}
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("b", "c")), targets);
+		Iterator<String> iterator = digraph.targets("a").iterator();
+		iterator.next();
+		iterator.remove();
+		Assert.assertEquals(1, digraph.getOutDegree("a"));
+		Assert.assertEquals(2, digraph.getEdgeCount());
+		iterator = digraph.vertices().iterator();
+		Assert.assertEquals("a", iterator.next());
+		iterator.remove();
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(0, digraph.getEdgeCount());
+		digraph.close();
+	}
+
+	@Test
+	public void testReverse() {
+		OffHeapDigraph<String> digraph = new OffHeapDigraph<String>();
+		digraph.put("a", "b", 1);
+		digraph.put("b", "c", 2);
+		OffHeapDigraph<String> reverse = digraph.reverse();
+		Assert.assertEquals(2, reverse.get("c", "b").intValue());
+		Assert.assertFalse(reverse.contains("a", "b"));
+		Assert.assertTrue(reverse.isAcyclic());
+		Assert.assertTrue(Digraphs.isEquivalent(digraph, reverse.reverse(), true));
+		reverse.close();
+		digraph.close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClose() {
+		OffHeapDigraph<String> digraph = new OffHeapDigraph<String>();
+		digraph.put("a", "b", 1);
+		digraph.close();
+		digraph.put("a", "b", 1);
+	}
+
+	@Test
+	public void testClosedAccess() {
+		OffHeapDigraph<String> digraph = new OffHeapDigraph<String>();
+		digraph.put("a", "b", 1);
+		Iterator<String> vertices = digraph.vertices().iterator();
+		Iterator<String> targets = digraph.targets("a").iterator();
+		digraph.close();
+		digraph.close();
+		Assert.assertEquals("OffHeapDigraph(closed)", digraph.toString());
+		try {
+			digraph.contains("a");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.contains("a", "b");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.get("a", "b");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.getVertexCount();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.getEdgeCount();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.getOutDegree("a");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.targets("a");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.vertices();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.remove("a", "b");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.remove("a");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.removeAll(Collections.singleton("a"));
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.add("c");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.add("a", "c", 1);
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.totalWeight();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			digraph.reverse();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			vertices.hasNext();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			targets.hasNext();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+}
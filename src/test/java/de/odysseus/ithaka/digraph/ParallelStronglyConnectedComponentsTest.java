@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelStronglyConnectedComponentsTest {
+	private static Set<Set<Integer>> components(List<Set<Integer>> components) {
+		Set<Set<Integer>> result = new HashSet<Set<Integer>>(components);
+		Assert.assertEquals(components.size(), result.size());
+		return result;
+	}
+
+	@Test
+	public void testSmall() {
+		Random random = new Random(3);
+		for (int k = 0; k < 50; k++) {
+			int n = 1 + random.nextInt(40);
+			Digraph<Integer,Object> g = RandomDigraphs.random(new MapDigraph<Integer,Object>(), random, n, random.nextInt(3 * n));
+			Assert.assertEquals(components(Digraphs.scc(g)), components(Digraphs.scc(g, 0)));
+		}
+	}
+
+	@Test
+	public void testLarge() {
+		Random random = new Random(5);
+		Digraph<Integer,Object> g = RandomDigraphs.random(new MapDigraph<Integer,Object>(), random, 50000, 60000);
+		// add a long cycle and some chains
+		for (int i = 0; i < 10000; i++) {
+			g.put(i, i + 1, null);
+		}
+		g.put(10000, 0, null);
+		Set<Set<Integer>> expected = components(Digraphs.scc(g));
+		Assert.assertEquals(expected, components(Digraphs.scc(g, 4)));
+		Assert.assertEquals(expected, components(Digraphs.scc(g, 0)));
+	}
+}
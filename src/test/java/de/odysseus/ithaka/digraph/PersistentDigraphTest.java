@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PersistentDigraphTest {
+	/**
+	 * Vertex with poor hash code (forces hash collisions).
+	 */
+	static class Vertex {
+		final int id;
+		Vertex(int id) {
+			this.id = id;
+		}
+		@Override
+		public int hashCode() {
+			return id % 7;
+		}
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Vertex && ((Vertex)obj).id == id;
+		}
+	}
+
+	@Test
+	public void testPut() {
+		PersistentDigraph<String,Integer> digraph = new PersistentDigraph<String,Integer>();
+		Assert.assertNull(digraph.put("foo", "bar", 1));
+		Assert.assertEquals(1, digraph.put("foo", "bar", 2).intValue());
+		Assert.assertEquals(2, digraph.get("foo", "bar").intValue());
+		Assert.assertNull(digraph.get("bar", "foo"));
+		Assert.assertTrue(digraph.contains("foo", "bar"));
+		Assert.assertFalse(digraph.contains("bar", "foo"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertEquals(1, digraph.getOutDegree("foo"));
+		Assert.assertEquals(0, digraph.getOutDegree("baz"));
+		Assert.assertNull(digraph.put("foo", null, null));
+		Assert.assertTrue(digraph.contains("foo", null));
+		Assert.assertTrue(digraph.contains(null));
+	}
+
+	@Test
+	public void testSnapshot() {
+		PersistentDigraph<String,Integer> digraph = new PersistentDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		PersistentDigraph<String,Integer> snapshot = digraph.snapshot();
+		Assert.assertTrue(snapshot.isSnapshot());
+		Assert.assertSame(snapshot, snapshot.snapshot());
+		digraph.put("b", "c", 2);
+		digraph.remove("a");
+		Assert.assertEquals(2, snapshot.getVertexCount());
+		Assert.assertEquals(1, snapshot.getEdgeCount());
+		Assert.assertTrue(snapshot.contains("a", "b"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertFalse(digraph.contains("a"));
+		try {
+			snapshot.add("x");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testIterateWhileModifying() {
+		PersistentDigraph<Integer,Integer> digraph = new PersistentDigraph<Integer,Integer>();
+		for (int i = 0; i < 10; i++) {
+			digraph.put(i, i + 1, i);
+		}
+		int count = 0;
+		for (Integer vertex : digraph.vertices()) {
+			digraph.put(vertex + 100, vertex, 0);
+			count++;
+		}
+		Assert.assertEquals(11, count);
+		Assert.assertEquals(22, digraph.getVertexCount());
+		Iterator<Integer> vertices = digraph.vertices().iterator();
+		while (vertices.hasNext()) {
+			if (vertices.next() >= 100) {
+				vertices.remove();
+			}
+		}
+		Assert.assertEquals(11, digraph.getVertexCount());
+		Assert.assertEquals(10, digraph.getEdgeCount());
+	}
+
+	@Test
+	public void testManyVertices() {
+		PersistentDigraph<Vertex,Integer> digraph = new PersistentDigraph<Vertex,Integer>();
+		PersistentDigraph<Integer,Integer> ints = new PersistentDigraph<Integer,Integer>();
+		for (int i = 0; i < 1000; i++) {
+			digraph.put(new Vertex(i), new Vertex((i * 31) % 1000), i);
+			ints.put(i * 65536, (i * 31) % 1000 * 65536, i);
+		}
+		Assert.assertEquals(1000, digraph.getVertexCount());
+		Assert.assertEquals(1000, digraph.getEdgeCount());
+		Assert.assertEquals(1000, ints.getVertexCount());
+		Set<Integer> ids = new HashSet<Integer>();
+		for (Vertex vertex : digraph.vertices()) {
+			ids.add(vertex.id);
+			Assert.assertEquals(vertex.id, digraph.get(vertex, new Vertex((vertex.id * 31) % 1000)).intValue());
+		}
+		Assert.assertEquals(1000, ids.size());
+		PersistentDigraph<Vertex,Integer> snapshot = digraph.snapshot();
+		for (int i = 0; i < 1000; i += 2) {
+			Assert.assertTrue(digraph.remove(new Vertex(i)));
+			Assert.assertTrue(ints.remove(i * 65536));
+		}
+		Assert.assertEquals(500, digraph.getVertexCount());
+		Assert.assertEquals(500, ints.getVertexCount());
+		Assert.assertEquals(1000, snapshot.getVertexCount());
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertEquals(i % 2 == 1, digraph.contains(new Vertex(i)));
+			Assert.assertEquals(i % 2 == 1, ints.contains(i * 65536));
+		}
+	}
+
+	@Test
+	public void testRemoveAll() {
+		PersistentDigraph<String,Integer> digraph = new PersistentDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("a", "c", 1);
+		digraph.put("b", "c", 1);
+		digraph.put("c", "d", 1);
+		digraph.removeAll(Arrays.asList("b", "d"));
+		Assert.assertEquals(2, digraph.getVertexCount());
+		Assert.assertEquals(1, digraph.getEdgeCount());
+		Assert.assertTrue(digraph.contains("a", "c"));
+	}
+
+	@Test
+	public void testReverse() {
+		PersistentDigraph<String,Integer> digraph = new PersistentDigraph<String,Integer>();
+		digraph.put("a", "b", 1);
+		digraph.put("b", "c", 2);
+		PersistentDigraph<String,Integer> reverse = digraph.reverse();
+		Assert.assertFalse(reverse.isSnapshot());
+		Assert.assertEquals(2, reverse.get("c", "b").intValue());
+		Assert.assertTrue(digraph.isAcyclic());
+		digraph.put("c", "a", 3);
+		Assert.assertFalse(digraph.isAcyclic());
+	}
+}
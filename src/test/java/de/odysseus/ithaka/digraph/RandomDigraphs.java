@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Random;
+
+/**
+ * Random digraph generator for tests.
+ */
+public class RandomDigraphs {
+	/**
+	 * Edge value factory.
+	 */
+	public static interface EdgeFactory<E> {
+		public E create(int source, int target);
+	}
+
+	/**
+	 * Draw <code>m</code> random edges over vertices <code>0, ..., n-1</code>.
+	 * The result may contain duplicates and self-loops, in draw order.
+	 * @param random random generator
+	 * @param n number of vertices
+	 * @param m number of random edges
+	 * @return array of <code>{ source, target }</code> pairs
+	 */
+	public static int[][] edges(Random random, int n, int m) {
+		int[][] edges = new int[m][];
+		for (int i = 0; i < m; i++) {
+			edges[i] = new int[] { random.nextInt(n), random.nextInt(n) };
+		}
+		return edges;
+	}
+
+	/**
+	 * Add vertices <code>0, ..., n-1</code> and <code>m</code> random edges with <code>null</code> values.
+	 * Duplicate edges are put only once, so the resulting edge count may be less than <code>m</code>.
+	 * @param digraph digraph to fill
+	 * @param random random generator
+	 * @param n number of vertices
+	 * @param m number of random edges
+	 * @return <code>digraph</code>
+	 */
+	public static <E,G extends Digraph<Integer,E>> G random(G digraph, Random random, int n, int m) {
+		return random(digraph, random, n, m, false, null);
+	}
+
+	/**
+	 * Add vertices <code>0, ..., n-1</code> and <code>m</code> random edges.
+	 * Duplicate edges are put only once, so the resulting edge count may be less than <code>m</code>.
+	 * @param digraph digraph to fill
+	 * @param random random generator
+	 * @param n number of vertices
+	 * @param m number of random edges
+	 * @param acyclic if <code>true</code>, skip edges unless their source is less than their target
+	 * @param edges edge value factory (<code>null</code> values if <code>null</code>)
+	 * @return <code>digraph</code>
+	 */
+	public static <E,G extends Digraph<Integer,E>> G random(G digraph, Random random, int n, int m, boolean acyclic, EdgeFactory<? extends E> edges) {
+		for (int i = 0; i < n; i++) {
+			digraph.add(i);
+		}
+		for (int[] edge : edges(random, n, m)) {
+			if (!acyclic || edge[0] < edge[1]) {
+				digraph.put(edge[0], edge[1], edges == null ? null : edges.create(edge[0], edge[1]));
+			}
+		}
+		return digraph;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StronglyConnectedComponentsTest {
+	@Test
+	public void testComponents() {
+		Digraph<Integer,Object> g = new MapDigraph<Integer,Object>();
+		g.put(5, 6, null);
+		g.put(1, 2, null);
+		g.put(2, 1, null);
+		g.put(1, 3, null);
+		g.put(3, 4, null);
+		g.put(4, 2, null);
+		g.put(3, 5, null);
+		g.put(6, 5, null);
+		g.put(6, 6, null);
+		g.add(7);
+
+		StronglyConnectedComponents<Integer> components = new StronglyConnectedComponents<Integer>(g);
+		Assert.assertEquals(3, components.getComponentCount());
+		Assert.assertEquals(-1, components.getComponent(8));
+		int c1 = components.getComponent(1);
+		int c5 = components.getComponent(5);
+		int c7 = components.getComponent(7);
+		Assert.assertTrue(c1 < c5);
+		Assert.assertEquals(c1, components.getComponent(4));
+		Assert.assertEquals(c5, components.getComponent(6));
+		Assert.assertEquals(4, components.getComponentSize(c1));
+		Assert.assertEquals(2, components.getComponentSize(c5));
+		Assert.assertEquals(1, components.getComponentSize(c7));
+		Assert.assertEquals(new HashSet<Integer>(Arrays.asList(1, 2, 3, 4)), new HashSet<Integer>(components.getComponentVertices(c1)));
+		Assert.assertEquals(Arrays.asList(7), components.getComponentVertices(c7));
+
+		List<Set<Integer>> sets = components.getComponents();
+		Assert.assertSame(sets, components.getComponents());
+		Assert.assertEquals(new HashSet<Integer>(Arrays.asList(5, 6)), sets.get(c5));
+	}
+
+	@Test
+	public void testTopologicalOrder() {
+		Random random = new Random(7);
+		for (int k = 0; k < 50; k++) {
+			Digraph<Integer,Object> g = new MapDigraph<Integer,Object>();
+			int n = 1 + random.nextInt(30);
+			for (int i = 0; i < n; i++) {
+				g.add(i);
+			}
+			for (int i = random.nextInt(2 * n); i > 0; i--) {
+				g.put(random.nextInt(n), random.nextInt(n), null);
+			}
+			StronglyConnectedComponents<Integer> components = new StronglyConnectedComponents<Integer>(g);
+			int total = 0;
+			for (int i = 0; i < components.getComponentCount(); i++) {
+				total += components.getComponentSize(i);
+			}
+			Assert.assertEquals(n, total);
+			for (int source = 0; source < n; source++) {
+				for (int target : g.targets(source)) {
+					Assert.assertTrue(components.getComponent(source) <= components.getComponent(target));
+				}
+				for (int target = 0; target < n; target++) {
+					boolean strong = Digraphs.isReachable(g, source, target) && Digraphs.isReachable(g, target, source);
+					Assert.assertEquals(strong, components.getComponent(source) == components.getComponent(target));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDeepCycle() {
+		int n = 200000;
+		Digraph<Integer,Object> g = new MapDigraph<Integer,Object>();
+		for (int i = 0; i < n; i++) {
+			g.put(i, (i + 1) % n, null);
+		}
+		g.put(n, 0, null);
+		StronglyConnectedComponents<Integer> components = new StronglyConnectedComponents<Integer>(g);
+		Assert.assertEquals(2, components.getComponentCount());
+		Assert.assertEquals(0, components.getComponent(n));
+		Assert.assertEquals(n, components.getComponentSize(1));
+	}
+}
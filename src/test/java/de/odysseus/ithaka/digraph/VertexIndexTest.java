@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VertexIndexTest {
+
+	@Test
+	public void testAdd() {
+		VertexIndex<String> index = new VertexIndex<String>(1);
+		Assert.assertEquals(0, index.add("foo"));
+		Assert.assertEquals(1, index.add("bar"));
+		Assert.assertEquals(0, index.add("foo"));
+		Assert.assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testGetId() {
+		VertexIndex<String> index = new VertexIndex<String>();
+		index.add("foo");
+		index.add("bar");
+		Assert.assertEquals(1, index.getId("bar"));
+		Assert.assertEquals(-1, index.getId("baz"));
+		Assert.assertTrue(index.contains("foo"));
+		Assert.assertFalse(index.contains("baz"));
+	}
+
+	@Test
+	public void testGetVertex() {
+		VertexIndex<String> index = new VertexIndex<String>();
+		index.add("foo");
+		index.add("bar");
+		Assert.assertEquals("foo", index.getVertex(0));
+		Assert.assertEquals("bar", index.getVertex(1));
+	}
+
+	@Test
+	public void testRemove() {
+		VertexIndex<String> index = new VertexIndex<String>();
+		index.add("foo");
+		index.add("bar");
+		Assert.assertEquals(0, index.remove("foo"));
+		Assert.assertEquals(-1, index.remove("foo"));
+		Assert.assertFalse(index.contains("foo"));
+		Assert.assertNull(index.getVertex(0));
+		Assert.assertEquals(1, index.getVertexCount());
+		Assert.assertEquals(0, index.add("baz"));
+		Assert.assertEquals(2, index.add("foo"));
+		Assert.assertEquals(3, index.size());
+		Assert.assertEquals(3, index.getVertexCount());
+	}
+
+	@Test
+	public void testUnmodifiableIndex() {
+		VertexIndex<String> index = new VertexIndex<String>();
+		VertexIndex<String> view = VertexIndex.unmodifiableIndex(index);
+		index.add("foo");
+		Assert.assertEquals(0, view.getId("foo"));
+		Assert.assertEquals("foo", view.getVertex(0));
+		Assert.assertEquals(1, view.size());
+		try {
+			view.add("bar");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			view.remove("foo");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		Assert.assertTrue(index.contains("foo"));
+		Assert.assertFalse(index.contains("bar"));
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testGetVertex2() {
+		new VertexIndex<String>().getVertex(0);
+	}
+
+	@Test
+	public void testDigraph() {
+		MapDigraph<String,Integer> digraph = new MapDigraph<String,Integer>();
+		digraph.put("foo", "bar", 1);
+		digraph.add("baz");
+		VertexIndex<String> index = new VertexIndex<String>(digraph);
+		Assert.assertEquals(3, index.size());
+		Assert.assertEquals(0, index.getId("foo"));
+		Assert.assertEquals(1, index.getId("bar"));
+		Assert.assertEquals(2, index.getId("baz"));
+	}
+}
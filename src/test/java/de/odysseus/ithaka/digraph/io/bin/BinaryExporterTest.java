@@ -0,0 +1,200 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.io.bin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.WeightedDigraph;
+import de.odysseus.ithaka.digraph.WeightedDigraphAdapter;
+
+public class BinaryExporterTest {
+	private static final BinaryProvider<String, Integer> PROVIDER = new BinaryProvider<String, Integer>() {
+		@Override
+		public String getVertexLabel(String vertex) {
+			return vertex;
+		}
+		@Override
+		public int getEdgeWeight(Integer edge) {
+			return edge;
+		}
+	};
+
+	private File export(Digraph<String, Integer> digraph, boolean weights) throws IOException {
+		File file = File.createTempFile("digraph", ".bin");
+		file.deleteOnExit();
+		OutputStream stream = new FileOutputStream(file);
+		try {
+			new BinaryExporter(weights).export(PROVIDER, digraph, stream);
+		} finally {
+			stream.close();
+		}
+		return file;
+	}
+
+	private WeightedDigraph<String> createDigraph() {
+		WeightedDigraph<String> digraph = new WeightedDigraphAdapter<String>();
+		digraph.add("foo", "bar", 1);
+		digraph.add("foo", "\u00e4\u00f6\u00fc", 2);
+		digraph.add("bar", "baz", 3);
+		digraph.add("baz", "foo", 4);
+		digraph.add("single");
+		return digraph;
+	}
+
+	@Test
+	public void testWeighted() throws IOException {
+		WeightedDigraph<String> digraph = createDigraph();
+		MappedDigraph mapped = new MappedDigraph(export(digraph, true));
+		Assert.assertTrue(mapped.isWeighted());
+		Assert.assertEquals(5, mapped.getVertexCount());
+		Assert.assertEquals(4, mapped.getEdgeCount());
+		Assert.assertTrue(mapped.contains("single"));
+		Assert.assertTrue(mapped.contains("\u00e4\u00f6\u00fc"));
+		Assert.assertFalse(mapped.contains("qux"));
+		Assert.assertFalse(mapped.contains(Integer.valueOf(1)));
+		Assert.assertEquals(2, mapped.get("foo", "\u00e4\u00f6\u00fc").intValue());
+		Assert.assertNull(mapped.get("bar", "foo"));
+		Assert.assertEquals(2, mapped.getOutDegree("foo"));
+		Assert.assertEquals(0, mapped.getOutDegree("single"));
+		Assert.assertFalse(mapped.isAcyclic());
+		Assert.assertTrue(Digraphs.isEquivalent(digraph, mapped, true));
+		Assert.assertTrue(Digraphs.isEquivalent(digraph.reverse(), mapped.reverse(), true));
+		mapped.close();
+	}
+
+	@Test
+	public void testUnweighted() throws IOException {
+		WeightedDigraph<String> digraph = createDigraph();
+		MappedDigraph mapped = new MappedDigraph(export(digraph, false));
+		Assert.assertFalse(mapped.isWeighted());
+		Assert.assertTrue(mapped.contains("foo", "bar"));
+		Assert.assertNull(mapped.get("foo", "bar"));
+		Assert.assertTrue(Digraphs.isEquivalent(digraph, mapped, false));
+		mapped.close();
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		MappedDigraph mapped = new MappedDigraph(export(new WeightedDigraphAdapter<String>(), true));
+		Assert.assertEquals(0, mapped.getVertexCount());
+		Assert.assertFalse(mapped.vertices().iterator().hasNext());
+		Assert.assertFalse(mapped.contains("foo"));
+		mapped.close();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testReadonly() throws IOException {
+		new MappedDigraph(export(createDigraph(), true)).add("qux");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClose() throws IOException {
+		MappedDigraph mapped = new MappedDigraph(export(createDigraph(), true));
+		mapped.close();
+		mapped.contains("foo");
+	}
+
+	@Test
+	public void testClosedCounts() throws IOException {
+		MappedDigraph mapped = new MappedDigraph(export(createDigraph(), true));
+		Iterator<String> vertices = mapped.vertices().iterator();
+		mapped.close();
+		mapped.close();
+		Assert.assertEquals("MappedDigraph(closed)", mapped.toString());
+		try {
+			mapped.getVertexCount();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			mapped.getEdgeCount();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			mapped.contains(Integer.valueOf(1));
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			vertices.hasNext();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateLabel() throws IOException {
+		WeightedDigraph<String> digraph = createDigraph();
+		BinaryProvider<String, Integer> provider = new BinaryProvider<String, Integer>() {
+			@Override
+			public String getVertexLabel(String vertex) {
+				return "x";
+			}
+			@Override
+			public int getEdgeWeight(Integer edge) {
+				return edge;
+			}
+		};
+		new BinaryExporter().export(provider, digraph, new ByteArrayOutputStream());
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidFile() throws IOException {
+		File file = File.createTempFile("digraph", ".bin");
+		file.deleteOnExit();
+		OutputStream stream = new FileOutputStream(file);
+		stream.write(new byte[64]);
+		stream.close();
+		new MappedDigraph(file);
+	}
+
+	@Test
+	public void testCorruptHeader() throws IOException {
+		int[][] corruptions = { { 3, -1 }, { 4, -1 }, { 5, 0 }, { 5, 4 }, { 5, 12 }, { 6, -1 } }; // header index, value
+		for (int[] corruption : corruptions) {
+			File file = export(createDigraph(), true);
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.seek(4 * corruption[0]);
+				raf.writeInt(corruption[1]);
+			} finally {
+				raf.close();
+			}
+			try {
+				new MappedDigraph(file);
+				Assert.fail();
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.dom;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.DoubledMapDigraph;
+import de.odysseus.ithaka.digraph.MapDigraph;
+
+public class DominatorTreeTest {
+	/**
+	 * a dominates b iff b is not reachable from the root without passing a
+	 */
+	private static <V> boolean dominates(Digraph<V,?> g, V root, V a, V b) {
+		if (!Digraphs.isReachable(g, root, b)) {
+			return false;
+		}
+		if (a.equals(b) || a.equals(root)) {
+			return Digraphs.isReachable(g, root, a);
+		}
+		Set<V> vertices = new HashSet<V>();
+		for (V vertex : g.vertices()) {
+			vertices.add(vertex);
+		}
+		vertices.remove(a);
+		return !Digraphs.isReachable(Digraphs.subgraphView(g, vertices), root, b);
+	}
+
+	@Test
+	public void testSimple() {
+		// classic example (Lengauer/Tarjan)
+		Digraph<String,Object> g = new MapDigraph<String,Object>();
+		String[] edges = {
+			"R-A", "R-B", "R-C", "A-D", "B-A", "B-D", "B-E", "C-F", "C-G", "D-L", "E-H", "F-I", "G-I", "G-J",
+			"H-E", "H-K", "I-K", "J-I", "K-I", "K-R", "L-H"
+		};
+		for (String edge : edges) {
+			g.put(edge.substring(0, 1), edge.substring(2), null);
+		}
+		g.add("X");
+
+		DominatorTree<String> tree = new DominatorTree<String>(g, "R");
+		Assert.assertEquals("R", tree.getRoot());
+		Assert.assertEquals(13, tree.size());
+		Assert.assertFalse(tree.contains("X"));
+		Assert.assertNull(tree.getImmediateDominator("R"));
+		Assert.assertNull(tree.getImmediateDominator("X"));
+		Assert.assertEquals("R", tree.getImmediateDominator("I"));
+		Assert.assertEquals("R", tree.getImmediateDominator("K"));
+		Assert.assertEquals("C", tree.getImmediateDominator("F"));
+		Assert.assertEquals("C", tree.getImmediateDominator("G"));
+		Assert.assertEquals("G", tree.getImmediateDominator("J"));
+		Assert.assertEquals("D", tree.getImmediateDominator("L"));
+		Assert.assertTrue(tree.dominates("C", "J"));
+		Assert.assertTrue(tree.strictlyDominates("C", "J"));
+		Assert.assertTrue(tree.dominates("J", "J"));
+		Assert.assertFalse(tree.strictlyDominates("J", "J"));
+		Assert.assertFalse(tree.dominates("C", "I"));
+		Assert.assertFalse(tree.dominates("R", "X"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("F", "G")), new HashSet<String>(tree.getChildren("C")));
+		Assert.assertTrue(tree.getChildren("J").isEmpty());
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(47);
+		for (int k = 0; k < 30; k++) {
+			DoubledMapDigraph<Integer,Object> g = new DoubledMapDigraph<Integer,Object>();
+			int n = 2 + random.nextInt(30);
+			for (int i = 0; i < n; i++) {
+				g.add(i);
+			}
+			for (int i = random.nextInt(3 * n); i > 0; i--) {
+				g.put(random.nextInt(n), random.nextInt(n), null);
+			}
+			DominatorTree<Integer> dominators = new DominatorTree<Integer>(g, 0);
+			DominatorTree<Integer> postDominators = DominatorTree.postDominators(g, n - 1);
+			Digraph<Integer,Object> reverse = Digraphs.reverseView(g);
+			for (int a = 0; a < n; a++) {
+				for (int b = 0; b < n; b++) {
+					Assert.assertEquals(dominates(g, 0, a, b), dominators.dominates(a, b));
+					Assert.assertEquals(dominates(reverse, n - 1, a, b), postDominators.dominates(a, b));
+				}
+				Integer dominator = dominators.getImmediateDominator(a);
+				if (dominator != null) {
+					Assert.assertTrue(dominators.strictlyDominates(dominator, a));
+					Assert.assertTrue(dominators.getChildren(dominator).contains(a));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDeepChain() {
+		Digraph<Integer,Object> g = new MapDigraph<Integer,Object>();
+		int n = 100000;
+		for (int i = 0; i < n; i++) {
+			g.put(i, i + 1, null);
+		}
+		DominatorTree<Integer> tree = new DominatorTree<Integer>(g, 0);
+		Assert.assertTrue(tree.dominates(1, n));
+		Assert.assertEquals(Integer.valueOf(n - 1), tree.getImmediateDominator(n));
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.iso;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.MapDigraph;
+
+public class WeisfeilerLehmanTest {
+	private Digraph<Integer,Boolean> path(int... vertices) {
+		Digraph<Integer,Boolean> digraph = new MapDigraph<Integer,Boolean>();
+		for (int i = 1; i < vertices.length; i++) {
+			digraph.put(vertices[i - 1], vertices[i], true);
+		}
+		return digraph;
+	}
+
+	@Test
+	public void testIsomorphic() {
+		Digraph<Integer,Boolean> digraph1 = path(1, 2, 3, 4);
+		digraph1.put(4, 2, true);
+		digraph1.put(1, 5, true);
+		Digraph<Integer,Boolean> digraph2 = path(9, 8, 7, 6);
+		digraph2.put(6, 8, false);
+		digraph2.put(9, 0, false);
+		Assert.assertEquals(WeisfeilerLehman.fingerprint(digraph1), WeisfeilerLehman.fingerprint(digraph2));
+
+		WeisfeilerLehman<Integer> labels1 = new WeisfeilerLehman<Integer>(digraph1);
+		WeisfeilerLehman<Integer> labels2 = new WeisfeilerLehman<Integer>(digraph2);
+		Assert.assertEquals(labels1.getIterations(), labels2.getIterations());
+		Assert.assertEquals(labels1.getLabel(1), labels2.getLabel(9));
+		Assert.assertEquals(labels1.getLabel(3), labels2.getLabel(7));
+		Assert.assertEquals(labels1.getLabel(5), labels2.getLabel(0));
+		Assert.assertFalse(labels1.getLabel(2) == labels1.getLabel(3));
+		Assert.assertEquals(5, labels1.getClassCount());
+	}
+
+	@Test
+	public void testNotIsomorphic() {
+		Assert.assertFalse(WeisfeilerLehman.fingerprint(path(1, 2, 3)) == WeisfeilerLehman.fingerprint(path(1, 2, 1)));
+		Digraph<Integer,Boolean> digraph = path(1, 2, 3);
+		digraph.add(4);
+		Assert.assertFalse(WeisfeilerLehman.fingerprint(path(1, 2, 3)) == WeisfeilerLehman.fingerprint(digraph));
+		// same degrees, different direction
+		Digraph<Integer,Boolean> chain = path(1, 2, 3, 4);
+		Digraph<Integer,Boolean> other = path(1, 2, 3);
+		other.put(4, 3, true);
+		Assert.assertFalse(WeisfeilerLehman.fingerprint(chain) == WeisfeilerLehman.fingerprint(other));
+	}
+
+	@Test
+	public void testStable() {
+		Digraph<Integer,Boolean> cycle = path(1, 2, 3, 4, 1);
+		WeisfeilerLehman<Integer> labels = new WeisfeilerLehman<Integer>(cycle);
+		Assert.assertEquals(1, labels.getIterations());
+		Assert.assertEquals(1, labels.getClassCount());
+
+		labels = new WeisfeilerLehman<Integer>(path(1, 2, 3, 4, 5), 1);
+		Assert.assertEquals(1, labels.getIterations());
+		Assert.assertEquals(3, labels.getClassCount());
+		labels = new WeisfeilerLehman<Integer>(path(1, 2, 3, 4, 5));
+		Assert.assertEquals(5, labels.getClassCount());
+
+		Assert.assertEquals(0, new WeisfeilerLehman<Integer>(path(1, 2), 0).getIterations());
+		Assert.assertEquals(0, new WeisfeilerLehman<Integer>(new MapDigraph<Integer,Boolean>()).getClassCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoSuchVertex() {
+		new WeisfeilerLehman<Integer>(path(1, 2)).getLabel(3);
+	}
+}
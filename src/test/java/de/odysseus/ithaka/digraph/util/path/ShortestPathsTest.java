@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.EdgeWeights;
+import de.odysseus.ithaka.digraph.MapDigraph;
+import de.odysseus.ithaka.digraph.RandomDigraphs;
+import de.odysseus.ithaka.digraph.WeightedDigraph;
+import de.odysseus.ithaka.digraph.WeightedDigraphAdapter;
+
+public class ShortestPathsTest {
+	private static WeightedDigraph<Integer> random(final Random random, int n, int m, boolean acyclic, final boolean negative) {
+		RandomDigraphs.EdgeFactory<Integer> weights = new RandomDigraphs.EdgeFactory<Integer>() {
+			@Override
+			public Integer create(int source, int target) {
+				return random.nextInt(20) - (negative ? 10 : 0);
+			}
+		};
+		return RandomDigraphs.random(new WeightedDigraphAdapter<Integer>(), random, n, m, acyclic, weights);
+	}
+
+	/**
+	 * Bellman-Ford
+	 */
+	private static long[] distances(WeightedDigraph<Integer> g, int source, int n) {
+		long[] distances = new long[n];
+		Arrays.fill(distances, ShortestPathTree.UNREACHABLE);
+		distances[source] = 0;
+		for (int i = 0; i < n; i++) {
+			for (int u = 0; u < n; u++) {
+				if (distances[u] != ShortestPathTree.UNREACHABLE) {
+					for (int v : g.targets(u)) {
+						distances[v] = Math.min(distances[v], distances[u] + g.get(u, v));
+					}
+				}
+			}
+		}
+		return distances;
+	}
+
+	private static void check(WeightedDigraph<Integer> g, ShortestPathTree<Integer> tree, int n) {
+		long[] expected = distances(g, tree.getSource(), n);
+		for (int target = 0; target < n; target++) {
+			Assert.assertEquals(expected[target], tree.getDistance(target));
+			List<Integer> path = tree.getPath(target);
+			if (path == null) {
+				Assert.assertFalse(tree.isReachable(target));
+			} else {
+				Assert.assertEquals(tree.getSource(), path.get(0));
+				Assert.assertEquals(Integer.valueOf(target), path.get(path.size() - 1));
+				long length = 0;
+				for (int i = 1; i < path.size(); i++) {
+					length += g.get(path.get(i - 1), path.get(i));
+				}
+				Assert.assertEquals(expected[target], length);
+			}
+		}
+	}
+
+	@Test
+	public void testDijkstra() {
+		Random random = new Random(37);
+		for (int k = 0; k < 20; k++) {
+			int n = 5 + random.nextInt(50);
+			WeightedDigraph<Integer> g = random(random, n, 3 * n, false, false);
+			ShortestPaths<Integer> paths = new ShortestPaths<Integer>(g);
+			for (int source = 0; source < n; source++) {
+				check(g, paths.compute(source), n);
+			}
+		}
+	}
+
+	@Test
+	public void testAcyclic() {
+		Random random = new Random(41);
+		for (int k = 0; k < 20; k++) {
+			int n = 5 + random.nextInt(50);
+			WeightedDigraph<Integer> g = random(random, n, 3 * n, true, true);
+			ShortestPaths<Integer> paths = new ShortestPaths<Integer>(g);
+			Assert.assertTrue(paths.isAcyclic());
+			for (int source = 0; source < n; source++) {
+				check(g, paths.compute(source), n);
+			}
+		}
+	}
+
+	@Test
+	public void testEdgeWeights() {
+		MapDigraph<String,Object> g = new MapDigraph<String,Object>();
+		g.put("a", "b", null);
+		g.put("b", "c", null);
+		g.put("a", "c", null);
+		g.put("c", "a", null);
+		ShortestPathTree<String> tree = new ShortestPaths<String>(g, EdgeWeights.UNIT_WEIGHTS).compute("a");
+		Assert.assertEquals(1, tree.getDistance("c"));
+		Assert.assertEquals(Arrays.asList("a", "c"), tree.getPath("c"));
+		Assert.assertEquals(ShortestPathTree.UNREACHABLE, tree.getDistance("x"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeCycle() {
+		WeightedDigraph<Integer> g = new WeightedDigraphAdapter<Integer>();
+		g.put(1, 2, 1);
+		g.put(2, 1, -1);
+		new ShortestPaths<Integer>(g);
+	}
+
+	@Test
+	public void testParallel() {
+		Random random = new Random(43);
+		int n = 60;
+		WeightedDigraph<Integer> g = random(random, n, 3 * n, false, false);
+		List<Integer> sources = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++) {
+			sources.add(i);
+		}
+		List<ShortestPathTree<Integer>> trees = new ShortestPaths<Integer>(g).compute(sources, 4);
+		Assert.assertEquals(n, trees.size());
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals(sources.get(i), trees.get(i).getSource());
+			check(g, trees.get(i), n);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.rank;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.MapDigraph;
+import de.odysseus.ithaka.digraph.VertexIndex;
+import de.odysseus.ithaka.digraph.WeightedDigraph;
+import de.odysseus.ithaka.digraph.WeightedDigraphAdapter;
+
+public class PageRankTest {
+	@Test
+	public void testCycle() {
+		Digraph<Integer,Object> g = new MapDigraph<Integer,Object>();
+		for (int i = 0; i < 5; i++) {
+			g.put(i, (i + 1) % 5, null);
+		}
+		VertexScores<Integer> ranks = new PageRank<Integer>(g).compute();
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals(0.2, ranks.getScore(i), 1e-9);
+		}
+		Assert.assertEquals(0, ranks.getScore(7), 0);
+	}
+
+	@Test
+	public void testWeights() {
+		WeightedDigraph<String> g = new WeightedDigraphAdapter<String>();
+		g.put("a", "b", 3);
+		g.put("a", "c", 1);
+		g.put("b", "a", 1);
+		g.put("c", "a", 1);
+		g.add("d"); // dangling
+
+		final int[] iterations = new int[1];
+		PageRank<String> pageRank = new PageRank<String>(g, g);
+		pageRank.setTolerance(1e-12);
+		pageRank.setListener(new PageRankListener() {
+			@Override
+			public void iteration(int iteration, double delta, long nanos) {
+				Assert.assertEquals(++iterations[0], iteration);
+				Assert.assertTrue(nanos >= 0);
+			}
+		});
+		VertexScores<String> ranks = pageRank.compute();
+		Assert.assertTrue(iterations[0] > 1);
+		double sum = 0;
+		for (String vertex : g.vertices()) {
+			sum += ranks.getScore(vertex);
+		}
+		Assert.assertEquals(1, sum, 1e-9);
+		Assert.assertTrue(ranks.getScore("b") > ranks.getScore("c"));
+		Assert.assertEquals(Arrays.asList("a", "b"), ranks.getTop(2));
+
+		// unweighted: b and c are equivalent
+		ranks = new PageRank<String>(g).compute();
+		Assert.assertEquals(ranks.getScore("b"), ranks.getScore("c"), 1e-9);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeWeight() {
+		WeightedDigraph<String> g = new WeightedDigraphAdapter<String>();
+		g.put("a", "b", 1);
+		g.put("a", "c", -1);
+		new PageRank<String>(g, g);
+	}
+
+	@Test
+	public void testTop() {
+		Random random = new Random(59);
+		VertexIndex<Integer> index = new VertexIndex<Integer>();
+		double[] scores = new double[1000];
+		for (int i = 0; i < scores.length; i++) {
+			index.add(i);
+			scores[i] = random.nextInt(100); // with ties
+		}
+		VertexScores<Integer> ranks = new VertexScores<Integer>(index, scores);
+		for (int count : new int[] { 0, 1, 7, 100, 999, 1000, 2000 }) {
+			List<Integer> top = ranks.getTop(count);
+			Assert.assertEquals(Math.min(count, scores.length), top.size());
+			for (int i = 1; i < top.size(); i++) {
+				double previous = scores[top.get(i - 1)];
+				double current = scores[top.get(i)];
+				Assert.assertTrue(previous > current || previous == current && top.get(i - 1) < top.get(i));
+			}
+			if (!top.isEmpty()) {
+				double last = scores[top.get(top.size() - 1)];
+				for (int i = 0; i < scores.length; i++) {
+					Assert.assertTrue(top.contains(i) || scores[i] <= last);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		Random random = new Random(53);
+		Digraph<Integer,Object> g = new MapDigraph<Integer,Object>();
+		int n = 20000;
+		for (int i = 0; i < n; i++) {
+			g.add(i);
+		}
+		for (int i = 0; i < 3 * n; i++) {
+			g.put(random.nextInt(n), random.nextInt(n), null);
+		}
+		VertexScores<Integer> expected = new PageRank<Integer>(g).compute();
+		PageRank<Integer> pageRank = new PageRank<Integer>(g);
+		pageRank.setNumberOfThreads(4);
+		VertexScores<Integer> ranks = pageRank.compute();
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals(expected.getScore(i), ranks.getScore(i), 1e-12);
+		}
+	}
+
+	@Test
+	public void testDegreeCentrality() {
+		WeightedDigraph<String> g = new WeightedDigraphAdapter<String>();
+		g.put("a", "b", 2);
+		g.put("a", "c", 4);
+		g.put("b", "c", 1);
+		Assert.assertEquals(1.0, DegreeCentrality.outDegree(g, null).getScore("a"), 0);
+		Assert.assertEquals(1.0, DegreeCentrality.inDegree(g, null).getScore("c"), 0);
+		Assert.assertEquals(0.0, DegreeCentrality.inDegree(g, null).getScore("a"), 0);
+		Assert.assertEquals(2.5, DegreeCentrality.inDegree(g, g).getScore("c"), 0);
+		Assert.assertEquals(Arrays.asList("c"), DegreeCentrality.inDegree(g, g).getTop(1));
+	}
+}
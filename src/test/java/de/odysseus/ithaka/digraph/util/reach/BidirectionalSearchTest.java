@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.reach;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.CsrDigraph;
+import de.odysseus.ithaka.digraph.DoubledMapDigraph;
+
+public class BidirectionalSearchTest {
+	@Test
+	public void testPath() {
+		DoubledMapDigraph<String,Object> g = new DoubledMapDigraph<String,Object>();
+		g.put("a", "b", null);
+		g.put("b", "c", null);
+		g.put("c", "d", null);
+		g.put("a", "x", null);
+		g.put("x", "d", null);
+		g.put("d", "e", null);
+		g.add("f");
+
+		BidirectionalSearch<String> search = new BidirectionalSearch<String>(g);
+		Assert.assertEquals(Arrays.asList("a", "x", "d", "e"), search.getPath("a", "e"));
+		Assert.assertEquals(3, search.getDistance("a", "e"));
+		Assert.assertEquals(0, search.getDistance("f", "f"));
+		Assert.assertEquals(-1, search.getDistance("e", "a"));
+		Assert.assertNull(search.getPath("a", "f"));
+		Assert.assertTrue(search.isReachable("b", "e"));
+		Assert.assertFalse(search.isReachable("b", "x"));
+		Assert.assertFalse(search.isReachable("b", "unknown"));
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(17);
+		for (int k = 0; k < 20; k++) {
+			DoubledMapDigraph<Integer,Object> g = new DoubledMapDigraph<Integer,Object>();
+			int n = 10 + random.nextInt(50);
+			for (int i = 0; i < n; i++) {
+				g.add(i);
+			}
+			for (int i = random.nextInt(2 * n); i > 0; i--) {
+				g.put(random.nextInt(n), random.nextInt(n), null);
+			}
+			BidirectionalSearch<Integer> search = new BidirectionalSearch<Integer>(g);
+			BidirectionalSearch<Integer> indexed = new BidirectionalSearch<Integer>(new CsrDigraph<Integer,Object>(g));
+			for (int source = 0; source < n; source++) {
+				int[] distances = distances(g, source, n);
+				for (int target = 0; target < n; target++) {
+					Assert.assertEquals(distances[target] >= 0, search.isReachable(source, target));
+					Assert.assertEquals(distances[target] >= 0, indexed.isReachable(source, target));
+					Assert.assertEquals(distances[target], search.getDistance(source, target));
+					Assert.assertEquals(distances[target], indexed.getDistance(source, target));
+					List<Integer> path = search.getPath(source, target);
+					if (path != null) {
+						for (int i = 1; i < path.size(); i++) {
+							Assert.assertTrue(g.contains(path.get(i - 1), path.get(i)));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static int[] distances(DoubledMapDigraph<Integer,Object> g, int source, int n) {
+		int[] distances = new int[n];
+		Arrays.fill(distances, -1);
+		distances[source] = 0;
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int vertex = queue[head++];
+			for (int target : g.targets(vertex)) {
+				if (distances[target] < 0) {
+					distances[target] = distances[vertex] + 1;
+					queue[tail++] = target;
+				}
+			}
+		}
+		return distances;
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.reach;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.MapDigraph;
+
+public class MultiSourceClosureTest {
+	@Test
+	public void testClosures() {
+		Random random = new Random(19);
+		Digraph<Integer,Object> g = new MapDigraph<Integer,Object>();
+		int n = 300;
+		for (int i = 0; i < n; i++) {
+			g.add(i);
+		}
+		for (int i = 0; i < 400; i++) {
+			g.put(random.nextInt(n), random.nextInt(n), null);
+		}
+
+		List<Integer> sources = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++) {
+			sources.add(i);
+		}
+		sources.add(7); // duplicate source
+		sources.add(-1); // unknown source
+
+		MultiSourceClosure<Integer> closure = new MultiSourceClosure<Integer>(g);
+		List<Set<Integer>> closures = closure.closures(sources);
+		int[] sizes = closure.closureSizes(sources);
+		Assert.assertEquals(sources.size(), closures.size());
+		Assert.assertEquals(sources.size(), sizes.length);
+		for (int i = 0; i < sources.size(); i++) {
+			Set<Integer> expected = Digraphs.closure(g, sources.get(i));
+			Assert.assertEquals(expected, closures.get(i));
+			Assert.assertEquals(expected.size(), sizes[i]);
+		}
+	}
+}
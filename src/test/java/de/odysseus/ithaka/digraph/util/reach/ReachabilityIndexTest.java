@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.reach;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.MapDigraph;
+import de.odysseus.ithaka.digraph.RandomDigraphs;
+
+public class ReachabilityIndexTest {
+	@Test
+	public void testSimple() {
+		Digraph<String,Object> g = new MapDigraph<String,Object>();
+		g.put("a", "b", null);
+		g.put("b", "c", null);
+		g.put("c", "b", null);
+		g.put("c", "d", null);
+		g.put("a", "e", null);
+		g.add("f");
+
+		ReachabilityIndex<String> index = new ReachabilityIndex<String>(g);
+		Assert.assertEquals(5, index.getComponentCount());
+		Assert.assertTrue(index.isReachable("a", "d"));
+		Assert.assertTrue(index.isReachable("c", "b"));
+		Assert.assertTrue(index.isReachable("f", "f"));
+		Assert.assertTrue(index.isReachable("x", "x"));
+		Assert.assertFalse(index.isReachable("d", "a"));
+		Assert.assertFalse(index.isReachable("e", "d"));
+		Assert.assertFalse(index.isReachable("a", "f"));
+		Assert.assertFalse(index.isReachable("a", "x"));
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(13);
+		for (int k = 0; k < 20; k++) {
+			int n = 10 + random.nextInt(90);
+			Digraph<Integer,Object> g = RandomDigraphs.random(new MapDigraph<Integer,Object>(), random, n, random.nextInt(2 * n), k % 2 == 0, null);
+			ReachabilityIndex<Integer> index = new ReachabilityIndex<Integer>(g, 1 + k % 3);
+			for (int source = 0; source < n; source++) {
+				for (int target = 0; target < n; target++) {
+					Assert.assertEquals(Digraphs.closure(g, source).contains(target), index.isReachable(source, target));
+					Assert.assertEquals(Digraphs.closure(g, source).contains(target), Digraphs.isReachable(g, source, target));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.ithaka.digraph.util.reach;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.DigraphFactory;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.MapDigraph;
+import de.odysseus.ithaka.digraph.RandomDigraphs;
+
+public class TransitiveClosureTest {
+	private static final DigraphFactory<MapDigraph<Integer,String>> FACTORY = MapDigraph.getDefaultDigraphFactory();
+
+	private static boolean reachable(Digraph<Integer,?> g, int source, int target) {
+		for (int vertex : g.targets(source)) {
+			if (Digraphs.isReachable(g, vertex, target)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static final RandomDigraphs.EdgeFactory<String> EDGES = new RandomDigraphs.EdgeFactory<String>() {
+		@Override
+		public String create(int source, int target) {
+			return source + "-" + target;
+		}
+	};
+
+	private static Digraph<Integer,String> random(Random random, int n, int m, boolean acyclic) {
+		return RandomDigraphs.random(new MapDigraph<Integer,String>(), random, n, m, acyclic, EDGES);
+	}
+
+	@Test
+	public void testClosure() {
+		Random random = new Random(23);
+		for (int k = 0; k < 20; k++) {
+			int n = 5 + random.nextInt(80);
+			Digraph<Integer,String> g = random(random, n, random.nextInt(2 * n), k % 2 == 0);
+			TransitiveClosure<Integer,String> closure = TransitiveClosure.compute(g, k % 3);
+			Digraph<Integer,String> result = closure.closure(FACTORY);
+			Assert.assertEquals(n, result.getVertexCount());
+			for (int source = 0; source < n; source++) {
+				for (int target = 0; target < n; target++) {
+					boolean expected = reachable(g, source, target);
+					Assert.assertEquals(expected, closure.isReachable(source, target));
+					Assert.assertEquals(expected, result.contains(source, target));
+					if (g.contains(source, target)) {
+						Assert.assertEquals(g.get(source, target), result.get(source, target));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testReduction() {
+		Random random = new Random(29);
+		for (int k = 0; k < 20; k++) {
+			int n = 5 + random.nextInt(80);
+			boolean acyclic = k % 2 == 0;
+			Digraph<Integer,String> g = random(random, n, random.nextInt(3 * n), acyclic);
+			Digraph<Integer,String> reduction = new TransitiveClosure<Integer,String>(g).reduction(FACTORY);
+			for (int source = 0; source < n; source++) {
+				for (int target = 0; target < n; target++) {
+					Assert.assertEquals(reachable(g, source, target), reachable(reduction, source, target));
+				}
+			}
+			if (acyclic) {
+				for (int source = 0; source < n; source++) {
+					for (int target : g.targets(source)) {
+						// an edge is implied iff there's another path
+						boolean implied = false;
+						for (int vertex : g.targets(source)) {
+							implied |= vertex != target && Digraphs.isReachable(g, vertex, target);
+						}
+						Assert.assertEquals(!implied, reduction.contains(source, target));
+					}
+				}
+				Assert.assertTrue(reduction.getEdgeCount() <= g.getEdgeCount());
+			}
+		}
+	}
+
+	@Test
+	public void testCycle() {
+		Digraph<Integer,String> g = new MapDigraph<Integer,String>();
+		g.put(1, 2, "a");
+		g.put(2, 3, "b");
+		g.put(3, 1, "c");
+		g.put(1, 3, "d");
+		g.put(3, 4, "e");
+		g.put(1, 4, "f");
+		Digraph<Integer,String> reduction = new TransitiveClosure<Integer,String>(g).reduction(FACTORY);
+		Assert.assertEquals(4, reduction.getEdgeCount());
+		Assert.assertEquals(12, new TransitiveClosure<Integer,String>(g).closure(FACTORY).getEdgeCount());
+	}
+
+	@Test
+	public void testParallel() {
+		Digraph<Integer,String> g = random(new Random(31), 3000, 6000, true);
+		Digraph<Integer,String> expected = new TransitiveClosure<Integer,String>(g).closure(FACTORY);
+		Digraph<Integer,String> closure = TransitiveClosure.compute(g, 4).closure(FACTORY);
+		Assert.assertTrue(Digraphs.isEquivalent(expected, closure, true));
+	}
+
+	@Test
+	public void testInterrupted() {
+		Digraph<Integer,String> g = new MapDigraph<Integer,String>();
+		for (int i = 0; i < 1000; i++) {
+			g.put(i, -1, null);
+		}
+		Thread.currentThread().interrupt();
+		try {
+			Assert.assertNull(TransitiveClosure.compute(g, 2));
+			Assert.assertTrue(Thread.currentThread().isInterrupted());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+}